@@ -0,0 +1,131 @@
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
+import bench.EngineHarness;
+
+/**
+ * Implementation of the benchmark harness, which has to be in the default
+ * package to be able to use the game classes (see bench.EngineHarness)
+ *
+ */
+public class BattleshipHarness implements EngineHarness {
+
+	/* INSTANCE VARIABLES */
+
+	// true to benchmark BitboardOcean instead of Ocean
+	private final boolean bitboard;
+	// one ship of each length (index = length), for okToPlaceShipAt()
+	private final Ship[] ships = { null, new Submarine(), new Destroyer(), new Cruiser(), new Battleship() };
+	// used by getCoordsFromInput()
+	private final BattleshipGame game = new BattleshipGame();
+	// used by parseVolley()
+	private final CoordinateParser parser = new CoordinateParser(10, 10);
+	// used by playRandomGame()
+	private final RandomShooter shooter = new RandomShooter();
+	private final SplittableRandom random = new SplittableRandom(42);
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a BattleshipHarness
+	 *
+	 * @param oceanType "Ocean" or "BitboardOcean"
+	 */
+	public BattleshipHarness(String oceanType) {
+		if (!oceanType.equals("Ocean") && !oceanType.equals("BitboardOcean")) {
+			throw new IllegalArgumentException("Unknown ocean type: " + oceanType);
+		}
+		this.bitboard = oceanType.equals("BitboardOcean");
+	}
+
+	@Override
+	public Object newOcean() {
+		return this.bitboard ? new BitboardOcean() : new Ocean();
+	}
+
+	@Override
+	public Object newPlacedOcean() {
+		Ocean ocean = (Ocean) newOcean();
+		ocean.placeAllShipsRandomly();
+		return ocean;
+	}
+
+	@Override
+	public int placeAllShipsRandomly(Object ocean) {
+		return ((Ocean) ocean).placeAllShipsRandomly();
+	}
+
+	@Override
+	public boolean shootAt(Object ocean, int row, int column) {
+		return ((Ocean) ocean).shootAt(row, column);
+	}
+
+	@Override
+	public boolean isOccupied(Object ocean, int row, int column) {
+		return ((Ocean) ocean).isOccupied(row, column);
+	}
+
+	@Override
+	public boolean okToPlaceShipAt(int length, int row, int column, boolean horizontal, Object ocean) {
+		return this.ships[length].okToPlaceShipAt(row, column, horizontal, (Ocean) ocean);
+	}
+
+	@Override
+	public void print(Object ocean, PrintStream out) {
+		((Ocean) ocean).print(out);
+	}
+
+	@Override
+	public int[] getCoordsFromInput(String input) throws Exception {
+		return this.game.getCoordsFromInput(input);
+	}
+
+	@Override
+	public int parseVolley(String input) {
+		return this.parser.parse(input);
+	}
+
+	@Override
+	public int playRandomGame() {
+		Ocean ocean = (Ocean) newPlacedOcean();
+		return Simulator.playOneGame(ocean, this.shooter, this.random);
+	}
+
+	@Override
+	public Object newHeatmap(String engine, int size) {
+		if (engine.equals("scalar")) {
+			return new PlacementHeatmap(size, size);
+		}
+		PlacementHeatmap heatmap = PlacementHeatmap.create(size, size);
+		if (!engine.equals("vector") || !heatmap.isVectorized()) {
+			throw new IllegalArgumentException("Heatmap engine not available: " + engine);
+		}
+		return heatmap;
+	}
+
+	@Override
+	public Object newMask(int size, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		BitBoard mask = new BitBoard(size, size);
+		for (int i = 0; i < size * size; i++) {
+			if (random.nextInt(4) == 0) {
+				mask.set(i);
+			}
+		}
+		return mask;
+	}
+
+	@Override
+	public void blockMask(Object heatmap, Object mask) {
+		((PlacementHeatmap) heatmap).reset();
+		((PlacementHeatmap) heatmap).block((BitBoard) mask);
+	}
+
+	@Override
+	public int addCoverage(Object heatmap, int[] coverage) {
+		for (int length = 1; length <= 4; length++) {
+			((PlacementHeatmap) heatmap).addCoverage(length, coverage);
+		}
+		return coverage[0];
+	}
+}
@@ -0,0 +1,30 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks (accepts the usual JMH command line options) with the GC
+ * profiler always enabled, so every result includes the allocation rate
+ * (gc.alloc.rate.norm is the number of bytes allocated per operation).
+ *
+ * The results are also written to bench-results.json, to be kept as a baseline
+ * and compared against later runs.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+				.result(commandLine.getResult().orElse("bench-results.json"))
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,107 @@
+package bench;
+
+import java.io.PrintStream;
+
+/**
+ * The operations of the game engine that are benchmarked.
+ *
+ * The game classes live in the default package, which classes in a named
+ * package (such as the benchmarks) cannot refer to, and JMH does not allow
+ * benchmarks in the default package. The benchmarks therefore go through this
+ * interface, which is implemented by BattleshipHarness in the default package
+ * and loaded once by name. Oceans are passed around as plain Objects.
+ */
+public interface EngineHarness {
+
+	/**
+	 * Loads the harness for the given Ocean class
+	 *
+	 * @param oceanType "Ocean" or "BitboardOcean"
+	 * @return
+	 */
+	static EngineHarness load(String oceanType) {
+		try {
+			return (EngineHarness) Class.forName("BattleshipHarness").getConstructor(String.class)
+					.newInstance(oceanType);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not load the benchmark harness", e);
+		}
+	}
+
+	/**
+	 * Returns a new, empty ocean
+	 */
+	Object newOcean();
+
+	/**
+	 * Returns a new ocean with all ships placed randomly
+	 */
+	Object newPlacedOcean();
+
+	/**
+	 * Calls Ocean.placeAllShipsRandomly()
+	 */
+	int placeAllShipsRandomly(Object ocean);
+
+	/**
+	 * Calls Ocean.shootAt()
+	 */
+	boolean shootAt(Object ocean, int row, int column);
+
+	/**
+	 * Calls Ocean.isOccupied()
+	 */
+	boolean isOccupied(Object ocean, int row, int column);
+
+	/**
+	 * Calls Ship.okToPlaceShipAt() for a ship of the given length
+	 */
+	boolean okToPlaceShipAt(int length, int row, int column, boolean horizontal, Object ocean);
+
+	/**
+	 * Calls Ocean.print() with the given stream
+	 */
+	void print(Object ocean, PrintStream out);
+
+	/**
+	 * Calls BattleshipGame.getCoordsFromInput()
+	 */
+	int[] getCoordsFromInput(String input) throws Exception;
+
+	/**
+	 * Calls CoordinateParser.parse() on a 10x10 ocean
+	 */
+	int parseVolley(String input);
+
+	/**
+	 * Plays a full game with a random shooter, and returns the number of shots
+	 * fired
+	 */
+	int playRandomGame();
+
+	/**
+	 * Returns a PlacementHeatmap of a size x size ocean
+	 *
+	 * @param engine "scalar", or "vector" (which fails if the Vector API is not
+	 *               available, rather than measuring the scalar code)
+	 */
+	Object newHeatmap(String engine, int size);
+
+	/**
+	 * Returns a BitBoard of a size x size ocean with about a quarter of the
+	 * locations set at random
+	 */
+	Object newMask(int size, long seed);
+
+	/**
+	 * Calls PlacementHeatmap.reset() and then PlacementHeatmap.block() with the
+	 * given mask
+	 */
+	void blockMask(Object heatmap, Object mask);
+
+	/**
+	 * Calls PlacementHeatmap.addCoverage() for every ship length of the classic
+	 * fleet, and returns the coverage of the first location
+	 */
+	int addCoverage(Object heatmap, int[] coverage);
+}
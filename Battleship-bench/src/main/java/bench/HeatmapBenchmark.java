@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of PlacementHeatmap, one location at a time ("scalar") against
+ * the Vector API ("vector"), on square oceans with a quarter of the locations
+ * blocked
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class HeatmapBenchmark {
+
+	@Param({ "scalar", "vector" })
+	public String engine;
+
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	private EngineHarness harness;
+	private Object heatmap;
+	private Object mask;
+	private int[] coverage;
+
+	@Setup
+	public void setUp() {
+		this.harness = EngineHarness.load("Ocean");
+		this.heatmap = this.harness.newHeatmap(this.engine, this.size);
+		this.mask = this.harness.newMask(this.size, 42);
+		this.harness.blockMask(this.heatmap, this.mask);
+		this.coverage = new int[this.size * this.size];
+	}
+
+	@Benchmark
+	public void blockMask() {
+		this.harness.blockMask(this.heatmap, this.mask);
+	}
+
+	@Benchmark
+	public int addCoverage() {
+		return this.harness.addCoverage(this.heatmap, this.coverage);
+	}
+}
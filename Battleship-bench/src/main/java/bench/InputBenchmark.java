@@ -0,0 +1,58 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for parsing the player's input
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputBenchmark {
+
+	// the different ways a player may write coordinates
+	@Param({ "3,4", "(7, 2)", "55" })
+	public String input;
+
+	private EngineHarness harness;
+
+	@Setup
+	public void setUp() {
+		this.harness = EngineHarness.load("Ocean");
+	}
+
+	@Benchmark
+	public int[] getCoordsFromInput() throws Exception {
+		return this.harness.getCoordsFromInput(this.input);
+	}
+
+	@Benchmark
+	public int parseVolley(Volley volley) {
+		return this.harness.parseVolley(volley.input);
+	}
+
+	/**
+	 * Several locations entered on one line
+	 */
+	@State(Scope.Thread)
+	public static class Volley {
+
+		@Param({ "1,2 3,4 (5,6) 7 8;99" })
+		public String input;
+	}
+}
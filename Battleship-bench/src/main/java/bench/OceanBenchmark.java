@@ -0,0 +1,117 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the operations of a single Ocean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OceanBenchmark {
+
+	// the number of locations on the classic ocean
+	private static final int CELLS = 100;
+
+	@Param({ "Ocean", "BitboardOcean" })
+	public String oceanType;
+
+	private EngineHarness harness;
+	// an ocean with the ships placed, shared by the read-only benchmarks
+	private Object placedOcean;
+	// discards everything printed to it
+	private PrintStream nullStream;
+	// cycles through the locations of the ocean
+	private int cell;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		this.harness = EngineHarness.load(this.oceanType);
+		this.placedOcean = this.harness.newPlacedOcean();
+		this.nullStream = new PrintStream(OutputStream.nullOutputStream());
+	}
+
+	/**
+	 * A new, empty ocean for every invocation of the benchmarks that change it
+	 * (the benchmarked work takes microseconds, so the per-invocation setup does
+	 * not distort the timing, but the bytes allocated per operation include one
+	 * empty ocean; see newOcean)
+	 */
+	@State(Scope.Thread)
+	public static class FreshOcean {
+
+		private Object ocean;
+
+		@Setup(Level.Invocation)
+		public void setUp(OceanBenchmark benchmark) {
+			this.ocean = benchmark.harness.newOcean();
+		}
+	}
+
+	@Benchmark
+	public Object newOcean() {
+		return this.harness.newOcean();
+	}
+
+	@Benchmark
+	public int placeAllShipsRandomly(FreshOcean fresh) {
+		return this.harness.placeAllShipsRandomly(fresh.ocean);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CELLS)
+	public int shootAtEveryLocation(FreshOcean fresh) {
+		Object ocean = fresh.ocean;
+		this.harness.placeAllShipsRandomly(ocean);
+		int hits = 0;
+		for (int i = 0; i < CELLS; i++) {
+			if (this.harness.shootAt(ocean, i / 10, i % 10)) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+
+	@Benchmark
+	public boolean isOccupied() {
+		int i = nextCell();
+		return this.harness.isOccupied(this.placedOcean, i / 10, i % 10);
+	}
+
+	@Benchmark
+	public boolean okToPlaceShipAt() {
+		int i = nextCell();
+		// a battleship, alternating between horizontal and vertical
+		return this.harness.okToPlaceShipAt(4, i / 10, i % 10, (i & 1) == 0, this.placedOcean);
+	}
+
+	@Benchmark
+	public void print() {
+		this.harness.print(this.placedOcean, this.nullStream);
+	}
+
+	private int nextCell() {
+		int i = this.cell;
+		this.cell = i == CELLS - 1 ? 0 : i + 1;
+		return i;
+	}
+}
@@ -0,0 +1,196 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A PlacementHeatmap that uses the Vector API to handle a whole vector of
+ * locations at a time (8 on a CPU with AVX2, 16 with AVX-512)
+ *
+ * Instead of sliding a window along each line one location at a time, a ship
+ * fits with its bow at a location if the location and the length - 1 after it
+ * are all open, so the bows of a vector of neighbouring locations are the AND
+ * of length vectors, each loaded one location further on; likewise, the
+ * coverage of a vector of locations is the sum of length vectors of bows, each
+ * loaded one location further back. For vertical ships, "further on" is one
+ * row down, so the vectors run along the rows in both directions. The few
+ * locations at the ends of a row that do not fill a vector are done one at a
+ * time, and an ocean less than two vectors wide is counted by PlacementHeatmap
+ * (on the classic 10x10 ocean the vectors only slow it down).
+ *
+ * This class needs the jdk.incubator.vector module, so it is kept apart from
+ * the other sources (compile it with --add-modules jdk.incubator.vector);
+ * PlacementHeatmap.create() only loads it if the module is there.
+ *
+ */
+public class VectorHeatmap extends PlacementHeatmap {
+
+	/* INSTANCE VARIABLES */
+
+	// the widest vector of ints the CPU handles well
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	// lane i holds 1 << i, to pick out each lane's bit of a mask
+	private static final IntVector LANE_BITS = IntVector.broadcast(SPECIES, 1)
+			.lanewise(VectorOperators.LSHL, IntVector.zero(SPECIES).addIndex(1));
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a VectorHeatmap of an ocean of the given size, with every
+	 * location open
+	 *
+	 * @param rows
+	 * @param columns
+	 */
+	public VectorHeatmap(int rows, int columns) {
+		super(rows, columns);
+	}
+
+	@Override
+	public boolean isVectorized() {
+		return true;
+	}
+
+	@Override
+	public void block(BitBoard mask) {
+		int cells = this.rows * this.columns;
+		int cell = 0;
+		// LANES divides 64, so a vector's bits never straddle two longs
+		for (; cell + LANES <= cells; cell += LANES) {
+			long bits = mask.getWord(cell >>> 6) >>> (cell & 63);
+			if ((bits & ((1L << LANES) - 1)) != 0) {
+				// every lane gets the vector's bits, and keeps its own
+				VectorMask<Integer> blocked = IntVector.broadcast(SPECIES, (int) bits).and(LANE_BITS)
+						.compare(VectorOperators.NE, 0);
+				IntVector.fromArray(SPECIES, this.open, cell).blend(0, blocked).intoArray(this.open, cell);
+			}
+		}
+		for (; cell < cells; cell++) {
+			if (mask.get(cell)) {
+				this.open[cell] = 0;
+			}
+		}
+	}
+
+	@Override
+	public void addCoverage(int length, int[] coverage) {
+		int columns = this.columns;
+		if (columns < 2 * LANES) {
+			// most of each row would be done one location at a time anyway
+			super.addCoverage(length, coverage);
+			return;
+		}
+		// horizontal ships, a row at a time
+		for (int i = 0; i < this.rows; i++) {
+			int start = i * columns;
+			// the last column a bow can be in
+			int lastBow = columns - length;
+			int j = 0;
+			for (; j + LANES <= lastBow + 1; j += LANES) {
+				IntVector fits = IntVector.fromArray(SPECIES, this.open, start + j);
+				for (int k = 1; k < length; k++) {
+					fits = fits.and(IntVector.fromArray(SPECIES, this.open, start + j + k));
+				}
+				fits.intoArray(this.bows, start + j);
+			}
+			for (; j < columns; j++) {
+				this.bows[start + j] = j <= lastBow && fitsHorizontally(start + j, length) ? 1 : 0;
+			}
+			// the first length - 1 columns have fewer bows behind them
+			j = 0;
+			for (; j < Math.min(length - 1, columns); j++) {
+				coverage[start + j] += sumBehind(start + j, j + 1, 1);
+			}
+			for (; j + LANES <= columns; j += LANES) {
+				IntVector sum = IntVector.fromArray(SPECIES, coverage, start + j);
+				for (int k = 0; k < length; k++) {
+					sum = sum.add(IntVector.fromArray(SPECIES, this.bows, start + j - k));
+				}
+				sum.intoArray(coverage, start + j);
+			}
+			for (; j < columns; j++) {
+				coverage[start + j] += sumBehind(start + j, length, 1);
+			}
+		}
+		if (length == 1) {
+			return;
+		}
+		// vertical ships, a row of bows at a time
+		for (int i = 0; i < this.rows; i++) {
+			int start = i * columns;
+			if (i > this.rows - length) {
+				// too close to the bottom for a bow
+				for (int j = 0; j < columns; j++) {
+					this.bows[start + j] = 0;
+				}
+				continue;
+			}
+			int j = 0;
+			for (; j + LANES <= columns; j += LANES) {
+				IntVector fits = IntVector.fromArray(SPECIES, this.open, start + j);
+				for (int k = 1; k < length; k++) {
+					fits = fits.and(IntVector.fromArray(SPECIES, this.open, start + k * columns + j));
+				}
+				fits.intoArray(this.bows, start + j);
+			}
+			for (; j < columns; j++) {
+				int fits = this.open[start + j];
+				for (int k = 1; k < length; k++) {
+					fits &= this.open[start + k * columns + j];
+				}
+				this.bows[start + j] = fits;
+			}
+		}
+		for (int i = 0; i < this.rows; i++) {
+			int start = i * columns;
+			// the number of bows above (and including) this row that cover it
+			int above = Math.min(length, i + 1);
+			int j = 0;
+			for (; j + LANES <= columns; j += LANES) {
+				IntVector sum = IntVector.fromArray(SPECIES, coverage, start + j);
+				for (int k = 0; k < above; k++) {
+					sum = sum.add(IntVector.fromArray(SPECIES, this.bows, start - k * columns + j));
+				}
+				sum.intoArray(coverage, start + j);
+			}
+			for (; j < columns; j++) {
+				coverage[start + j] += sumBehind(start + j, above, columns);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if a horizontal ship of the given length fits with its bow at
+	 * the given location (which must leave room for it in the row)
+	 *
+	 * @param cell
+	 * @param length
+	 * @return
+	 */
+	private boolean fitsHorizontally(int cell, int length) {
+		for (int k = 0; k < length; k++) {
+			if (this.open[cell + k] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bows among the given number of locations ending at
+	 * the given one
+	 *
+	 * @param cell
+	 * @param count
+	 * @param step  the distance between two locations
+	 * @return
+	 */
+	private int sumBehind(int cell, int count, int step) {
+		int sum = 0;
+		for (int k = 0; k < count; k++) {
+			sum += this.bows[cell - k * step];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,144 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks how much memory a game allocates against a fixed budget, so that
+ * changes which add garbage to the life of a game are noticed
+ *
+ * Two things are measured on the classic game, averaged over many games after
+ * a warm-up: creating an Ocean and placing the fleet, and a whole game (the
+ * same, then firing at every location until the fleet is sunk, with an
+ * OceanListener told about every shot). The program
+ * prints the bytes allocated for each and exits with status 1 if either is
+ * over its budget.
+ *
+ * The numbers come from the HotSpot ThreadMXBean, which counts every byte the
+ * current thread allocates (objects that the JIT compiler manages to keep off
+ * the heap are not counted).
+ *
+ */
+public class AllocationBudget implements OceanListener {
+
+	/* INSTANCE VARIABLES */
+
+	// the most a new Ocean with its fleet placed may allocate, in bytes
+	// (the ocean and its arrays, the ten ships and the rows they occupy)
+	private static final long PLACEMENT_BUDGET = 2048;
+	// the most a whole game may allocate, in bytes (firing only adds the rows
+	// of the ocean that hold no ship, and the array of listeners, so this is
+	// barely more)
+	private static final long GAME_BUDGET = 2048;
+
+	// the number of games measured
+	private static final int GAMES = 100_000;
+
+	// counts the bytes allocated by a thread
+	private final com.sun.management.ThreadMXBean threads;
+	// the configuration of the games
+	private final GameConfig config;
+	// keeps the results alive, so the work cannot be optimized away
+	private long sink;
+	// the number of shots the listener has been told about
+	private long events;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an AllocationBudget of games with the given configuration
+	 *
+	 * @param config
+	 * @throws UnsupportedOperationException if the JVM cannot count allocations
+	 */
+	public AllocationBudget(GameConfig config) {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			throw new UnsupportedOperationException("This JVM cannot count allocated bytes");
+		}
+		this.threads = (com.sun.management.ThreadMXBean) bean;
+		this.threads.setThreadAllocatedMemoryEnabled(true);
+		this.config = config;
+	}
+
+	/**
+	 * Returns the average number of bytes allocated by creating an ocean and
+	 * placing the fleet
+	 *
+	 * @param games
+	 * @return
+	 */
+	public double measurePlacement(int games) {
+		long before = allocated();
+		for (int i = 0; i < games; i++) {
+			Ocean ocean = new Ocean(this.config);
+			this.sink += ocean.placeAllShipsRandomly();
+		}
+		return (double) (allocated() - before) / games;
+	}
+
+	/**
+	 * Returns the average number of bytes allocated by a whole game: creating
+	 * an ocean, placing the fleet, then firing at every location in turn until
+	 * the fleet is sunk
+	 *
+	 * @param games
+	 * @return
+	 */
+	public double measureGame(int games) {
+		int rows = this.config.getRows();
+		int columns = this.config.getColumns();
+		long before = allocated();
+		for (int i = 0; i < games; i++) {
+			Ocean ocean = new Ocean(this.config);
+			ocean.placeAllShipsRandomly();
+			ocean.addListener(this);
+			for (int cell = 0; !ocean.isGameOver(); cell++) {
+				ocean.fire(cell / columns % rows, cell % columns);
+			}
+			this.sink += ocean.getShotsFired();
+		}
+		return (double) (allocated() - before) / games;
+	}
+
+	@Override
+	public void onMiss(int row, int column) {
+		this.events++;
+	}
+
+	@Override
+	public void onHit(int row, int column) {
+		this.events++;
+	}
+
+	@Override
+	public void onSunk(int row, int column, Ship ship) {
+		this.events++;
+	}
+
+	@Override
+	public void onGameOver(int shotsFired) {
+		this.sink += this.events;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the current thread so far
+	 *
+	 * @return
+	 */
+	private long allocated() {
+		return this.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	public static void main(String[] args) {
+		AllocationBudget budget = new AllocationBudget(GameConfig.standard());
+		// warm up first, so the JIT compiler has done its work
+		budget.measurePlacement(GAMES);
+		budget.measureGame(GAMES);
+		double placement = budget.measurePlacement(GAMES);
+		double game = budget.measureGame(GAMES);
+		System.out.printf("new Ocean + placement: %,.0f bytes (budget %,d)%n", placement, PLACEMENT_BUDGET);
+		System.out.printf("whole game:            %,.0f bytes (budget %,d)%n", game, GAME_BUDGET);
+		if (placement > PLACEMENT_BUDGET || game > GAME_BUDGET) {
+			System.out.println("Over budget");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,421 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Plays games of Battleship from a shot script, without a console: nothing is
+ * drawn, and only a summary of each game is written
+ *
+ * A script is a text file of lines like these:
+ *
+ * <pre>
+ * # blank lines and lines starting with '#' are skipped
+ * game 42 7
+ * 0,0 0,1 (0,2)
+ * 55
+ * </pre>
+ *
+ * "game SEED NUMBER" starts a new game with the fleet of game NUMBER of master
+ * seed SEED (the same fleet Simulator places in that game, so Simulator.replay()
+ * and the script play on the same ocean). Every other line is a volley of any
+ * number of shots, written as the player would type them (see
+ * CoordinateParser). A script may hold any number of games; shots fired after
+ * the fleet is sunk are ignored (and counted).
+ *
+ * The script is read in large blocks of bytes, and each line is parsed where it
+ * lies in the block, so no objects are created per line or per shot. Each game
+ * is summarized as a line of CSV: the seed, the game, the shots fired, the hits,
+ * the ships sunk, the shots at locations that had already been fired upon, and
+ * the shots ignored. A line that cannot be read is reported (with its line
+ * number) and skipped.
+ *
+ */
+public class BatchGame {
+
+	/* INSTANCE VARIABLES */
+
+	// the size of the blocks the script is read in (a longer line makes the
+	// block grow to fit it)
+	private static final int BLOCK_SIZE = 1 << 20;
+	// the first line of the summaries
+	private static final String HEADER = "seed,game,shots,hits,sunk,repeats,ignored\n";
+	// the number of bad lines reported (the rest are only counted)
+	private static final int MAX_REPORTED_ERRORS = 10;
+
+	// the size of the ocean and the makeup of the fleet
+	private final GameConfig config;
+	// reads the shots in a line
+	private final CoordinateParser parser;
+	// the line being read, as seen by the parser
+	private final Line line = new Line();
+	// where the summaries are written
+	private final Writer out;
+	// the summary being written
+	private final StringBuilder summary = new StringBuilder();
+	// places the fleet of each game (replaced when the master seed changes)
+	private GameRandom random;
+	// the game being played, or null before the first "game" line
+	private Ocean ocean;
+	// the number of the game being played
+	private long game;
+	// the number of shots at locations that had already been fired upon, and
+	// of shots after the fleet was sunk, in the game being played
+	private int repeats;
+	private int ignored;
+	// the number of the line being read
+	private long lineNumber;
+	// totals over the whole script
+	private long games;
+	private long shots;
+	private long errors;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a BatchGame with the given size and fleet, that writes
+	 * its summaries to the given writer
+	 *
+	 * @param config
+	 * @param out
+	 */
+	public BatchGame(GameConfig config, Writer out) {
+		this.config = config;
+		this.parser = new CoordinateParser(config.getRows(), config.getColumns());
+		this.out = out;
+	}
+
+	/**
+	 * Plays every game in the script read from the given channel, and writes
+	 * their summaries (the channel is read to the end, but not closed)
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	public void run(ReadableByteChannel in) throws IOException {
+		this.out.write(HEADER);
+		ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+		boolean end = false;
+		while (!end) {
+			end = in.read(block) < 0;
+			byte[] bytes = block.array();
+			int limit = block.position();
+			// every complete line in the block (and the last one, at the end)
+			int start = 0;
+			for (int i = 0; i < limit; i++) {
+				if (bytes[i] == '\n') {
+					readLine(bytes, start, i);
+					start = i + 1;
+				}
+			}
+			if (end && start < limit) {
+				readLine(bytes, start, limit);
+				start = limit;
+			}
+			if (start == 0 && limit == block.capacity()) {
+				// a single line fills the block, so make room for the rest of it
+				block = ByteBuffer.allocate(block.capacity() * 2).put(block.flip());
+			} else {
+				// keep the start of a line that was cut short
+				block.flip().position(start);
+				block.compact();
+			}
+		}
+		finishGame();
+		this.out.flush();
+	}
+
+	/**
+	 * Reads one line of the script, and does what it says
+	 *
+	 * @param bytes
+	 * @param start the first byte of the line
+	 * @param end   the byte after the line (its '\n')
+	 * @throws IOException
+	 */
+	private void readLine(byte[] bytes, int start, int end) throws IOException {
+		this.lineNumber++;
+		// leave out a '\r' at the end, and whitespace at the start
+		if (end > start && bytes[end - 1] == '\r') {
+			end--;
+		}
+		while (start < end && (bytes[start] == ' ' || bytes[start] == '\t')) {
+			start++;
+		}
+		if (start == end || bytes[start] == '#') {
+			return;
+		}
+		this.line.set(bytes, start, end);
+		if (bytes[start] == 'g') {
+			startGame();
+		} else if (this.ocean == null) {
+			error("shots before the first game");
+		} else if (this.parser.parse(this.line) < 0) {
+			error("invalid coordinates");
+		} else {
+			fire();
+		}
+	}
+
+	/**
+	 * Starts the game given by a "game SEED NUMBER" line (and summarizes the
+	 * last one)
+	 *
+	 * @throws IOException
+	 */
+	private void startGame() throws IOException {
+		Line line = this.line;
+		if (!line.startsWith(0, "game")) {
+			error("unknown command");
+			return;
+		}
+		// each number must follow some whitespace, and nothing may follow them
+		int seedStart = line.skipWhitespace(4);
+		int seedEnd = seedStart == 4 ? -1 : line.skipNumber(seedStart, true);
+		int gameStart = seedEnd < 0 ? -1 : line.skipWhitespace(seedEnd);
+		int gameEnd = gameStart <= seedEnd ? -1 : line.skipNumber(gameStart, false);
+		if (gameEnd < 0 || line.skipWhitespace(gameEnd) != line.length()) {
+			error("expected \"game SEED NUMBER\"");
+			return;
+		}
+		long seed = line.parseNumber(seedStart, seedEnd);
+		long game = line.parseNumber(gameStart, gameEnd);
+		finishGame();
+		if (this.random == null || this.random.getMasterSeed() != seed) {
+			this.random = new GameRandom(seed);
+		}
+		// the same fleet as Simulator places in this game
+		this.random.startGame(game);
+		this.ocean = new BitboardOcean(this.config);
+		this.ocean.placeAllShipsRandomly(this.random);
+		this.game = game;
+		this.repeats = 0;
+		this.ignored = 0;
+	}
+
+	/**
+	 * Fires every shot read by the parser
+	 */
+	private void fire() {
+		int volley = this.parser.getCount();
+		for (int i = 0; i < volley; i++) {
+			if (this.ocean.isGameOver()) {
+				this.ignored += volley - i;
+				return;
+			}
+			if (this.ocean.fire(this.parser.getRow(i), this.parser.getColumn(i)) == Ocean.REPEAT) {
+				this.repeats++;
+			}
+			this.shots++;
+		}
+	}
+
+	/**
+	 * Writes the summary of the game being played, if any
+	 *
+	 * @throws IOException
+	 */
+	private void finishGame() throws IOException {
+		if (this.ocean == null) {
+			return;
+		}
+		StringBuilder sb = this.summary;
+		sb.setLength(0);
+		sb.append(this.random.getMasterSeed()).append(',').append(this.game).append(',')
+				.append(this.ocean.getShotsFired()).append(',').append(this.ocean.getHitCount()).append(',')
+				.append(this.ocean.getShipsSunk()).append(',').append(this.repeats).append(',')
+				.append(this.ignored).append('\n');
+		this.out.append(sb);
+		this.ocean = null;
+		this.games++;
+	}
+
+	/**
+	 * Reports a line that cannot be read
+	 *
+	 * @param message
+	 */
+	private void error(String message) {
+		this.errors++;
+		if (this.errors <= MAX_REPORTED_ERRORS) {
+			System.err.printf("line %d: %s: %s%n", this.lineNumber, message, this.line);
+		} else if (this.errors == MAX_REPORTED_ERRORS + 1) {
+			System.err.println("(further bad lines are only counted)");
+		}
+	}
+
+	/**
+	 * Returns the number of games played
+	 *
+	 * @return
+	 */
+	public long getGames() {
+		return this.games;
+	}
+
+	/**
+	 * Returns the number of shots fired (not counting the ignored ones)
+	 *
+	 * @return
+	 */
+	public long getShots() {
+		return this.shots;
+	}
+
+	/**
+	 * Returns the number of lines that could not be read
+	 *
+	 * @return
+	 */
+	public long getErrors() {
+		return this.errors;
+	}
+
+	/**
+	 * A line of the script, read in place from the block of bytes it lies in
+	 * (one byte per character), so the parser can read it without a String
+	 */
+	private static class Line implements CharSequence {
+
+		// the block, and where the line lies in it
+		private byte[] bytes;
+		private int start;
+		private int end;
+
+		/**
+		 * Points the line at the given bytes
+		 *
+		 * @param bytes
+		 * @param start
+		 * @param end
+		 */
+		void set(byte[] bytes, int start, int end) {
+			this.bytes = bytes;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public int length() {
+			return this.end - this.start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (this.bytes[this.start + index] & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new String(this.bytes, this.start, length(), StandardCharsets.ISO_8859_1);
+		}
+
+		/**
+		 * Returns true if the given word is at the given position
+		 *
+		 * @param i
+		 * @param word
+		 * @return
+		 */
+		boolean startsWith(int i, String word) {
+			if (i + word.length() > length()) {
+				return false;
+			}
+			for (int k = 0; k < word.length(); k++) {
+				if (charAt(i + k) != word.charAt(k)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the position of the first character at or after the given one
+		 * that is not a space or a tab
+		 *
+		 * @param i
+		 * @return
+		 */
+		int skipWhitespace(int i) {
+			while (i < length() && (charAt(i) == ' ' || charAt(i) == '\t')) {
+				i++;
+			}
+			return i;
+		}
+
+		/**
+		 * Returns the position after the number at the given position, or -1 if
+		 * there is no number there (or it does not fit in a long)
+		 *
+		 * @param i
+		 * @param signed true if the number may start with a minus sign
+		 * @return
+		 */
+		int skipNumber(int i, boolean signed) {
+			boolean negative = signed && i < length() && charAt(i) == '-';
+			if (negative) {
+				i++;
+			}
+			// add up the digits below 0, as Long.parseLong() does, so that
+			// Long.MIN_VALUE fits, and stop at the first one that overflows
+			long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+			long n = 0;
+			int digits = i;
+			while (i < length() && charAt(i) >= '0' && charAt(i) <= '9') {
+				int digit = charAt(i) - '0';
+				if (n < limit / 10 || n * 10 < limit + digit) {
+					return -1;
+				}
+				n = n * 10 - digit;
+				i++;
+			}
+			return i == digits ? -1 : i;
+		}
+
+		/**
+		 * Returns the number between the given positions (see skipNumber())
+		 *
+		 * @param from
+		 * @param to
+		 * @return
+		 */
+		long parseNumber(int from, int to) {
+			boolean negative = charAt(from) == '-';
+			long n = 0;
+			for (int i = negative ? from + 1 : from; i < to; i++) {
+				n = n * 10 - (charAt(i) - '0');
+			}
+			return negative ? n : -n;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		// the script to play (default: standard input)
+		String script = args.length > 0 ? args[0] : "-";
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+		BatchGame batch = new BatchGame(GameConfig.standard(), out);
+		long start = System.nanoTime();
+		try (ReadableByteChannel in = script.equals("-") ? Channels.newChannel(System.in)
+				: FileChannel.open(Paths.get(script), StandardOpenOption.READ)) {
+			batch.run(in);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.err.printf("%d games, %d shots in %.2f s (%.1f million shots/s), %d bad lines%n", batch.getGames(),
+				batch.getShots(), seconds, batch.getShots() / seconds / 1e6, batch.getErrors());
+		if (batch.getErrors() > 0) {
+			System.exit(1);
+		}
+	}
+}
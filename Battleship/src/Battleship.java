@@ -11,7 +11,7 @@ public class Battleship extends Ship {
 	 */
 	public Battleship() {
 		// set the length to 4
-		this.length = 4;
+		super(4);
 	}
 
 	@Override
@@ -1,6 +1,6 @@
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A class for playing the game Battleship
@@ -12,15 +12,72 @@ public class BattleshipGame {
 
 	/* INSTANCE VARIABLES */
 
-	// the ocean that contains the fleet of ships
-	Ocean ocean;
+	// the number of players shown on the leaderboard
+	private static final int LEADERBOARD_SIZE = 5;
+
+	// the size of the ocean and the makeup of the fleet
+	final GameConfig config;
+	// the current game and the player's record
+	final GameSession session;
+	// the scores of every player, kept in a file (or null if the record only
+	// lasts as long as the program)
+	Leaderboard leaderboard;
+	// reads coordinates for getCoordsFromInput()
+	// (separate from the session's, so the last volley is left alone)
+	final CoordinateParser parser;
+	// the computer firing back at the player's fleet, or null if the player is
+	// playing alone
+	final ComputerPlayer computer;
 	// used for getting inputs from the player
 	Scanner scnr;
-	// the lowest number of shots of any game played
-	int lowestNumOfShots;
+	// draws the ocean display
+	OceanRenderer renderer;
 
 	/* METHODS */
 
+	/**
+	 * Constructor for a BattleshipGame (classic 10x10 game)
+	 */
+	public BattleshipGame() {
+		this(GameConfig.standard());
+	}
+
+	/**
+	 * Constructor for a BattleshipGame with the given size and fleet
+	 * 
+	 * @param config
+	 */
+	public BattleshipGame(GameConfig config) {
+		this(config, false);
+	}
+
+	/**
+	 * Constructor for a BattleshipGame with the given size and fleet, in which
+	 * the computer may fire back
+	 * 
+	 * @param config
+	 * @param versus true if the computer has a fleet of the player's to sink
+	 */
+	public BattleshipGame(GameConfig config, boolean versus) {
+		this.config = config;
+		this.session = new GameSession(config);
+		this.parser = new CoordinateParser(config.getRows(), config.getColumns());
+		this.computer = versus ? new ComputerPlayer(config, new ProbabilityShooter()) : null;
+	}
+
+	/**
+	 * Keeps the player's scores, under the given name, in the given leaderboard
+	 * (which is closed when the player quits)
+	 * 
+	 * @param leaderboard
+	 * @param player
+	 */
+	public void setLeaderboard(Leaderboard leaderboard, String player) {
+		this.leaderboard = leaderboard;
+		session.setLeaderboard(leaderboard);
+		session.setPlayer(player);
+	}
+
 	/**
 	 * Runs the BattleshipGame program
 	 */
@@ -31,10 +88,10 @@ public class BattleshipGame {
 		 * from being pushed to the stack if the player plays multiple times
 		 */
 		
-		// initialize lowest number of shots to 200 (arbitrarily high)
-		lowestNumOfShots = 200;
 		// initialize the Scanner to read inputs entered in the console
 		scnr = new Scanner(System.in);
+		// initialize the renderer for the console
+		renderer = OceanRenderer.forConsole();
 		// will hold inputs from the player
 		String input;
 		// play the first game of Battleship
@@ -54,8 +111,17 @@ public class BattleshipGame {
 			}
 			// if the player enters "N" or "n"...
 			else if (input.matches("[Nn]")) {
-				// ...wish the player goodbye
+				// ...give the whole terminal back (if the renderer kept the
+				// grid in place)
+				renderer.restore();
+				// wish the player goodbye
 				System.out.println("Thank you for playing. Goodbye!");
+				// (stopping the computer, if there is one)
+				if (computer != null) {
+					computer.shutdown();
+				}
+				// (and writing out the leaderboard, if there is one)
+				closeLeaderboard();
 				// and break the loop, ending the program
 				break;
 			}
@@ -71,116 +137,123 @@ public class BattleshipGame {
 	 * Play a single game of Battleship
 	 */
 	private void playOneGame() {
-		// will indicate if the previous shot hit a ship
-		// initialize to false, since no shots have been fired
-		boolean hit = false;
-		// will store the row and column of the previous shot
-		int[] coords = new int[2];
-		// create a new instance of Ocean (initializing the game variables)
-		ocean = new Ocean();
-		// randomly place the ships
-		ocean.placeAllShipsRandomly();
+		// create a new instance of Ocean with the ships placed randomly
+		// (initializing the game variables)
+		session.newGame();
+		// if the computer is playing, give it a fleet of the player's to sink
+		// (it starts working out its first shot right away)
+		if (computer != null) {
+			computer.newGame();
+		}
+		// redraw the whole display for the new game
+		renderer.reset();
 		// repeat this loop until the game is over
-		while (!ocean.isGameOver()) {
-			// print the ocean display (updated before each shot)
+		while (!session.isGameOver() && !computerHasWon()) {
+			// print the ocean display (updated before each volley)
 			printOcean();
 			// if the game has just started...
-			if (ocean.getShotsFired() == 0) {
+			if (session.getOcean().getShotsFired() == 0) {
 				// print this message
 				System.out.println("You must eliminate the enemy fleet!");
 			}
 			// for every subsequent turn...
 			else {
-				// ...print the results of the previous shot
-				printShotResults(coords[0], coords[1], hit);
+				// ...print the results of the previous volley
+				printShotResults();
+				// (and the computer's reply, if it is playing)
+				printComputerShotResults();
 			}
 			// print the number of sunken ships and remaining ships
 			printFleetStatus();
 			// ask the player where they want to fire
-			// and get the row and column (as an array)
-			coords = askWhereToFire();
-			// fire at the location given by the player
-			// and get the result
-			hit = playerShoot(coords[0], coords[1]);
+			// and fire at each location they gave, in order
+			askWhereToFire();
+			// if the computer is playing and the player has not won yet...
+			if (computer != null && !session.isGameOver()) {
+				// ...it fires back with as many shots as the player fired
+				computer.fire(session.getVolleySize());
+			}
+		}
+		// if the player won, the computer's next shot is not needed
+		if (computer != null) {
+			computer.cancel();
 		}
 		// after the game is over
 		// print the ocean one more time
 		printOcean();
 		// print the shot results one more time
-		printShotResults(coords[0], coords[1], hit);
-		// print the game over message
-		printGameOver();
+		printShotResults();
+		// if the computer sank the player's fleet first...
+		if (computerHasWon()) {
+			// ...print its last volley and tell the player they lost
+			printComputerShotResults();
+			printComputerWon();
+		}
+		// otherwise print the game over message
+		else {
+			printGameOver();
+		}
 	}
 
 	/**
-	 * Asks where the player wants to fire next
+	 * Writes out the leaderboard and closes it, if there is one
+	 */
+	private void closeLeaderboard() {
+		if (leaderboard == null) {
+			return;
+		}
+		try {
+			leaderboard.close();
+		} catch (IOException e) {
+			System.out.println("Could not save the leaderboard: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns true if the computer is playing and has sunk the player's fleet
+	 * 
 	 * @return
 	 */
-	private int[] askWhereToFire() {
-		String input;
-		int[] coords;
+	private boolean computerHasWon() {
+		return computer != null && computer.isGameOver();
+	}
+
+	/**
+	 * Asks where the player wants to fire next, and fires there
+	 * 
+	 * The player may enter several locations at once, e.g. "1,2 3,4 (5,6)"; they
+	 * are fired at in the order they were entered
+	 */
+	private void askWhereToFire() {
 		System.out.printf("Where will you fire next ([ROW],[COLUMN])?: ");
 		while (true) {
-			// get input from the player
-			input = scnr.nextLine();
-			try {
-				// attempt to extract coordinates from the player's input
-				coords = getCoordsFromInput(input);
-				// break from the loop if successful
-				break;
-			} catch (InvalidInputException e) {
-				// notify the player if an invalid input was given
-				System.out.printf("Invalid coordinates. Please try again: ");
-				// return to the start of the loop
+			// get input from the player and fire at the locations in it
+			// break from the loop if every location is inside the ocean
+			if (session.fire(scnr.nextLine()) >= 0) {
+				return;
 			}
+			// otherwise notify the player, and return to the start of the loop
+			System.out.printf("Invalid coordinates. Please try again: ");
 		}
-		// return the coordinates extracted from the player's input
-		return coords;
 	}
 	
 	/**
 	 * Returns the row and column captured from the player's input
+	 * 
+	 * Accepts a single location, with or without parentheses, and with a comma
+	 * AND/OR whitespace between the row and the column (see CoordinateParser)
+	 * 
 	 * @param input
 	 * @return [row, column]
 	 * @throws InvalidInputException
 	 */
 	public int[] getCoordsFromInput(String input) throws InvalidInputException {
-		int[] coords = new int[2];
-		// regex for validating input from the player:
-		// 1) "\\(?" - 1 optional left parenthesis
-		// 2) "[0-9]{1}" - exactly 1 digit (row)
-		// 3) ",?\s?" - 1 optional comma, 1 optional space
-		// 4) "[0-9]{1}" - exactly 1 digit (column)
-		// 5) "\\)?" - 1 optional right parenthesis
-		// this allows for flexibility when entering coordinates:
-		// - with or without parentheses
-		// - with or without a comma AND/OR whitespace in between
-		String inputRegex = "\\(?[0-9]{1},?\s?[0-9]{1}\\)?";
-		// regex used by the Matcher to extract coordinates from a valid input:
-		// 1) "[^[0-9]]*" - ignore any non-digit characters before Capture Group 1
-		// 2) "([0-9])" - Capture Group 1: single digit (row)
-		// 3) "[^[0-9]]*" - ignore any non-digit characters between the Capture Groups
-		// 4) "([0-9])" = Capture Group 2: single digit (column)
-		// 5) "[^[0-9]]*" - ignore any non-digit character after Capture Group 2
-		Pattern pattern = Pattern.compile("[^[0-9]]*([0-9])[^[0-9]]*([0-9])[^[0-9]]*");
-		// if the player gave a valid input...
-        // (see description of inputRegex above)
-		if (input.matches(inputRegex)) {
-			// create a Matcher for extracting the row and column from the input string
-			Matcher matcher = pattern.matcher(input);
-			// find the Capture Groups
-			matcher.find();
-			// get Capture Group 1 (row)
-			coords[0] = Integer.parseInt(matcher.group(1));
-			// get Capture Group 2 (column)
-			coords[1] = Integer.parseInt(matcher.group(2));
-		} 
-		// if the player gave an invalid input...
-		else {
+		// if the player gave an invalid input (or more than one location)...
+		if (parser.parse(input) != 1) {
 			// throw an exception
 			throw new InvalidInputException("The player entered invalid coordinates");
 		}
-		return coords;
+		return new int[] { parser.getRow(0), parser.getColumn(0) };
 	}
 	
 	
@@ -188,40 +261,48 @@ public class BattleshipGame {
 	 * Prints the Ocean display
 	 */
 	private void printOcean() {
-		// "clear" the console with newline characters
-		for (int i = 0; i < 50; i++) {
-			System.out.printf("\n");
+		// draw the ocean (the renderer takes care of "clearing" the console
+		// and only redraws what has changed when the terminal allows it)
+		renderer.render(session.getOcean());
+	}
+
+	/**
+	 * Prints the results of the previous volley
+	 */
+	private void printShotResults() {
+		for (int i = 0; i < session.getVolleySize(); i++) {
+			printShotResults(session.getShotRow(i), session.getShotColumn(i), session.getShotResult(i),
+					session.getSunkShip(i));
 		}
-		// print the ocean
-		ocean.print();
 	}
 
 	/**
-	 * Prints the results of the previous shot
+	 * Prints the results of a single shot
 	 * 
 	 * @param row
 	 * @param column
-	 * @param hit
+	 * @param result GameSession.MISS, HIT, SUNK or REPEAT
+	 * @param sunk   the ship the shot sank, or null
 	 */
-	private void printShotResults(int row, int column, boolean hit) {
+	private void printShotResults(int row, int column, int result, Ship sunk) {
 		// echo back where the player just shot at (for clarity)
 		System.out.printf("You fired at (%d, %d). ", row, column);
-		// if the previous shot hit a ship...
-		if (hit) {
-			// ...get the ship at was hit
-			Ship ship = this.ocean.getShipArray()[row][column];
-			// if that ship was just sunk...
-			if (ship.isSunk()) {
-				// ...tell the player the type of ship they sunk
-				System.out.printf(" You sank %s!\n", ship.getShipType());
-			}
-			// if the ship is still afloat...
-			else {
-				// ...tell the player they hit a ship
-				System.out.println("That's a hit!");
-			}
+		// if the location had already been fired upon...
+		if (result == GameSession.REPEAT) {
+			// ...remind the player (the shot still counts)
+			System.out.println("You had already fired there!");
 		}
-		// if the previous shot missed...
+		// if the shot sank a ship...
+		else if (result == GameSession.SUNK) {
+			// ...tell the player the type of ship they sunk
+			System.out.printf(" You sank %s!\n", sunk.getShipType());
+		}
+		// if the shot hit a ship that is still afloat...
+		else if (result == GameSession.HIT) {
+			// ...tell the player they hit a ship
+			System.out.println("That's a hit!");
+		}
+		// if the shot missed...
 		else {
 			// ... tell the player
 			System.out.println("That's a miss!");
@@ -229,16 +310,25 @@ public class BattleshipGame {
 	}
 
 	/**
-	 * Shoots at a given location and confirms whether the shot hit a ship
-	 * 
-	 * @param row
-	 * @param column
-	 * @return true if the shot hit a ship, false if it missed
+	 * Prints the results of the computer's last volley (if it is playing)
 	 */
-	private boolean playerShoot(int row, int column) {
-		// shoot at the given location
-		// and return the result
-		return ocean.shootAt(row, column);
+	private void printComputerShotResults() {
+		if (computer == null) {
+			return;
+		}
+		for (int i = 0; i < computer.getVolleySize(); i++) {
+			int row = computer.getShotRow(i);
+			int column = computer.getShotColumn(i);
+			int result = computer.getShotResult(i);
+			System.out.printf("The computer fired at (%d, %d). ", row, column);
+			if (result == Ocean.SUNK) {
+				System.out.printf("It sank %s in your fleet!\n", computer.getSunkShip(i).getShipType());
+			} else if (result == Ocean.HIT) {
+				System.out.println("It hit one of your ships!");
+			} else {
+				System.out.println("It missed!");
+			}
+		}
 	}
 
 	/**
@@ -246,9 +336,23 @@ public class BattleshipGame {
 	 */
 	private void printFleetStatus() {
 		// print the number of remaining ships
-		System.out.printf("Ships remaining: %d\n", this.ocean.getShipsRemaining());
+		System.out.printf("Ships remaining: %d\n", this.session.getOcean().getShipsRemaining());
 		// print the number of sunken ships
-		System.out.printf("Ships sunk: %d\n", this.ocean.getShipsSunk());
+		System.out.printf("Ships sunk: %d\n", this.session.getOcean().getShipsSunk());
+		// if the computer is playing, print how the player's fleet is doing
+		if (this.computer != null) {
+			System.out.printf("Your ships remaining: %d\n", this.computer.getOcean().getShipsRemaining());
+		}
+	}
+
+	/**
+	 * Prints the results of the game after the computer has sunk the player's
+	 * fleet
+	 */
+	private void printComputerWon() {
+		System.out.printf("\n* The computer has sunk your fleet. Game over! *\n\n");
+		System.out.printf("The computer needed %d shots; you fired %d.\n", computer.getOcean().getShotsFired(),
+				session.getOcean().getShotsFired());
 	}
 
 	/**
@@ -258,25 +362,56 @@ public class BattleshipGame {
 		// notify the player that the game is over
 		System.out.printf("\n* You have eliminated the enemy fleet. Game over! *\n\n");
 		// get the number of shots fired (this game)
-		int shotsFired = ocean.getShotsFired();
+		int shotsFired = session.getOcean().getShotsFired();
 		System.out.printf("Number of shots fired: %d ", shotsFired);
-		// if the player broke the record for lowest number of shots...
-		if (shotsFired < this.lowestNumOfShots) {
-			// ...notify the player...
+		// if the player broke the record for lowest number of shots
+		// (the session has already updated the record)...
+		if (session.isNewRecord()) {
+			// ...notify the player
 			System.out.printf("(NEW RECORD)\n");
-			// ... and update the record
-			this.lowestNumOfShots = shotsFired;
 		}
 		// if the player did not break the record...
 		else {
 			// ...display the current record
-			System.out.printf("(current record: %d)\n", this.lowestNumOfShots);
+			System.out.printf("(current record: %d)\n", session.getLowestNumOfShots());
+		}
+		// if the scores are kept in a file, show the best players
+		if (leaderboard != null) {
+			printLeaderboard();
+		}
+	}
+
+	/**
+	 * Prints the best players on the leaderboard
+	 */
+	private void printLeaderboard() {
+		System.out.printf("\nLeaderboard:\n");
+		int rank = 1;
+		for (Leaderboard.Score score : leaderboard.getTop(LEADERBOARD_SIZE)) {
+			System.out.printf("%2d. %s\n", rank++, score);
 		}
 	}
 
 	public static void main(String[] args) {
+		// make the engine metrics available over JMX
+		EngineMetrics.publish();
+		// usage: java BattleshipGame [versus] [LEADERBOARD]
+		// "versus" to have the computer fire back (default: play alone)
+		boolean versus = args.length > 0 && args[0].equals("versus");
 		// create an instance of BattleshipGame
-		BattleshipGame bsg = new BattleshipGame();
+		BattleshipGame bsg = new BattleshipGame(GameConfig.standard(), versus);
+		// a file to keep everyone's scores in, after "versus" if it is given
+		// (default: none, so the record only lasts until the program ends); the
+		// player's scores are kept under their user name
+		int leaderboardArg = versus ? 1 : 0;
+		if (args.length > leaderboardArg) {
+			try {
+				bsg.setLeaderboard(new Leaderboard(Paths.get(args[leaderboardArg])), System.getProperty("user.name"));
+			} catch (IOException e) {
+				System.out.println("Could not open the leaderboard: " + e.getMessage());
+				return;
+			}
+		}
 		// run Battleship (play first game, then ask player if they want to play again)
 		bsg.run();
 	}
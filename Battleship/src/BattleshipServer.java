@@ -0,0 +1,763 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many independent games of Battleship at once, one GameSession per
+ * connection, over a simple line protocol on a local TCP socket
+ *
+ * Every line sent by a client gets a reply of one or more lines:
+ *
+ * - on connecting, and after "NEW": "BATTLESHIP [ROWS] [COLUMNS] [SHIPS]"
+ * - one or more locations (as typed in BattleshipGame, e.g. "1,2 3,4"): one
+ *   line per shot, "MISS [ROW] [COLUMN]", "HIT [ROW] [COLUMN]",
+ *   "SUNK [ROW] [COLUMN] [TYPE]" or "REPEAT [ROW] [COLUMN]" (if the location
+ *   had already been fired upon), then "OK [SHOTS FIRED] [SHIPS REMAINING]",
+ *   or "OVER [SHOTS FIRED]" (followed by " RECORD" if the player's record was
+ *   broken) once the fleet is gone
+ * - "BOARD": one line of symbols per row, then "OK ..." as above
+ * - "NAME [PLAYER]": "NAME [PLAYER]"; the scores of the games finished from now
+ *   on are kept under that name (1 to 32 printable ASCII characters, without
+ *   spaces; "player" until one is given)
+ * - "TOP": one line "RANK [N] [PLAYER] [SHOTS]" for each of the best players on
+ *   the leaderboard (shared by every session), then "END"
+ * - "STATS": "STATS [SESSIONS] [HEAP BYTES USED]", measured after a garbage
+ *   collection (for the load generator); it stalls every session of the
+ *   thread that serves it, so it is refused ("ERROR STATS disabled") unless
+ *   enabled with setStatsEnabled() (or -Dbattleship.stats=true)
+ * - "QUIT": "BYE", then the connection is closed
+ * - anything else: "ERROR [REASON]"
+ *
+ * The connections are spread over a few selector threads (one per core by
+ * default), so an idle session costs no thread at all: just its GameSession
+ * and its socket. Buffers for reading and writing belong to the threads;
+ * a session only holds on to bytes of its own while a line arrives in pieces
+ * or while the client is slow to read its replies.
+ *
+ */
+public class BattleshipServer {
+
+	/* INSTANCE VARIABLES */
+
+	// the longest line a client may send
+	private static final int MAX_LINE = 4096;
+	// the start of the line for each result of a shot
+	private static final String[] RESULTS = { "MISS ", "HIT ", "SUNK ", "REPEAT " };
+	// how often the journal is written out
+	private static final long JOURNAL_FLUSH_MILLIS = 1000;
+	// the longest name a player may give
+	private static final int MAX_PLAYER_NAME = 32;
+	// the number of players "TOP" lists
+	private static final int TOP_PLAYERS = 10;
+
+	// the size of the ocean and the makeup of the fleet for every session
+	private final GameConfig config;
+	// the socket that clients connect to
+	private final ServerSocketChannel serverChannel;
+	// what serves the connections
+	private final Worker[] workers;
+	// the threads running the workers
+	private final Thread[] workerThreads;
+	// the thread that accepts new connections
+	private final Thread acceptor;
+	// the number of open sessions
+	private final AtomicInteger sessions = new AtomicInteger();
+	// records the games of every session, or null
+	private volatile ShotJournal journal;
+	// the scores of every session's player
+	private volatile Leaderboard leaderboard = new Leaderboard();
+	// false once the server has been shut down
+	private volatile boolean running = true;
+	// true if "STATS" is answered
+	private volatile boolean statsEnabled;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a BattleshipServer that listens on the loopback address
+	 *
+	 * @param config
+	 * @param port    the port to listen on (0 for any free port)
+	 * @param threads the number of threads serving connections
+	 * @throws IOException
+	 */
+	public BattleshipServer(GameConfig config, int port, int threads) throws IOException {
+		this.config = config;
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+		this.workers = new Worker[threads];
+		this.workerThreads = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			this.workers[i] = new Worker();
+			this.workerThreads[i] = new Thread(this.workers[i], "battleship-worker-" + i);
+		}
+		this.acceptor = new Thread(this::accept, "battleship-acceptor");
+	}
+
+	/**
+	 * Records the games of every session started from now on in the given
+	 * journal (which the server flushes about once a second, and closes when it
+	 * shuts down)
+	 *
+	 * @param journal
+	 */
+	public void setJournal(ShotJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Keeps the scores of every session started from now on in the given
+	 * leaderboard (instead of one in memory), which the server closes when it
+	 * shuts down
+	 *
+	 * @param leaderboard
+	 */
+	public void setLeaderboard(Leaderboard leaderboard) {
+		this.leaderboard = leaderboard;
+	}
+
+	/**
+	 * Answers "STATS" from now on, if true (it forces a garbage collection on
+	 * the thread serving the session, so only turn it on for measurements)
+	 *
+	 * @param statsEnabled
+	 */
+	public void setStatsEnabled(boolean statsEnabled) {
+		this.statsEnabled = statsEnabled;
+	}
+
+	/**
+	 * Starts accepting and serving connections
+	 */
+	public void start() {
+		for (Thread thread : this.workerThreads) {
+			thread.setDaemon(true);
+			thread.start();
+		}
+		this.acceptor.setDaemon(true);
+		this.acceptor.start();
+	}
+
+	/**
+	 * Closes the server socket and every connection, and waits for the workers
+	 * to stop before closing the journal and the leaderboard (so no session
+	 * writes to them after they are closed)
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 *                              (the journal and the leaderboard are then
+	 *                              left open)
+	 */
+	public void shutdown() throws InterruptedException {
+		this.running = false;
+		try {
+			this.serverChannel.close();
+		} catch (IOException e) {
+			// nothing left to do
+		}
+		for (Worker worker : this.workers) {
+			worker.selector.wakeup();
+		}
+		for (Thread thread : this.workerThreads) {
+			// (a worker that was never started has nothing to wait for)
+			if (thread.isAlive()) {
+				thread.join();
+			}
+		}
+		if (this.journal != null) {
+			try {
+				this.journal.close();
+			} catch (IOException e) {
+				// nothing left to do
+			}
+		}
+		try {
+			this.leaderboard.close();
+		} catch (IOException e) {
+			// nothing left to do
+		}
+	}
+
+	/**
+	 * Returns the port the server listens on
+	 *
+	 * @return
+	 */
+	public int getPort() {
+		return this.serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * Returns the number of open sessions
+	 *
+	 * @return
+	 */
+	public int getSessions() {
+		return this.sessions.get();
+	}
+
+	/**
+	 * Accepts connections until the server is shut down, handing them to the
+	 * workers in turn
+	 */
+	private void accept() {
+		int next = 0;
+		while (this.running) {
+			try {
+				SocketChannel channel = this.serverChannel.accept();
+				channel.configureBlocking(false);
+				// replies are small and a client waits for each one
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				this.workers[next].add(channel);
+				next = (next + 1) % this.workers.length;
+			} catch (IOException e) {
+				// the server socket was closed (or a client gave up while
+				// connecting)
+				if (!this.serverChannel.isOpen())
+					return;
+			}
+		}
+	}
+
+	/**
+	 * A thread that serves its share of the connections with a Selector
+	 */
+	private class Worker implements Runnable {
+
+		// waits for any connection of this worker to be ready
+		private final Selector selector;
+		// connections accepted but not yet registered with the selector
+		private final Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+		// bytes read from a connection
+		private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+		// bytes to be written to a connection
+		private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+		// the line being read
+		private final AsciiLine line = new AsciiLine(MAX_LINE);
+		// the reply being built
+		private final StringBuilder reply = new StringBuilder(1024);
+		// used by "STATS"
+		private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		// when this worker last flushed the journal
+		private long lastFlush = System.nanoTime();
+
+		Worker() throws IOException {
+			this.selector = Selector.open();
+		}
+
+		/**
+		 * Hands a new connection to this worker
+		 *
+		 * @param channel
+		 */
+		void add(SocketChannel channel) {
+			this.newChannels.add(channel);
+			this.selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (running) {
+					this.selector.select(JOURNAL_FLUSH_MILLIS);
+					register();
+					Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						try {
+							if (key.isValid() && key.isReadable()) {
+								read(key);
+							}
+							if (key.isValid() && key.isWritable()) {
+								flush(key);
+							}
+						} catch (IOException e) {
+							// the client went away
+							drop(key);
+						} catch (RuntimeException e) {
+							// only this session is lost (e.g. its game could
+							// not be journaled)
+							System.err.println("Closing a session: " + e);
+							drop(key);
+						}
+					}
+					flushJournal();
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("The selector failed", e);
+			} finally {
+				for (SelectionKey key : this.selector.keys()) {
+					close(key);
+				}
+				try {
+					this.selector.close();
+				} catch (IOException e) {
+					// nothing left to do
+				}
+			}
+		}
+
+		/**
+		 * Writes the journal out if it has not been written for a while; if that
+		 * fails, the sessions started from then on are not journaled
+		 */
+		private void flushJournal() {
+			ShotJournal journal = BattleshipServer.this.journal;
+			if (journal != null && System.nanoTime() - this.lastFlush > JOURNAL_FLUSH_MILLIS * 1_000_000L) {
+				try {
+					journal.flush();
+				} catch (IOException e) {
+					// the sessions already journaling are closed as soon as
+					// they fail to record a shot
+					System.err.println("Could not write the journal, no longer journaling: " + e.getMessage());
+					BattleshipServer.this.journal = null;
+				}
+				this.lastFlush = System.nanoTime();
+			}
+		}
+
+		/**
+		 * Registers the new connections, starts a game for each and greets it
+		 *
+		 * @throws IOException
+		 */
+		private void register() throws IOException {
+			SocketChannel channel;
+			while ((channel = this.newChannels.poll()) != null) {
+				Connection connection = new Connection(new GameSession(config));
+				connection.session.setJournal(journal);
+				connection.session.setLeaderboard(leaderboard);
+				SelectionKey key;
+				try {
+					key = channel.register(this.selector, SelectionKey.OP_READ, connection);
+				} catch (ClosedChannelException e) {
+					continue;
+				}
+				sessions.incrementAndGet();
+				try {
+					connection.session.newGame();
+					appendGreeting();
+					send(key, connection);
+				} catch (IOException e) {
+					drop(key);
+				} catch (RuntimeException e) {
+					System.err.println("Closing a session: " + e);
+					drop(key);
+				}
+			}
+		}
+
+		/**
+		 * Reads what a client has sent and replies to every complete line
+		 *
+		 * @param key
+		 * @throws IOException
+		 */
+		private void read(SelectionKey key) throws IOException {
+			SocketChannel channel = (SocketChannel) key.channel();
+			Connection connection = (Connection) key.attachment();
+			this.in.clear();
+			if (channel.read(this.in) < 0) {
+				close(key);
+				return;
+			}
+			this.in.flip();
+			// pick up the start of a line left over from the last read
+			this.line.length = 0;
+			if (connection.partial != null) {
+				this.line.append(connection.partial, connection.partial.length);
+				connection.partial = null;
+			}
+			while (this.in.hasRemaining() && !connection.closing) {
+				byte b = this.in.get();
+				if (b == '\n') {
+					handle(connection);
+					this.line.length = 0;
+				} else if (!this.line.append(b)) {
+					this.reply.append("ERROR line too long\n");
+					connection.closing = true;
+				}
+			}
+			// keep the start of a line that has not fully arrived
+			if (this.line.length > 0 && !connection.closing) {
+				connection.partial = Arrays.copyOf(this.line.bytes, this.line.length);
+			}
+			// reply to all the lines read at once
+			send(key, connection);
+		}
+
+		/**
+		 * Replies to the line that was just read
+		 *
+		 * @param connection
+		 */
+		private void handle(Connection connection) {
+			GameSession session = connection.session;
+			// ignore the carriage return of clients that send one
+			if (this.line.length > 0 && this.line.bytes[this.line.length - 1] == '\r') {
+				this.line.length--;
+			}
+			if (this.line.is("NEW")) {
+				session.newGame();
+				appendGreeting();
+			} else if (this.line.is("BOARD")) {
+				Ocean ocean = session.getOcean();
+				for (int i = 0; i < ocean.getRows(); i++) {
+					for (int j = 0; j < ocean.getColumns(); j++) {
+						this.reply.append(ocean.getSymbol(i, j));
+					}
+					this.reply.append('\n');
+				}
+				appendStatus(session);
+			} else if (this.line.argument("NAME") >= 0) {
+				String player = readPlayerName(this.line.argument("NAME"));
+				if (player == null) {
+					this.reply.append("ERROR invalid name\n");
+				} else {
+					session.setPlayer(player);
+					this.reply.append("NAME ").append(player).append('\n');
+				}
+			} else if (this.line.is("TOP")) {
+				int rank = 1;
+				for (Leaderboard.Score score : leaderboard.getTop(TOP_PLAYERS)) {
+					this.reply.append("RANK ").append(rank++).append(' ').append(score.getPlayer()).append(' ')
+							.append(score.getShots()).append('\n');
+				}
+				this.reply.append("END\n");
+			} else if (this.line.is("STATS") && !statsEnabled) {
+				this.reply.append("ERROR STATS disabled\n");
+			} else if (this.line.is("STATS")) {
+				this.memory.gc();
+				this.reply.append("STATS ").append(sessions.get()).append(' ')
+						.append(this.memory.getHeapMemoryUsage().getUsed()).append('\n');
+			} else if (this.line.is("QUIT")) {
+				this.reply.append("BYE\n");
+				connection.closing = true;
+			} else if (session.isGameOver()) {
+				this.reply.append("ERROR game over\n");
+			} else if (session.fire(this.line) < 0) {
+				this.reply.append("ERROR invalid coordinates\n");
+			} else {
+				// one line for every shot of the volley
+				for (int i = 0; i < session.getVolleySize(); i++) {
+					int row = session.getShotRow(i);
+					int column = session.getShotColumn(i);
+					int result = session.getShotResult(i);
+					this.reply.append(RESULTS[result]).append(row).append(' ').append(column);
+					if (result == GameSession.SUNK) {
+						this.reply.append(' ').append(session.getSunkShip(i).getShipType());
+					}
+					this.reply.append('\n');
+				}
+				appendStatus(session);
+			}
+		}
+
+		/**
+		 * Returns the name given in the line from the given position, or null if
+		 * it is not a valid name
+		 *
+		 * @param start
+		 * @return
+		 */
+		private String readPlayerName(int start) {
+			int end = this.line.length;
+			while (end > start && this.line.bytes[end - 1] == ' ') {
+				end--;
+			}
+			if (end == start || end - start > MAX_PLAYER_NAME) {
+				return null;
+			}
+			for (int i = start; i < end; i++) {
+				// printable ASCII, so every reply stays ASCII
+				if (this.line.bytes[i] <= ' ' || this.line.bytes[i] > '~') {
+					return null;
+				}
+			}
+			return new String(this.line.bytes, start, end - start, StandardCharsets.US_ASCII);
+		}
+
+		/**
+		 * Adds the line that starts a game to the reply
+		 */
+		private void appendGreeting() {
+			this.reply.append("BATTLESHIP ").append(config.getRows()).append(' ').append(config.getColumns())
+					.append(' ').append(config.getFleetSize()).append('\n');
+		}
+
+		/**
+		 * Adds the state of the game ("OK ..." or "OVER ...") to the reply
+		 *
+		 * @param session
+		 */
+		private void appendStatus(GameSession session) {
+			Ocean ocean = session.getOcean();
+			if (session.isGameOver()) {
+				this.reply.append("OVER ").append(ocean.getShotsFired());
+				if (session.isNewRecord()) {
+					this.reply.append(" RECORD");
+				}
+			} else {
+				this.reply.append("OK ").append(ocean.getShotsFired()).append(' ').append(ocean.getShipsRemaining());
+			}
+			this.reply.append('\n');
+		}
+
+		/**
+		 * Writes the reply to a connection; whatever the socket won't take right
+		 * away is kept by the connection until it can be written
+		 *
+		 * @param key
+		 * @param connection
+		 * @throws IOException
+		 */
+		private void send(SelectionKey key, Connection connection) throws IOException {
+			SocketChannel channel = (SocketChannel) key.channel();
+			int length = this.reply.length();
+			int i = 0;
+			while (i < length) {
+				// the reply is ASCII, so each character is one byte
+				this.out.clear();
+				while (i < length && this.out.hasRemaining()) {
+					this.out.put((byte) this.reply.charAt(i++));
+				}
+				this.out.flip();
+				channel.write(this.out);
+				if (this.out.hasRemaining()) {
+					// the client is not keeping up: stop reading from it until
+					// the rest of the reply has been written
+					ByteBuffer pending = ByteBuffer.allocate(this.out.remaining() + length - i);
+					pending.put(this.out);
+					while (i < length) {
+						pending.put((byte) this.reply.charAt(i++));
+					}
+					pending.flip();
+					connection.pending = pending;
+					key.interestOps(SelectionKey.OP_WRITE);
+				}
+			}
+			this.reply.setLength(0);
+			if (connection.closing && connection.pending == null) {
+				close(key);
+			}
+		}
+
+		/**
+		 * Writes more of the reply a slow client has not read yet
+		 *
+		 * @param key
+		 * @throws IOException
+		 */
+		private void flush(SelectionKey key) throws IOException {
+			Connection connection = (Connection) key.attachment();
+			((SocketChannel) key.channel()).write(connection.pending);
+			if (!connection.pending.hasRemaining()) {
+				connection.pending = null;
+				if (connection.closing) {
+					close(key);
+				} else {
+					key.interestOps(SelectionKey.OP_READ);
+				}
+			}
+		}
+
+		/**
+		 * Closes a connection that failed, along with whatever reply was being
+		 * built for it
+		 *
+		 * @param key
+		 */
+		private void drop(SelectionKey key) {
+			this.reply.setLength(0);
+			close(key);
+		}
+
+		/**
+		 * Closes a connection and ends its session
+		 *
+		 * @param key
+		 */
+		private void close(SelectionKey key) {
+			if (key.attachment() == null)
+				return;
+			key.attach(null);
+			key.cancel();
+			sessions.decrementAndGet();
+			try {
+				key.channel().close();
+			} catch (IOException e) {
+				// nothing left to do
+			}
+		}
+	}
+
+	/**
+	 * The state of one connection
+	 */
+	private static class Connection {
+
+		// the game played over this connection
+		final GameSession session;
+		// the start of a line that has not fully arrived, or null
+		byte[] partial;
+		// the part of a reply that has not been written yet, or null
+		ByteBuffer pending;
+		// true once the connection should be closed (after the reply is written)
+		boolean closing;
+
+		Connection(GameSession session) {
+			this.session = session;
+		}
+	}
+
+	/**
+	 * A line of ASCII text read from a client, which the parser can read
+	 * without turning it into a String
+	 */
+	private static class AsciiLine implements CharSequence {
+
+		final byte[] bytes;
+		int length;
+
+		AsciiLine(int capacity) {
+			this.bytes = new byte[capacity];
+		}
+
+		/**
+		 * Adds a byte to the line
+		 *
+		 * @param b
+		 * @return false if the line is full
+		 */
+		boolean append(byte b) {
+			if (this.length == this.bytes.length)
+				return false;
+			this.bytes[this.length++] = b;
+			return true;
+		}
+
+		/**
+		 * Adds the first n bytes of the given array to the line
+		 *
+		 * @param b
+		 * @param n
+		 */
+		void append(byte[] b, int n) {
+			System.arraycopy(b, 0, this.bytes, this.length, n);
+			this.length += n;
+		}
+
+		/**
+		 * Returns true if the line is the given command (ignoring case and any
+		 * surrounding spaces)
+		 *
+		 * @param command
+		 * @return
+		 */
+		boolean is(String command) {
+			int start = 0;
+			int end = this.length;
+			while (start < end && this.bytes[start] == ' ') {
+				start++;
+			}
+			while (end > start && this.bytes[end - 1] == ' ') {
+				end--;
+			}
+			if (end - start != command.length())
+				return false;
+			for (int i = 0; i < command.length(); i++) {
+				// commands are upper case letters
+				if ((this.bytes[start + i] & ~0x20) != command.charAt(i))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the position of the argument if the line is the given command
+		 * (ignoring case and any leading spaces) followed by a space and an
+		 * argument, or -1 if it is not
+		 *
+		 * @param command
+		 * @return
+		 */
+		int argument(String command) {
+			int start = 0;
+			while (start < this.length && this.bytes[start] == ' ') {
+				start++;
+			}
+			if (this.length - start <= command.length() || this.bytes[start + command.length()] != ' ')
+				return -1;
+			for (int i = 0; i < command.length(); i++) {
+				if ((this.bytes[start + i] & ~0x20) != command.charAt(i))
+					return -1;
+			}
+			int i = start + command.length();
+			while (i < this.length && this.bytes[i] == ' ') {
+				i++;
+			}
+			return i;
+		}
+
+		@Override
+		public int length() {
+			return this.length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) (this.bytes[index] & 0xFF);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new String(this.bytes, 0, this.length, StandardCharsets.US_ASCII);
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		// make the engine metrics available over JMX (and in a file, if asked)
+		EngineMetrics.publish();
+		// the port to listen on (default: 7777)
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+		// the number of threads serving connections (default: all available cores)
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		BattleshipServer server = new BattleshipServer(GameConfig.standard(), port, threads);
+		// answer "STATS", for LoadGenerator (default: no)
+		server.setStatsEnabled(Boolean.getBoolean("battleship.stats"));
+		// the journal to record every game in (default: none)
+		if (args.length > 2) {
+			server.setJournal(new ShotJournal(Paths.get(args[2]), GameConfig.standard()));
+		}
+		// the file to keep every player's scores in (default: none, so they only
+		// last as long as the server)
+		if (args.length > 3) {
+			server.setLeaderboard(new Leaderboard(Paths.get(args[3])));
+		}
+		server.start();
+		System.out.printf("Battleship server listening on port %d (%d thread(s))%n", server.getPort(), threads);
+		// serve until the process is stopped
+		server.acceptor.join();
+	}
+}
@@ -0,0 +1,299 @@
+import java.util.Arrays;
+
+/**
+ * A set of squares on the ocean grid packed into the bits of an array of
+ * longs, one bit per square in row-major order (two longs cover a 10x10 grid).
+ *
+ * The longs are split into pages of 64 longs (4096 squares) that are only
+ * allocated once a bit inside them is set, so a board for a large ocean costs
+ * next to nothing until it is used.
+ *
+ */
+public class BitBoard {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of longs in a full page
+	private static final int PAGE_WORDS = 64;
+
+	// the number of rows in the grid
+	private final int rows;
+	// the number of columns in the grid
+	private final int columns;
+	// the total number of longs needed to hold one bit per square
+	private final int wordCount;
+	// the packed bits (bit i of the board is bit (i % 64) of long (i / 64),
+	// which is stored at pages[(i / 64) / 64][(i / 64) % 64])
+	// a null page means that every bit in it is clear
+	private final long[][] pages;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an empty BitBoard covering a grid of the given size
+	 *
+	 * @param rows
+	 * @param columns
+	 */
+	public BitBoard(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		// round the number of squares up to a whole number of longs
+		this.wordCount = (int) (((long) rows * columns + 63) >>> 6);
+		// round the number of longs up to a whole number of pages
+		this.pages = new long[(this.wordCount + PAGE_WORDS - 1) / PAGE_WORDS][];
+	}
+
+	/**
+	 * Returns the index of the bit for the given location
+	 *
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public int index(int row, int column) {
+		return row * this.columns + column;
+	}
+
+	/**
+	 * Returns the long holding the bits from 64 * word to 64 * word + 63 (bit i
+	 * of the long is bit 64 * word + i of the board)
+	 *
+	 * @param word
+	 * @return
+	 */
+	public long getWord(int word) {
+		long[] page = this.pages[word / PAGE_WORDS];
+		return page == null ? 0 : page[word % PAGE_WORDS];
+	}
+
+	/**
+	 * Returns the number of longs that hold the bits of the board
+	 *
+	 * @return
+	 */
+	public int getWordCount() {
+		return this.wordCount;
+	}
+
+	/**
+	 * Returns true if the bit at the given index is set
+	 *
+	 * @param index
+	 * @return
+	 */
+	public boolean get(int index) {
+		int word = index >>> 6;
+		long[] page = this.pages[word / PAGE_WORDS];
+		return page != null && (page[word % PAGE_WORDS] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Returns true if the bit for the given location is set
+	 *
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public boolean get(int row, int column) {
+		return get(index(row, column));
+	}
+
+	/**
+	 * Sets the bit at the given index
+	 *
+	 * @param index
+	 */
+	public void set(int index) {
+		int word = index >>> 6;
+		// (shifting a long only uses the lowest 6 bits of the index)
+		page(word / PAGE_WORDS)[word % PAGE_WORDS] |= 1L << index;
+	}
+
+	/**
+	 * Sets the bit for the given location
+	 *
+	 * @param row
+	 * @param column
+	 */
+	public void set(int row, int column) {
+		set(index(row, column));
+	}
+
+	/**
+	 * Clears the bit at the given index
+	 *
+	 * @param index
+	 */
+	public void clear(int index) {
+		int word = index >>> 6;
+		long[] page = this.pages[word / PAGE_WORDS];
+		if (page != null) {
+			page[word % PAGE_WORDS] &= ~(1L << index);
+		}
+	}
+
+	/**
+	 * Clears every bit on the board
+	 */
+	public void clear() {
+		// keep the pages that have been allocated, so they can be reused
+		for (long[] page : this.pages) {
+			if (page != null) {
+				Arrays.fill(page, 0);
+			}
+		}
+	}
+
+	/**
+	 * Makes this board a copy of the other board
+	 *
+	 * @param other
+	 */
+	public void copyFrom(BitBoard other) {
+		for (int p = 0; p < this.pages.length; p++) {
+			if (other.pages[p] != null) {
+				System.arraycopy(other.pages[p], 0, page(p), 0, other.pages[p].length);
+			} else if (this.pages[p] != null) {
+				Arrays.fill(this.pages[p], 0);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the set bit with the given rank (0 for the lowest
+	 * set bit, 1 for the next one, etc.), or -1 if there are not enough set bits
+	 *
+	 * @param rank
+	 * @return
+	 */
+	public int select(int rank) {
+		for (int p = 0; p < this.pages.length; p++) {
+			long[] page = this.pages[p];
+			// skip pages that have never been used
+			if (page == null)
+				continue;
+			for (int i = 0; i < page.length; i++) {
+				long word = page[i];
+				int count = Long.bitCount(word);
+				// skip whole words until the word containing the bit is reached
+				if (rank >= count) {
+					rank -= count;
+					continue;
+				}
+				// drop the lowest set bits of the word until the bit is reached
+				for (int j = 0; j < rank; j++) {
+					word &= word - 1;
+				}
+				return ((p * PAGE_WORDS + i) << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Sets every bit that is set in the other board
+	 *
+	 * @param other
+	 */
+	public void or(BitBoard other) {
+		for (int p = 0; p < this.pages.length; p++) {
+			long[] otherPage = other.pages[p];
+			if (otherPage == null)
+				continue;
+			long[] page = page(p);
+			for (int i = 0; i < otherPage.length; i++) {
+				page[i] |= otherPage[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns true if every bit set in the other board is also set in this board
+	 *
+	 * @param other
+	 * @return
+	 */
+	public boolean containsAll(BitBoard other) {
+		for (int p = 0; p < this.pages.length; p++) {
+			long[] otherPage = other.pages[p];
+			if (otherPage == null)
+				continue;
+			long[] page = this.pages[p];
+			for (int i = 0; i < otherPage.length; i++) {
+				long word = page == null ? 0 : page[i];
+				if ((otherPage[i] & ~word) != 0)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if no bit is set
+	 *
+	 * @return
+	 */
+	public boolean isEmpty() {
+		for (long[] page : this.pages) {
+			if (page == null)
+				continue;
+			for (long word : page) {
+				if (word != 0)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bits that are set
+	 *
+	 * @return
+	 */
+	public int cardinality() {
+		int count = 0;
+		for (long[] page : this.pages) {
+			if (page == null)
+				continue;
+			for (long word : page) {
+				count += Long.bitCount(word);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the page with the given number, allocating it if necessary
+	 *
+	 * @param p
+	 * @return
+	 */
+	private long[] page(int p) {
+		long[] page = this.pages[p];
+		if (page == null) {
+			// the last page only needs to cover the longs that are left over
+			page = new long[Math.min(PAGE_WORDS, this.wordCount - p * PAGE_WORDS)];
+			this.pages[p] = page;
+		}
+		return page;
+	}
+
+	/**
+	 * Returns the number of rows in the grid
+	 *
+	 * @return
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Returns the number of columns in the grid
+	 *
+	 * @return
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+}
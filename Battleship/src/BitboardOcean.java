@@ -0,0 +1,218 @@
+/**
+ * An Ocean that keeps the state of the grid in packed bit sets instead of a
+ * grid of Ship references, so that shooting at and inspecting a location are
+ * simple bit operations. The ships are still available (as read-only views)
+ * through getShipAt() and getShipArray().
+ *
+ */
+public class BitboardOcean extends Ocean {
+
+	/* INSTANCE VARIABLES */
+
+	// locations that contain part of a ship
+	private final BitBoard occupied;
+	// locations that have been fired upon
+	private final BitBoard shots;
+	// locations that have been fired upon and contain part of a ship
+	private final BitBoard hits;
+	// locations that contain part of a sunken ship
+	private final BitBoard sunk;
+	// hash table from the index of each occupied location to the index of the
+	// ship there (sized for the fleet rather than the ocean)
+	// a key of 0 marks an empty slot, so keys are stored as index + 1
+	private final int[] cellKeys;
+	private final int[] cellShips;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an instance of BitboardOcean (classic 10x10 game)
+	 */
+	public BitboardOcean() {
+		this(GameConfig.standard());
+	}
+
+	/**
+	 * Constructor for an instance of BitboardOcean with the given size and fleet
+	 *
+	 * @param config
+	 */
+	public BitboardOcean(GameConfig config) {
+		// no grid of Ship references is needed
+		super(config, null);
+		this.occupied = new BitBoard(this.rows, this.columns);
+		this.shots = new BitBoard(this.rows, this.columns);
+		this.hits = new BitBoard(this.rows, this.columns);
+		this.sunk = new BitBoard(this.rows, this.columns);
+		// keep the hash table at most half full
+		int capacity = Integer.highestOneBit(Math.max(2, config.getFleetCells()) * 2 - 1) << 1;
+		this.cellKeys = new int[capacity];
+		this.cellShips = new int[capacity];
+	}
+
+	@Override
+	void setShipAt(int row, int column, Ship ship) {
+		addToFleet(ship);
+		int index = this.occupied.index(row, column);
+		this.occupied.set(index);
+		// remember which ship is at this location
+		int slot = slotOf(index);
+		this.cellKeys[slot] = index + 1;
+		this.cellShips[slot] = this.shipsPlaced - 1;
+	}
+
+	/**
+	 * Returns the slot of the hash table that holds (or would hold) the given
+	 * location
+	 *
+	 * @param index
+	 * @return
+	 */
+	private int slotOf(int index) {
+		int mask = this.cellKeys.length - 1;
+		// spread the bits of the index before masking (Fibonacci hashing)
+		int slot = (index * 0x9E3779B9) >>> 16 & mask;
+		// probe linearly until the location or an empty slot is found
+		while (this.cellKeys[slot] != 0 && this.cellKeys[slot] != index + 1) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the index of the ship at the given location, or -1 if the location
+	 * is empty sea
+	 *
+	 * @param index
+	 * @return
+	 */
+	private int fleetIndexOf(int index) {
+		if (!this.occupied.get(index)) {
+			return -1;
+		}
+		return this.cellShips[slotOf(index)];
+	}
+
+	@Override
+	public boolean isOccupied(int row, int column) {
+		int index = this.occupied.index(row, column);
+		// a location is occupied if it contains part of a ship that is still afloat
+		return this.occupied.get(index) && !this.sunk.get(index);
+	}
+
+	@Override
+	protected int applyShot(int row, int column) {
+		int index = this.shots.index(row, column);
+		this.shotsFired++;
+		// a location can only be hit (or missed) once
+		if (this.shots.get(index)) {
+			return REPEAT;
+		}
+		// record the shot
+		this.shots.set(index);
+		if (!this.occupied.get(index)) {
+			return MISS;
+		}
+		this.hitCount++;
+		if (markHit(row, column, index)) {
+			this.shipsSunk++;
+			this.shipsRemaining--;
+			return SUNK;
+		}
+		return HIT;
+	}
+
+	/**
+	 * Records a hit on the ship at the given location
+	 * 
+	 * @param row
+	 * @param column
+	 * @param index
+	 * @return true if the hit sank the ship
+	 */
+	private boolean markHit(int row, int column, int index) {
+		this.hits.set(index);
+		// keep the ship's own view of its hits up to date
+		Ship ship = this.fleet[fleetIndexOf(index)];
+		ship.shootAt(row, column);
+		// if every location of the ship has been hit...
+		if (!ship.isSunk())
+			return false;
+		// ...mark the whole ship as sunk
+		for (int d = 0; d < ship.getLength(); d++) {
+			this.sunk.set(cellOf(ship, d));
+		}
+		return true;
+	}
+
+	@Override
+	boolean isShot(int row, int column) {
+		return this.shots.get(row, column);
+	}
+
+	@Override
+	void restoreShot(int row, int column) {
+		int index = this.shots.index(row, column);
+		this.shots.set(index);
+		if (this.occupied.get(index) && !this.hits.get(index)) {
+			markHit(row, column, index);
+		}
+	}
+
+	/**
+	 * Returns the index of the given part of the given ship (0 for the bow)
+	 *
+	 * @param ship
+	 * @param part
+	 * @return
+	 */
+	private int cellOf(Ship ship, int part) {
+		if (ship.isHorizontal()) {
+			return this.occupied.index(ship.getBowRow(), ship.getBowColumn() + part);
+		}
+		return this.occupied.index(ship.getBowRow() + part, ship.getBowColumn());
+	}
+
+	@Override
+	public Ship getShipAt(int row, int column) {
+		int i = fleetIndexOf(this.occupied.index(row, column));
+		if (i >= 0) {
+			return this.fleet[i];
+		}
+		// no ship here, so the location is empty sea
+		return EmptySea.getInstance();
+	}
+
+	@Override
+	public Ship[][] getShipArray() {
+		/*
+		 * Builds a copy of the grid for callers that expect an array of ships;
+		 * changes made to the copy do not affect this ocean
+		 */
+		Ship[][] ships = new Ship[this.rows][this.columns];
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				ships[i][j] = getShipAt(i, j);
+			}
+		}
+		return ships;
+	}
+
+	@Override
+	public char getSymbol(int row, int column) {
+		// read the symbol straight from the bit sets
+		int index = this.shots.index(row, column);
+		if (!this.shots.get(index)) {
+			// never fired upon
+			return '.';
+		} else if (!this.occupied.get(index)) {
+			// fired upon and found nothing
+			return '-';
+		} else if (this.sunk.get(index)) {
+			// part of a sunken ship
+			return 'x';
+		}
+		// hit a "real" ship
+		return 'S';
+	}
+}
@@ -0,0 +1,259 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The computer's side of a game against a human player: an ocean holding the
+ * player's fleet, and a Shooter that fires back at it
+ *
+ * The computer works out its next shot on a background thread as soon as it
+ * has fired the last one, so the shot is normally ready by the time the player
+ * has entered theirs, and the reply comes with no delay. The thread reading the
+ * player's input never waits for the search; it only collects the shot when
+ * the computer's turn comes. A shot that will not be needed (because the
+ * player sank the fleet first, or the game is being abandoned) is cancelled,
+ * and the shooter is not touched again until its search has stopped.
+ *
+ * The computer listens to its ocean, so it learns which ship each shot sank as
+ * the shot is fired.
+ *
+ */
+public class ComputerPlayer implements OceanListener {
+
+	/* INSTANCE VARIABLES */
+
+	// the size of the ocean and the makeup of the fleet
+	private final GameConfig config;
+	// chooses where the computer fires
+	private final Shooter shooter;
+	// the thread that works out the next shot ahead of time
+	private final ExecutorService thinker;
+	// the ocean holding the player's fleet
+	private Ocean ocean;
+	// the next shot, being worked out (or null if it has not been asked for)
+	private Future<Integer> nextShot;
+	// the locations (row * columns + column) and results of the shots in the
+	// last volley
+	private int[] cells = new int[8];
+	private int[] results = new int[8];
+	// the ships sunk by the shots in the last volley (null for a shot that
+	// sank none)
+	private Ship[] sunkShips = new Ship[8];
+	// the ship sunk by the shot being fired, if any
+	private Ship sunk;
+	// the number of shots fired in the last volley
+	private int volleySize;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a ComputerPlayer that fires with the given shooter
+	 *
+	 * @param config
+	 * @param shooter
+	 */
+	public ComputerPlayer(GameConfig config, Shooter shooter) {
+		this.config = config;
+		this.shooter = shooter;
+		this.thinker = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "computer-player");
+			// a search must never keep the program running
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts a new game, with the player's ships placed randomly, and starts
+	 * working out the computer's first shot
+	 */
+	public void newGame() {
+		cancel();
+		this.ocean = new Ocean(this.config);
+		this.ocean.placeAllShipsRandomly();
+		this.ocean.addListener(this);
+		this.volleySize = 0;
+		// (only the thread thinking at the time uses the stream)
+		this.shooter.newGame(this.config, new SplittableRandom());
+		think();
+	}
+
+	/**
+	 * Fires the given number of shots (or fewer, if the player's fleet is gone
+	 * before then)
+	 *
+	 * @param shots
+	 * @return the number of shots fired
+	 */
+	public int fire(int shots) {
+		if (this.cells.length < shots) {
+			this.cells = new int[Math.max(shots, this.cells.length * 2)];
+			this.results = new int[this.cells.length];
+			this.sunkShips = new Ship[this.cells.length];
+		}
+		int columns = this.config.getColumns();
+		int i = 0;
+		while (i < shots && !this.ocean.isGameOver()) {
+			// take the shot worked out in the background (waiting for it only
+			// if the player was quicker than the search)
+			int cell = awaitShot();
+			int row = cell / columns;
+			int column = cell % columns;
+			this.sunk = null;
+			int result = this.ocean.fire(row, column);
+			this.shooter.shotResult(row, column, result == Ocean.HIT || result == Ocean.SUNK, this.sunk);
+			this.cells[i] = cell;
+			this.results[i] = result;
+			this.sunkShips[i] = this.sunk;
+			i++;
+			// start on the next shot while the player takes their turn
+			if (!this.ocean.isGameOver()) {
+				think();
+			}
+		}
+		this.volleySize = i;
+		return i;
+	}
+
+	@Override
+	public void onSunk(int row, int column, Ship ship) {
+		this.sunk = ship;
+	}
+
+	/**
+	 * Starts working out the next shot on the background thread
+	 */
+	private void think() {
+		this.nextShot = this.thinker.submit(this.shooter::nextShot);
+	}
+
+	/**
+	 * Returns the next shot, waiting for the background thread to finish working
+	 * it out
+	 *
+	 * @return
+	 */
+	private int awaitShot() {
+		Future<Integer> shot = this.nextShot;
+		this.nextShot = null;
+		try {
+			return shot.get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("The computer could not choose a shot", e.getCause());
+		} catch (InterruptedException e) {
+			// let the caller see the interruption, and stop the search
+			Thread.currentThread().interrupt();
+			shot.cancel(true);
+			throw new IllegalStateException("Interrupted while waiting for the computer's shot", e);
+		}
+	}
+
+	/**
+	 * Cancels the shot being worked out, if any, and waits until the shooter is
+	 * no longer in use (so it can safely be started on a new game); the wait is
+	 * short if the shooter stops searching when interrupted, as
+	 * ProbabilityShooter does
+	 *
+	 * @throws IllegalStateException if interrupted while waiting, in which case
+	 *                               the shooter may still be in use
+	 */
+	public void cancel() {
+		if (this.nextShot == null) {
+			return;
+		}
+		this.nextShot.cancel(true);
+		this.nextShot = null;
+		try {
+			// the thinker runs one task at a time, so once this one has run
+			// the cancelled search has stopped
+			this.thinker.submit(() -> {
+			}).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			// the search may still be running, so the shooter must not be
+			// touched
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the computer's search to stop", e);
+		}
+	}
+
+	/**
+	 * Cancels any shot being worked out and stops the background thread
+	 */
+	public void shutdown() {
+		cancel();
+		this.thinker.shutdownNow();
+	}
+
+	/**
+	 * Returns the ocean holding the player's fleet
+	 *
+	 * @return
+	 */
+	public Ocean getOcean() {
+		return this.ocean;
+	}
+
+	/**
+	 * Returns true if the computer has sunk every one of the player's ships
+	 *
+	 * @return
+	 */
+	public boolean isGameOver() {
+		return this.ocean.isGameOver();
+	}
+
+	/**
+	 * Returns the number of shots fired in the last volley
+	 *
+	 * @return
+	 */
+	public int getVolleySize() {
+		return this.volleySize;
+	}
+
+	/**
+	 * Returns the row of the given shot of the last volley
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getShotRow(int i) {
+		return this.cells[i] / this.config.getColumns();
+	}
+
+	/**
+	 * Returns the column of the given shot of the last volley
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getShotColumn(int i) {
+		return this.cells[i] % this.config.getColumns();
+	}
+
+	/**
+	 * Returns the result (Ocean.MISS, HIT, SUNK or REPEAT) of the given shot of
+	 * the last volley
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getShotResult(int i) {
+		return this.results[i];
+	}
+
+	/**
+	 * Returns the ship sunk by the given shot of the last volley, or null if it
+	 * sank none
+	 *
+	 * @param i
+	 * @return
+	 */
+	public Ship getSunkShip(int i) {
+		return this.sunkShips[i];
+	}
+}
@@ -0,0 +1,217 @@
+import java.util.Arrays;
+
+/**
+ * Reads coordinates typed by the player, without regular expressions and
+ * without creating any objects (once its arrays are big enough)
+ *
+ * A line may hold a single pair of coordinates or a whole volley of them,
+ * separated by whitespace or semicolons, e.g. "1,2 3,4 (5,6)". Each pair is
+ * written as [ROW],[COLUMN], optionally in parentheses, with a comma and/or
+ * whitespace between the two numbers. On oceans with at most 10 rows and 10
+ * columns the separator may be left out ("55" is (5, 5)), since every
+ * coordinate is a single digit.
+ *
+ */
+public class CoordinateParser {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of rows and columns in the ocean
+	private final int rows;
+	private final int columns;
+	// true if every coordinate is a single digit, so "55" can mean (5, 5)
+	private final boolean singleDigits;
+	// the coordinates read by the last call to parse() (grown as needed)
+	private int[] parsedRows = new int[8];
+	private int[] parsedColumns = new int[8];
+	// the number of coordinates read by the last call to parse()
+	private int count;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a CoordinateParser for an ocean of the given size
+	 *
+	 * @param rows
+	 * @param columns
+	 */
+	public CoordinateParser(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		this.singleDigits = rows <= 10 && columns <= 10;
+	}
+
+	/**
+	 * Reads every pair of coordinates in the given input
+	 *
+	 * @param input
+	 * @return the number of pairs read, or -1 if the input is not valid (or any
+	 *         of the coordinates lies outside the ocean)
+	 */
+	public int parse(CharSequence input) {
+		this.count = 0;
+		int length = input.length();
+		int i = skipSeparators(input, 0);
+		// an empty line is not a valid input
+		if (i == length) {
+			return -1;
+		}
+		while (i < length) {
+			i = parsePair(input, i);
+			if (i < 0) {
+				return -1;
+			}
+			// pairs must be separated from each other (or start with a parenthesis)
+			int next = skipSeparators(input, i);
+			if (next == i && i < length && input.charAt(i) != '(') {
+				return -1;
+			}
+			i = next;
+		}
+		return this.count;
+	}
+
+	/**
+	 * Reads a single pair of coordinates starting at the given position
+	 *
+	 * @param input
+	 * @param i
+	 * @return the position after the pair, or -1 if the pair is not valid
+	 */
+	private int parsePair(CharSequence input, int i) {
+		int length = input.length();
+		// 1 optional left parenthesis
+		if (input.charAt(i) == '(') {
+			i++;
+		}
+		// the row
+		int start = i;
+		int row = 0;
+		while (i < length && isDigit(input.charAt(i))) {
+			row = row * 10 + (input.charAt(i) - '0');
+			i++;
+			// more digits than any ocean could need
+			if (i - start > 7)
+				return -1;
+		}
+		int column;
+		if (i == start) {
+			return -1;
+		} else if (this.singleDigits && i - start == 2 && (i == length || input.charAt(i) != ',')) {
+			// two digits without a separator: a single-digit row and column
+			column = row % 10;
+			row = row / 10;
+		} else {
+			// 1 optional comma and/or whitespace between the row and the column
+			int separatorStart = i;
+			while (i < length && input.charAt(i) == ' ') {
+				i++;
+			}
+			if (i < length && input.charAt(i) == ',') {
+				i++;
+			}
+			while (i < length && input.charAt(i) == ' ') {
+				i++;
+			}
+			if (i == separatorStart) {
+				return -1;
+			}
+			// the column
+			start = i;
+			column = 0;
+			while (i < length && isDigit(input.charAt(i))) {
+				column = column * 10 + (input.charAt(i) - '0');
+				i++;
+				if (i - start > 7)
+					return -1;
+			}
+			if (i == start) {
+				return -1;
+			}
+		}
+		// 1 optional right parenthesis
+		if (i < length && input.charAt(i) == ')') {
+			i++;
+		}
+		// the coordinates must be inside the ocean
+		if (row >= this.rows || column >= this.columns) {
+			return -1;
+		}
+		add(row, column);
+		return i;
+	}
+
+	/**
+	 * Returns the position of the first character at or after the given one that
+	 * does not separate two pairs of coordinates
+	 *
+	 * @param input
+	 * @param i
+	 * @return
+	 */
+	private static int skipSeparators(CharSequence input, int i) {
+		while (i < input.length()) {
+			char c = input.charAt(i);
+			if (c != ' ' && c != '\t' && c != ';')
+				break;
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns true if the character is a decimal digit
+	 *
+	 * @param c
+	 * @return
+	 */
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Records a pair of coordinates
+	 *
+	 * @param row
+	 * @param column
+	 */
+	private void add(int row, int column) {
+		if (this.count == this.parsedRows.length) {
+			// make room for a longer volley
+			this.parsedRows = Arrays.copyOf(this.parsedRows, this.count * 2);
+			this.parsedColumns = Arrays.copyOf(this.parsedColumns, this.count * 2);
+		}
+		this.parsedRows[this.count] = row;
+		this.parsedColumns[this.count] = column;
+		this.count++;
+	}
+
+	/**
+	 * Returns the number of pairs read by the last call to parse()
+	 *
+	 * @return
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the row of the given pair read by the last call to parse()
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getRow(int i) {
+		return this.parsedRows[i];
+	}
+
+	/**
+	 * Returns the column of the given pair read by the last call to parse()
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getColumn(int i) {
+		return this.parsedColumns[i];
+	}
+}
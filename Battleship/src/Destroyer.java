@@ -11,7 +11,7 @@ public class Destroyer extends Ship {
 	 */
 	public Destroyer() {
 		// sets the length to 2
-		this.length = 2;
+		super(2);
 	}
 
 	@Override
@@ -1,27 +1,49 @@
+
 /**
  * A class for a square that doesn't contain a ship in the game Battleship
+ *
+ * There is a single, shared EmptySea (see getInstance()). It has no location
+ * and keeps no state: whether a square of empty sea has been fired upon is
+ * recorded by the ocean.
+ *
  * @author Philipp Gaissert
  *
  */
 public class EmptySea extends Ship {
 
+	/* INSTANCE VARIABLES */
+
+	// the only instance
+	private static final EmptySea INSTANCE = new EmptySea();
+
+	/* METHODS */
+
 	/**
-	 * Constructor for an instance of EmptySea
+	 * Constructor for the instance of EmptySea
 	 */
-	public EmptySea() {
+	private EmptySea() {
 		// set the length to 1
-		this.length = 1;
+		super(1);
+	}
+
+	/**
+	 * Returns the shared EmptySea, used for every square without a ship
+	 *
+	 * @return
+	 */
+	public static EmptySea getInstance() {
+		return INSTANCE;
 	}
-	
+
 	@Override
 	/**
 	 * Always returns false to indicate no ship was hit
 	 */
 	public boolean shootAt(int row, int column) {
-		this.hit[0] = true;
+		// the miss is recorded by the ocean, not here
 		return false;
 	}
-	
+
 	@Override
 	/**
 	 * Always returns false to indicate that no ship was sunk
@@ -29,7 +51,48 @@ public class EmptySea extends Ship {
 	public boolean isSunk() {
 		return false;
 	}
-	
+
+	@Override
+	/**
+	 * Always returns false (use Ocean.getSymbol() to find out whether a square
+	 * of empty sea has been fired upon)
+	 */
+	public boolean isHit(int row, int column) {
+		return false;
+	}
+
+	@Override
+	/**
+	 * Empty sea cannot be placed; every square without a ship is empty sea
+	 */
+	public void placeShipAt(int row, int column, boolean horizontal, Ocean ocean) {
+		throw new UnsupportedOperationException("EmptySea cannot be placed");
+	}
+
+	@Override
+	/**
+	 * Empty sea has no location, since it is shared by every square
+	 */
+	public void setBowRow(int bowRow) {
+		throw new UnsupportedOperationException("EmptySea has no location");
+	}
+
+	@Override
+	/**
+	 * Empty sea has no location, since it is shared by every square
+	 */
+	public void setBowColumn(int bowColumn) {
+		throw new UnsupportedOperationException("EmptySea has no location");
+	}
+
+	@Override
+	/**
+	 * Empty sea has no location, since it is shared by every square
+	 */
+	public void setHorizontal(boolean horizontal) {
+		throw new UnsupportedOperationException("EmptySea has no location");
+	}
+
 	@Override
 	/**
 	 * Returns "-" for use in Ocean.print()
@@ -37,7 +100,7 @@ public class EmptySea extends Ship {
 	public String toString() {
 		return "-";
 	}
-	
+
 	@Override
 	/**
 	 * Returns "empty"
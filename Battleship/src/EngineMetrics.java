@@ -0,0 +1,361 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms recorded by the game engine: how hard it was to
+ * place each fleet, how long placing a fleet and firing a shot take, how many
+ * games are started and finished, how many shots a game takes, and how often
+ * players enter coordinates that are not valid
+ *
+ * There is one set of metrics for the whole program (see global()). Recording
+ * never takes a lock: every counter is a LongAdder (see MetricHistogram), so
+ * the threads of the Simulator do not contend with each other. Only one shot
+ * in 64, chosen at random, is timed, since reading the clock costs about as
+ * much as the shot itself.
+ *
+ * publish() registers the metrics as the MXBean "Battleship:type=EngineMetrics"
+ * and, if the system property battleship.metrics.file names a file, rewrites
+ * that file every battleship.metrics.interval seconds (default 10) in the
+ * Prometheus text format, for a collector that reads metrics from files.
+ *
+ */
+public class EngineMetrics implements EngineMetricsMXBean {
+
+	/* INSTANCE VARIABLES */
+
+	// the name of the MXBean
+	public static final String OBJECT_NAME = "Battleship:type=EngineMetrics";
+	// one shot in this many (plus one), chosen at random, is timed
+	static final int SHOT_SAMPLE_MASK = 63;
+
+	// the metrics of the whole program
+	private static final EngineMetrics GLOBAL = new EngineMetrics();
+
+	// the number of retries of each placement
+	private final MetricHistogram placementRetries = new MetricHistogram();
+	// the time taken by each placement, in nanoseconds
+	private final MetricHistogram placementLatency = new MetricHistogram();
+	// the time taken by the shots that were timed, in nanoseconds
+	private final MetricHistogram shotLatency = new MetricHistogram();
+	// the number of shots of each finished game
+	private final MetricHistogram shotsPerGame = new MetricHistogram();
+	// the lines of coordinates entered, and those that were not valid
+	private final LongAdder inputs = new LongAdder();
+	private final LongAdder invalidInputs = new LongAdder();
+	// the rates of games started and finished
+	private final Rate startRate = new Rate();
+	private final Rate finishRate = new Rate();
+	// writes the metrics to a file, once started
+	private ScheduledExecutorService dumper;
+
+	/* METHODS */
+
+	/**
+	 * Returns the metrics of the whole program
+	 *
+	 * @return
+	 */
+	public static EngineMetrics global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Records a fleet placed by Ocean.placeAllShipsRandomly() (the start of a
+	 * game)
+	 *
+	 * @param retries the placement attempts beyond one per ship
+	 * @param nanos   the time taken
+	 */
+	void recordPlacement(int retries, long nanos) {
+		this.placementRetries.record(retries);
+		this.placementLatency.record(nanos);
+	}
+
+	/**
+	 * Records the time taken by a shot (one that was chosen to be timed)
+	 *
+	 * @param nanos
+	 */
+	void recordShot(long nanos) {
+		this.shotLatency.record(nanos);
+	}
+
+	/**
+	 * Records a game in which every ship has been sunk
+	 *
+	 * @param shots the number of shots fired in the game
+	 */
+	void recordGameFinished(int shots) {
+		this.shotsPerGame.record(shots);
+	}
+
+	/**
+	 * Records a line of coordinates entered by a player
+	 *
+	 * @param valid
+	 */
+	void recordInput(boolean valid) {
+		this.inputs.increment();
+		if (!valid) {
+			this.invalidInputs.increment();
+		}
+	}
+
+	@Override
+	public long getGamesStarted() {
+		return this.placementLatency.getCount();
+	}
+
+	@Override
+	public long getGamesFinished() {
+		return this.shotsPerGame.getCount();
+	}
+
+	@Override
+	public double getGamesStartedPerSecond() {
+		return this.startRate.perSecond(getGamesStarted());
+	}
+
+	@Override
+	public double getGamesFinishedPerSecond() {
+		return this.finishRate.perSecond(getGamesFinished());
+	}
+
+	@Override
+	public double getPlacementRetriesMean() {
+		return this.placementRetries.getMean();
+	}
+
+	@Override
+	public long getPlacementRetriesMax() {
+		return this.placementRetries.getMax();
+	}
+
+	@Override
+	public long getPlacementLatencyP50() {
+		return this.placementLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getPlacementLatencyP99() {
+		return this.placementLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public long getShotLatencyP50() {
+		return this.shotLatency.getPercentile(0.5);
+	}
+
+	@Override
+	public long getShotLatencyP99() {
+		return this.shotLatency.getPercentile(0.99);
+	}
+
+	@Override
+	public double getShotsPerGameMean() {
+		return this.shotsPerGame.getMean();
+	}
+
+	@Override
+	public long getShotsPerGameP50() {
+		return this.shotsPerGame.getPercentile(0.5);
+	}
+
+	@Override
+	public long getShotsPerGameP90() {
+		return this.shotsPerGame.getPercentile(0.9);
+	}
+
+	@Override
+	public long getInputs() {
+		return this.inputs.sum();
+	}
+
+	@Override
+	public long getInvalidInputs() {
+		return this.invalidInputs.sum();
+	}
+
+	@Override
+	public double getInvalidInputRate() {
+		long inputs = getInputs();
+		return inputs == 0 ? 0 : (double) getInvalidInputs() / inputs;
+	}
+
+	/**
+	 * Writes every metric in the Prometheus text format
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeText(Appendable out) throws IOException {
+		counter(out, "battleship_games_started_total", "Games started (fleets placed randomly)",
+				getGamesStarted());
+		counter(out, "battleship_games_finished_total", "Games finished (every ship sunk)", getGamesFinished());
+		summary(out, "battleship_placement_retries", "Placement attempts beyond one per ship", this.placementRetries,
+				1);
+		summary(out, "battleship_placement_latency_seconds", "Time taken to place a fleet", this.placementLatency,
+				1e9);
+		summary(out, "battleship_shot_latency_seconds", "Time taken by a shot (1 in 64 shots)", this.shotLatency,
+				1e9);
+		summary(out, "battleship_shots_per_game", "Shots fired in a finished game", this.shotsPerGame, 1);
+		counter(out, "battleship_inputs_total", "Lines of coordinates entered", getInputs());
+		counter(out, "battleship_invalid_inputs_total", "Lines of coordinates that were not valid",
+				getInvalidInputs());
+	}
+
+	/**
+	 * Writes a counter in the Prometheus text format
+	 *
+	 * @param out
+	 * @param name
+	 * @param help
+	 * @param value
+	 * @throws IOException
+	 */
+	private static void counter(Appendable out, String name, String help, long value) throws IOException {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" counter\n");
+		out.append(name).append(' ').append(Long.toString(value)).append('\n');
+	}
+
+	/**
+	 * Writes a histogram as a summary in the Prometheus text format
+	 *
+	 * @param out
+	 * @param name
+	 * @param help
+	 * @param histogram
+	 * @param unit      divides every number (to turn nanoseconds into seconds)
+	 * @throws IOException
+	 */
+	private static void summary(Appendable out, String name, String help, MetricHistogram histogram, double unit)
+			throws IOException {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(" summary\n");
+		for (double quantile : new double[] { 0.5, 0.9, 0.99 }) {
+			out.append(name).append("{quantile=\"").append(Double.toString(quantile)).append("\"} ")
+					.append(number(histogram.getPercentile(quantile) / unit)).append('\n');
+		}
+		out.append(name).append("_sum ").append(number(histogram.getSum() / unit)).append('\n');
+		out.append(name).append("_count ").append(Long.toString(histogram.getCount())).append('\n');
+	}
+
+	/**
+	 * Formats a number for the Prometheus text format
+	 *
+	 * @param value
+	 * @return
+	 */
+	private static String number(double value) {
+		return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value)
+				: Double.toString(value);
+	}
+
+	/**
+	 * Writes every metric to the given file in the Prometheus text format,
+	 * replacing the file in one step so that a reader never sees half of it
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public void dumpTo(Path path) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+			writeText(out);
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Registers the metrics as an MXBean, and starts writing them to the file
+	 * named by the system property battleship.metrics.file (if it is set);
+	 * calling it again does nothing
+	 */
+	public static synchronized void publish() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			// already published
+			return;
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register the engine metrics", e);
+		}
+		String file = System.getProperty("battleship.metrics.file");
+		if (file != null) {
+			long seconds = Long.getLong("battleship.metrics.interval", 10);
+			GLOBAL.startDumping(Paths.get(file), seconds);
+		}
+	}
+
+	/**
+	 * Writes the metrics to the given file every given number of seconds, and
+	 * once more when the program exits
+	 *
+	 * @param path
+	 * @param seconds
+	 */
+	public synchronized void startDumping(Path path, long seconds) {
+		if (this.dumper != null) {
+			throw new IllegalStateException("The metrics are already being written to a file");
+		}
+		this.dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-dumper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Runnable dump = () -> {
+			try {
+				dumpTo(path);
+			} catch (IOException e) {
+				// try again next time rather than give up
+				System.err.println("Could not write the metrics to " + path + ": " + e);
+			}
+		};
+		this.dumper.scheduleAtFixedRate(dump, seconds, seconds, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(dump, "metrics-final-dump"));
+	}
+
+	/**
+	 * The rate at which a count goes up, measured between reads that are at
+	 * least a second apart
+	 */
+	private static class Rate {
+
+		// the count and the time at the start of the current measurement
+		private long lastCount;
+		private long lastNanos = System.nanoTime();
+		// the last rate measured
+		private double perSecond;
+
+		/**
+		 * Returns the rate, given the count as it is now
+		 *
+		 * @param count
+		 * @return
+		 */
+		synchronized double perSecond(long count) {
+			long now = System.nanoTime();
+			if (now - this.lastNanos >= 1_000_000_000L) {
+				this.perSecond = (count - this.lastCount) * 1e9 / (now - this.lastNanos);
+				this.lastCount = count;
+				this.lastNanos = now;
+			}
+			return this.perSecond;
+		}
+	}
+}
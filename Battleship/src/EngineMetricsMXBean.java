@@ -0,0 +1,122 @@
+/**
+ * The metrics of the game engine as published over JMX (see EngineMetrics)
+ *
+ * Latencies are in nanoseconds.
+ *
+ */
+public interface EngineMetricsMXBean {
+
+	/**
+	 * Returns the number of games started (fleets placed randomly)
+	 *
+	 * @return
+	 */
+	long getGamesStarted();
+
+	/**
+	 * Returns the number of games finished (every ship sunk)
+	 *
+	 * @return
+	 */
+	long getGamesFinished();
+
+	/**
+	 * Returns the number of games started per second, over the last second or so
+	 *
+	 * @return
+	 */
+	double getGamesStartedPerSecond();
+
+	/**
+	 * Returns the number of games finished per second, over the last second or
+	 * so
+	 *
+	 * @return
+	 */
+	double getGamesFinishedPerSecond();
+
+	/**
+	 * Returns the mean number of retries (placement attempts beyond one per
+	 * ship) of placeAllShipsRandomly()
+	 *
+	 * @return
+	 */
+	double getPlacementRetriesMean();
+
+	/**
+	 * Returns the largest number of retries of a single placeAllShipsRandomly()
+	 *
+	 * @return
+	 */
+	long getPlacementRetriesMax();
+
+	/**
+	 * Returns the median latency of placeAllShipsRandomly()
+	 *
+	 * @return
+	 */
+	long getPlacementLatencyP50();
+
+	/**
+	 * Returns the 99th percentile latency of placeAllShipsRandomly()
+	 *
+	 * @return
+	 */
+	long getPlacementLatencyP99();
+
+	/**
+	 * Returns the median latency of a shot (from a sample of the shots)
+	 *
+	 * @return
+	 */
+	long getShotLatencyP50();
+
+	/**
+	 * Returns the 99th percentile latency of a shot (from a sample of the shots)
+	 *
+	 * @return
+	 */
+	long getShotLatencyP99();
+
+	/**
+	 * Returns the mean number of shots of a finished game
+	 *
+	 * @return
+	 */
+	double getShotsPerGameMean();
+
+	/**
+	 * Returns the median number of shots of a finished game
+	 *
+	 * @return
+	 */
+	long getShotsPerGameP50();
+
+	/**
+	 * Returns the 90th percentile number of shots of a finished game
+	 *
+	 * @return
+	 */
+	long getShotsPerGameP90();
+
+	/**
+	 * Returns the number of lines of coordinates entered by players
+	 *
+	 * @return
+	 */
+	long getInputs();
+
+	/**
+	 * Returns the number of lines of coordinates that were not valid
+	 *
+	 * @return
+	 */
+	long getInvalidInputs();
+
+	/**
+	 * Returns the fraction of the lines of coordinates that were not valid
+	 *
+	 * @return
+	 */
+	double getInvalidInputRate();
+}
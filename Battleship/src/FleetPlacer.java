@@ -0,0 +1,374 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates random legal positions for a fleet of ships without rejection
+ * sampling.
+ *
+ * Placing a ship marks its "halo" (the ship plus every location touching it)
+ * as forbidden. While the ocean is mostly empty, each ship is placed by drawing
+ * a few random positions and checking them against the halo. Once that stops
+ * working, the placer switches to masks: for every ship length it keeps a
+ * BitBoard of the bow locations where a ship of that length could still go
+ * (one for horizontal ships, one for vertical ships), and clears every bow whose
+ * ship would overlap a new halo. Checking a position is then a single bit test,
+ * and each ship is drawn directly from the legal positions that remain. If a
+ * ship has nowhere to go, the placer backtracks by removing the ships placed
+ * before it.
+ *
+ * Building the masks takes time proportional to the size of the ocean, so on a
+ * large ocean with a sparse fleet they are never built at all.
+ *
+ */
+public class FleetPlacer {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of rows in the ocean
+	private final int rows;
+	// the number of columns in the ocean
+	private final int columns;
+	// the length of each ship, in the order the ships are placed
+	private final int[] lengths;
+	// for each ship length, its index in the arrays of masks below (-1 if unused)
+	private final int[] lengthSlots;
+	// the distinct ship lengths in the fleet
+	private final int[] distinctLengths;
+	// the number of random positions drawn for a ship before using the masks
+	private static final int DIRECT_DRAWS = 32;
+	// bows that keep a horizontal/vertical ship of each length inside the ocean
+	// (computed once, copied into the working masks whenever they are rebuilt)
+	private BitBoard[] inBoundsHorizontal;
+	private BitBoard[] inBoundsVertical;
+	// bows where a horizontal/vertical ship of each length can still be placed
+	// (only kept up to date while masksBuilt is true)
+	private final BitBoard[] legalHorizontal;
+	private final BitBoard[] legalVertical;
+	// true once the ocean has become too crowded for direct draws
+	private boolean masksBuilt;
+	// locations that are part of, or touch, a ship that has been placed
+	private final BitBoard halo;
+	// the chosen position of each ship
+	private final int[] bowRows;
+	private final int[] bowColumns;
+	private final boolean[] horizontals;
+	// the maximum number of placement attempts before giving up
+	private final int maxAttempts;
+	// the number of placement attempts used by the last call to place()
+	private int attempts;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a FleetPlacer
+	 *
+	 * @param rows
+	 * @param columns
+	 * @param lengths the length of each ship (longest ships should come first)
+	 */
+	public FleetPlacer(int rows, int columns, int[] lengths) {
+		this.rows = rows;
+		this.columns = columns;
+		this.lengths = lengths.clone();
+		// find the distinct ship lengths
+		int maxLength = 0;
+		for (int length : lengths) {
+			maxLength = Math.max(maxLength, length);
+		}
+		this.lengthSlots = new int[maxLength + 1];
+		Arrays.fill(this.lengthSlots, -1);
+		int slots = 0;
+		for (int length : lengths) {
+			if (this.lengthSlots[length] < 0) {
+				this.lengthSlots[length] = slots++;
+			}
+		}
+		this.distinctLengths = new int[slots];
+		for (int length = 0; length <= maxLength; length++) {
+			if (this.lengthSlots[length] >= 0) {
+				this.distinctLengths[this.lengthSlots[length]] = length;
+			}
+		}
+		// the masks (BitBoards don't use memory until bits are set)
+		this.legalHorizontal = new BitBoard[slots];
+		this.legalVertical = new BitBoard[slots];
+		for (int k = 0; k < slots; k++) {
+			this.legalHorizontal[k] = new BitBoard(rows, columns);
+			this.legalVertical[k] = new BitBoard(rows, columns);
+		}
+		this.halo = new BitBoard(rows, columns);
+		this.bowRows = new int[lengths.length];
+		this.bowColumns = new int[lengths.length];
+		this.horizontals = new boolean[lengths.length];
+		// generous enough for crowded fleets, but guarantees that place() returns
+		this.maxAttempts = 1000 * Math.max(1, lengths.length);
+	}
+
+	/**
+	 * Chooses a legal position for every ship in the fleet
+	 *
+	 * @param rand
+	 * @return the number of placement attempts used (including ones undone by
+	 *         backtracking)
+	 * @throws IllegalStateException if the fleet could not be placed within the
+	 *                               attempt budget
+	 */
+	public int place(RandomGenerator rand) {
+		// start from an empty ocean
+		this.masksBuilt = false;
+		reset(0);
+		this.attempts = 0;
+		// the number of ships that have been placed so far
+		int placed = 0;
+		// the number of dead ends reached so far
+		int deadEnds = 0;
+		while (placed < this.lengths.length) {
+			// give up if the budget has been used up
+			if (this.attempts >= this.maxAttempts) {
+				throw new IllegalStateException(
+						"Could not place the fleet within " + this.maxAttempts + " attempts");
+			}
+			this.attempts++;
+			// while the ocean is mostly empty, a random position will do
+			if (!this.masksBuilt) {
+				if (drawDirectly(placed, rand)) {
+					addHalo(placed);
+					placed++;
+				} else {
+					// too crowded, so switch to the masks
+					this.masksBuilt = true;
+					reset(placed);
+				}
+				continue;
+			}
+			int k = this.lengthSlots[this.lengths[placed]];
+			int horizontalCount = this.legalHorizontal[k].cardinality();
+			int count = horizontalCount + this.legalVertical[k].cardinality();
+			// if there is nowhere left for this ship...
+			if (count == 0) {
+				// ...remove more and more of the earlier ships the more often
+				// this happens, until the placer has started over completely
+				deadEnds++;
+				placed = Math.max(0, placed - deadEnds);
+				reset(placed);
+				continue;
+			}
+			// pick one of the legal positions uniformly at random
+			int choice = rand.nextInt(count);
+			int bow;
+			if (choice < horizontalCount) {
+				bow = this.legalHorizontal[k].select(choice);
+				this.horizontals[placed] = true;
+			} else {
+				bow = this.legalVertical[k].select(choice - horizontalCount);
+				this.horizontals[placed] = false;
+			}
+			this.bowRows[placed] = bow / this.columns;
+			this.bowColumns[placed] = bow % this.columns;
+			// forbid every location touching the new ship
+			addHalo(placed);
+			placed++;
+		}
+		return this.attempts;
+	}
+
+	/**
+	 * Returns true if a ship of the given length could be placed at the given
+	 * location, given the ships placed so far (a single bit test)
+	 *
+	 * @param length
+	 * @param row
+	 * @param column
+	 * @param horizontal
+	 * @return
+	 */
+	public boolean isLegal(int length, int row, int column, boolean horizontal) {
+		if (!this.masksBuilt) {
+			// check the location of the ship against the halo instead
+			return fits(length, row, column, horizontal);
+		}
+		int k = this.lengthSlots[length];
+		return horizontal ? this.legalHorizontal[k].get(row, column) : this.legalVertical[k].get(row, column);
+	}
+
+	/**
+	 * Tries a few random positions for the given ship, and keeps the first one
+	 * that fits
+	 *
+	 * @param ship the index of the ship in the fleet
+	 * @param rand
+	 * @return true if the ship was given a position
+	 */
+	private boolean drawDirectly(int ship, RandomGenerator rand) {
+		int length = this.lengths[ship];
+		// the number of positions inside the ocean in each orientation (so
+		// each orientation is chosen as often as it has positions, as when
+		// drawing from the masks)
+		int horizontalColumns = Math.max(0, this.columns - length + 1);
+		int horizontalPositions = this.rows * horizontalColumns;
+		int verticalPositions = Math.max(0, this.rows - length + 1) * this.columns;
+		if (horizontalPositions + verticalPositions == 0)
+			return false;
+		for (int t = 0; t < DIRECT_DRAWS; t++) {
+			int position = rand.nextInt(horizontalPositions + verticalPositions);
+			boolean horizontal = position < horizontalPositions;
+			int row;
+			int column;
+			if (horizontal) {
+				row = position / horizontalColumns;
+				column = position % horizontalColumns;
+			} else {
+				position -= horizontalPositions;
+				row = position / this.columns;
+				column = position % this.columns;
+			}
+			if (fits(length, row, column, horizontal)) {
+				this.bowRows[ship] = row;
+				this.bowColumns[ship] = column;
+				this.horizontals[ship] = horizontal;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a ship of the given length at the given location would be
+	 * inside the ocean and outside the halo of every ship placed so far
+	 *
+	 * @param length
+	 * @param row
+	 * @param column
+	 * @param horizontal
+	 * @return
+	 */
+	private boolean fits(int length, int row, int column, boolean horizontal) {
+		// check if any part of the ship will stick out beyond the ocean
+		if (horizontal ? column + length > this.columns : row + length > this.rows)
+			return false;
+		for (int d = 0; d < length; d++) {
+			if (horizontal ? this.halo.get(row, column + d) : this.halo.get(row + d, column))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Resets the halo (and the masks, if they are in use) so that only the first
+	 * given number of ships are placed
+	 *
+	 * @param placed
+	 */
+	private void reset(int placed) {
+		if (this.masksBuilt) {
+			if (this.inBoundsHorizontal == null) {
+				computeInBounds();
+			}
+			for (int k = 0; k < this.distinctLengths.length; k++) {
+				this.legalHorizontal[k].copyFrom(this.inBoundsHorizontal[k]);
+				this.legalVertical[k].copyFrom(this.inBoundsVertical[k]);
+			}
+		}
+		this.halo.clear();
+		for (int i = 0; i < placed; i++) {
+			addHalo(i);
+		}
+	}
+
+	/**
+	 * Computes the in-bounds bows for every distinct length
+	 */
+	private void computeInBounds() {
+		int slots = this.distinctLengths.length;
+		this.inBoundsHorizontal = new BitBoard[slots];
+		this.inBoundsVertical = new BitBoard[slots];
+		for (int k = 0; k < slots; k++) {
+			int length = this.distinctLengths[k];
+			this.inBoundsHorizontal[k] = new BitBoard(this.rows, this.columns);
+			this.inBoundsVertical[k] = new BitBoard(this.rows, this.columns);
+			for (int i = 0; i < this.rows; i++) {
+				for (int j = 0; j < this.columns; j++) {
+					// the ship must not stick out beyond the right edge
+					if (j + length <= this.columns)
+						this.inBoundsHorizontal[k].set(i, j);
+					// the ship must not stick out beyond the bottom edge
+					if (i + length <= this.rows)
+						this.inBoundsVertical[k].set(i, j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Marks the halo of the given ship as forbidden and clears every bow that
+	 * would put a ship inside it
+	 *
+	 * @param ship the index of the ship in the fleet
+	 */
+	private void addHalo(int ship) {
+		int length = this.lengths[ship];
+		int lastRow = this.bowRows[ship] + (this.horizontals[ship] ? 0 : length - 1);
+		int lastColumn = this.bowColumns[ship] + (this.horizontals[ship] ? length - 1 : 0);
+		// visit the ship and every location around it (inside the ocean)
+		for (int i = Math.max(0, this.bowRows[ship] - 1); i <= Math.min(this.rows - 1, lastRow + 1); i++) {
+			for (int j = Math.max(0, this.bowColumns[ship] - 1); j <= Math.min(this.columns - 1,
+					lastColumn + 1); j++) {
+				// skip locations that are already forbidden
+				if (this.halo.get(i, j))
+					continue;
+				this.halo.set(i, j);
+				// the masks are rebuilt from the halo when they are needed
+				if (!this.masksBuilt)
+					continue;
+				for (int k = 0; k < this.distinctLengths.length; k++) {
+					// clear the bows of every ship that would cover (i, j)
+					for (int d = 0; d < this.distinctLengths[k]; d++) {
+						if (j - d >= 0)
+							this.legalHorizontal[k].clear(this.halo.index(i, j - d));
+						if (i - d >= 0)
+							this.legalVertical[k].clear(this.halo.index(i - d, j));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of placement attempts used by the last call to place()
+	 *
+	 * @return
+	 */
+	public int getAttempts() {
+		return this.attempts;
+	}
+
+	/**
+	 * Returns the row of the bow of the given ship
+	 *
+	 * @param ship the index of the ship in the fleet
+	 * @return
+	 */
+	public int getBowRow(int ship) {
+		return this.bowRows[ship];
+	}
+
+	/**
+	 * Returns the column of the bow of the given ship
+	 *
+	 * @param ship the index of the ship in the fleet
+	 * @return
+	 */
+	public int getBowColumn(int ship) {
+		return this.bowColumns[ship];
+	}
+
+	/**
+	 * Returns true if the given ship is horizontal
+	 *
+	 * @param ship the index of the ship in the fleet
+	 * @return
+	 */
+	public boolean isHorizontal(int ship) {
+		return this.horizontals[ship];
+	}
+}
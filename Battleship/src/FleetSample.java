@@ -0,0 +1,198 @@
+/**
+ * The fleets drawn by a FleetSampler: how likely each location is to hold a
+ * ship, and how much the estimate can be trusted
+ *
+ */
+public class FleetSample {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of rows and columns in the ocean
+	private final int rows;
+	private final int columns;
+	// occupied[cell] is the total weight of the fleets kept that have a ship at
+	// the given location
+	private final double[] occupied;
+	// the total weight of the fleets kept, and of the squares of their weights
+	private double weights;
+	private double squares;
+	// the number of fleets kept and rejected
+	private long accepted;
+	private long rejected;
+	// the wall-clock time taken to draw the fleets, in nanoseconds
+	private long elapsedNanos;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an empty FleetSample
+	 *
+	 * @param rows
+	 * @param columns
+	 */
+	public FleetSample(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		this.occupied = new double[rows * columns];
+	}
+
+	/**
+	 * Records a fleet that is consistent with what has been seen
+	 *
+	 * @param fleet  the locations of the fleet (a board the size of the ocean)
+	 * @param weight
+	 */
+	public void accept(BitBoard fleet, double weight) {
+		for (int w = 0; w < fleet.getWordCount(); w++) {
+			long word = fleet.getWord(w);
+			while (word != 0) {
+				this.occupied[(w << 6) + Long.numberOfTrailingZeros(word)] += weight;
+				// clear the lowest bit that is set
+				word &= word - 1;
+			}
+		}
+		this.weights += weight;
+		this.squares += weight * weight;
+		this.accepted++;
+	}
+
+	/**
+	 * Records a fleet that had to be rejected
+	 */
+	public void reject() {
+		this.rejected++;
+	}
+
+	/**
+	 * Adds the fleets recorded in another sample to this one
+	 *
+	 * @param other
+	 */
+	public void merge(FleetSample other) {
+		for (int i = 0; i < this.occupied.length; i++) {
+			this.occupied[i] += other.occupied[i];
+		}
+		this.weights += other.weights;
+		this.squares += other.squares;
+		this.accepted += other.accepted;
+		this.rejected += other.rejected;
+	}
+
+	/**
+	 * Returns the number of equally weighted samples that would give an estimate
+	 * as precise as the given weighted ones (Kish's effective sample size)
+	 *
+	 * @param weights the total of the weights
+	 * @param squares the total of the squares of the weights
+	 * @return
+	 */
+	static double effectiveSamples(double weights, double squares) {
+		return squares == 0 ? 0 : weights * weights / squares;
+	}
+
+	/**
+	 * Returns the estimated probability that the given location holds a ship
+	 * (0 if no fleet was kept)
+	 *
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public double getProbability(int row, int column) {
+		return this.weights == 0 ? 0 : this.occupied[row * this.columns + column] / this.weights;
+	}
+
+	/**
+	 * Returns the location not fired upon in the given ocean that is most likely
+	 * to hold a ship, as row * columns + column (-1 if there is none)
+	 *
+	 * @param ocean
+	 * @return
+	 */
+	public int getMostLikely(Ocean ocean) {
+		int best = -1;
+		for (int cell = 0; cell < this.occupied.length; cell++) {
+			if (ocean.getSymbol(cell / this.columns, cell % this.columns) == '.'
+					&& (best < 0 || this.occupied[cell] > this.occupied[best])) {
+				best = cell;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the number of fleets kept
+	 *
+	 * @return
+	 */
+	public long getAccepted() {
+		return this.accepted;
+	}
+
+	/**
+	 * Returns the number of fleets rejected (because they did not match a hit,
+	 * or ran out of room)
+	 *
+	 * @return
+	 */
+	public long getRejected() {
+		return this.rejected;
+	}
+
+	/**
+	 * Returns the effective number of fleets kept, allowing for their weights
+	 *
+	 * @return
+	 */
+	public double getEffectiveSamples() {
+		return effectiveSamples(this.weights, this.squares);
+	}
+
+	/**
+	 * Returns the largest standard error of any location's probability
+	 *
+	 * @return
+	 */
+	public double getStandardError() {
+		double samples = getEffectiveSamples();
+		return samples == 0 ? 1 : 0.5 / Math.sqrt(samples);
+	}
+
+	/**
+	 * Sets the wall-clock time taken to draw the fleets
+	 *
+	 * @param elapsedNanos
+	 */
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Returns the wall-clock time taken to draw the fleets, in nanoseconds
+	 *
+	 * @return
+	 */
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * Returns the probabilities (in percent) as a grid, followed by the numbers
+	 * of fleets drawn
+	 *
+	 * @return
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				sb.append(String.format("%4.0f", 100 * getProbability(i, j)));
+			}
+			sb.append(String.format("%n"));
+		}
+		sb.append(String.format("%d fleets kept, %d rejected, in %.2f s (%.0f effective, standard error %.3f)%n",
+				this.accepted, this.rejected, this.elapsedNanos / 1e9, getEffectiveSamples(), getStandardError()));
+		return sb.toString();
+	}
+}
@@ -0,0 +1,486 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Draws complete fleets that are consistent with what a player has seen of an
+ * ocean (its misses, its hits on ships still afloat, and the ships it has
+ * sunk), and estimates from them how likely each location is to hold a ship
+ *
+ * Unlike counting the placements of each ship on its own (as the
+ * ProbabilityShooter does), every sample is a whole fleet that obeys the rules
+ * of Ship.okToPlaceShipAt() (no ship overlaps or touches another), so the
+ * estimate accounts for the ships crowding each other out.
+ *
+ * Each sample places the sunken ships where they were seen, then covers the
+ * hits: while a hit is not covered, it chooses uniformly among every ship
+ * still to be placed and every position of that ship through the first such
+ * hit. Then it places every other ship, longest first, at one of the positions
+ * left open to it, chosen uniformly. A position is only open if the fleet could
+ * still match what has been seen: it covers no miss, is not hit everywhere (the
+ * ship would have been sunk), and does not touch a hit without covering it (no
+ * other ship could cover that hit then). So every hit ends up covered, and a
+ * sample is only rejected if some ship is left with no room at all. Positions
+ * chosen that way favour fleets that had fewer choices, so each sample is
+ * weighted by the product of the numbers of choices it had; since every fleet
+ * can only be drawn by one sequence of choices, the weighted estimate treats
+ * every consistent fleet as equally likely.
+ *
+ * The samples are drawn on several threads, each with its own random stream
+ * split from the caller's. Sampling stops when the estimate is precise
+ * enough, when the time budget is used up, or after the given number of
+ * samples, whichever comes first. Since the threads stop when they see one of
+ * those, the exact number of samples drawn varies from run to run.
+ *
+ */
+public class FleetSampler {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of samples a worker draws between two looks at the others
+	private static final int BLOCK = 64;
+
+	// the size of the ocean and the makeup of the fleet
+	private final GameConfig config;
+	// the pool that draws the samples
+	private final ForkJoinPool pool;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a FleetSampler that uses the given number of threads
+	 *
+	 * @param config
+	 * @param threads
+	 */
+	public FleetSampler(GameConfig config, int threads) {
+		this.config = config;
+		this.pool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Draws fleets consistent with what has been seen of the given ocean
+	 *
+	 * @param ocean       the ocean, as the player has seen it (its symbols and
+	 *                    its sunken ships are all that is used)
+	 * @param random      the stream that the workers' streams are split from
+	 * @param maxSamples  the largest number of samples to draw (kept or not)
+	 * @param budgetNanos the longest time to spend drawing them
+	 * @param tolerance   stop once no probability can be off by more than this
+	 *                    (one standard error), or 0 to never stop early
+	 * @return
+	 */
+	public FleetSample sample(Ocean ocean, SplittableRandom random, long maxSamples, long budgetNanos,
+			double tolerance) {
+		Observation seen = new Observation(ocean);
+		// the standard error of a probability is at most 1 / (2 sqrt(n)) for n
+		// equally weighted samples
+		double targetSamples = tolerance > 0 ? 1 / (4 * tolerance * tolerance) : Double.POSITIVE_INFINITY;
+		Progress progress = new Progress(maxSamples, System.nanoTime() + budgetNanos, targetSamples);
+		List<Worker> workers = new ArrayList<>();
+		for (int i = 0; i < this.pool.getParallelism(); i++) {
+			// split on this thread, so every worker's stream is known up front
+			workers.add(new Worker(seen, random.split(), progress));
+		}
+		long start = System.nanoTime();
+		FleetSample result = this.pool.submit(() -> {
+			FleetSample total = new FleetSample(this.config.getRows(), this.config.getColumns());
+			for (Worker worker : RecursiveTask.invokeAll(workers)) {
+				total.merge(worker.join());
+			}
+			return total;
+		}).join();
+		result.setElapsedNanos(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * Stops the threads of the pool
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * What a player has seen of an ocean, read once before the workers start
+	 */
+	private class Observation {
+
+		// the symbol of every location (see Ocean.getSymbol())
+		final char[] symbols;
+		// the sunken ships, as fleet indices and positions
+		final List<int[]> sunk = new ArrayList<>();
+		// the fleet indices of the ships still afloat, longest first
+		final int[] afloat;
+		// the locations that have been hit on ships still afloat, in order
+		final int[] hits;
+		// fits[length][(row * columns + column) * 2 + (1 if horizontal)] is true
+		// if a ship of the given length at the given position is inside the
+		// ocean and consistent with what has been seen (see fitsObservation())
+		final boolean[][] fits;
+
+		Observation(Ocean ocean) {
+			int rows = config.getRows();
+			int columns = config.getColumns();
+			this.symbols = new char[rows * columns];
+			boolean[] fleetIndexUsed = new boolean[config.getFleetSize()];
+			boolean[] counted = new boolean[rows * columns];
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					this.symbols[i * columns + j] = ocean.getSymbol(i, j);
+					if (this.symbols[i * columns + j] != 'x' || counted[i * columns + j]) {
+						continue;
+					}
+					// a sunken ship not met before: the player knows where
+					// it is, so it can be put back exactly
+					Ship ship = ocean.getShipAt(i, j);
+					for (int k = 0; k < ship.getLength(); k++) {
+						int row = ship.getBowRow() + (ship.isHorizontal() ? 0 : k);
+						int column = ship.getBowColumn() + (ship.isHorizontal() ? k : 0);
+						counted[row * columns + column] = true;
+					}
+					// give it the first fleet index of its length still free
+					int index = 0;
+					while (fleetIndexUsed[index] || config.getShipLength(index) != ship.getLength()) {
+						index++;
+					}
+					fleetIndexUsed[index] = true;
+					this.sunk.add(new int[] { index, ship.getBowRow(), ship.getBowColumn(),
+							ship.isHorizontal() ? 1 : 0 });
+				}
+			}
+			this.afloat = new int[config.getFleetSize() - this.sunk.size()];
+			int n = 0;
+			for (int index = 0; index < fleetIndexUsed.length; index++) {
+				if (!fleetIndexUsed[index]) {
+					this.afloat[n++] = index;
+				}
+			}
+			n = 0;
+			for (char symbol : this.symbols) {
+				n += symbol == 'S' ? 1 : 0;
+			}
+			this.hits = new int[n];
+			n = 0;
+			for (int cell = 0; cell < this.symbols.length; cell++) {
+				if (this.symbols[cell] == 'S') {
+					this.hits[n++] = cell;
+				}
+			}
+			// check every position of every length afloat against what has been
+			// seen once, rather than for every sample
+			this.fits = new boolean[config.getShipLength(0) + 1][];
+			for (int index : this.afloat) {
+				int length = config.getShipLength(index);
+				if (this.fits[length] != null)
+					continue;
+				this.fits[length] = new boolean[2 * rows * columns];
+				for (int h = 0; h < 2; h++) {
+					boolean horizontal = h == 1;
+					int lastRow = horizontal ? rows - 1 : rows - length;
+					int lastColumn = horizontal ? columns - length : columns - 1;
+					for (int i = 0; i <= lastRow; i++) {
+						for (int j = 0; j <= lastColumn; j++) {
+							this.fits[length][(i * columns + j) * 2 + h] = fitsObservation(i, j, length, horizontal);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns true if a ship at the given position would be consistent with
+		 * what has been seen: it covers no miss, it has not been hit everywhere,
+		 * and no location next to it (diagonally or not) has been hit
+		 *
+		 * @param row
+		 * @param column
+		 * @param length
+		 * @param horizontal
+		 * @return
+		 */
+		private boolean fitsObservation(int row, int column, int length, boolean horizontal) {
+			int rows = config.getRows();
+			int columns = config.getColumns();
+			int lastRow = row + (horizontal ? 0 : length - 1);
+			int lastColumn = column + (horizontal ? length - 1 : 0);
+			boolean allHit = true;
+			for (int i = Math.max(0, row - 1); i <= Math.min(rows - 1, lastRow + 1); i++) {
+				for (int j = Math.max(0, column - 1); j <= Math.min(columns - 1, lastColumn + 1); j++) {
+					char symbol = this.symbols[i * columns + j];
+					boolean covered = i >= row && i <= lastRow && j >= column && j <= lastColumn;
+					if (covered) {
+						if (symbol == '-') {
+							return false;
+						}
+						allHit &= symbol == 'S';
+					} else if (symbol == 'S') {
+						return false;
+					}
+				}
+			}
+			return !allHit;
+		}
+	}
+
+	/**
+	 * The state shared by the workers, to know when to stop
+	 */
+	private static class Progress {
+
+		// the number of samples claimed by the workers so far
+		final LongAdder drawn = new LongAdder();
+		// the total of the weights of the samples kept, and of their squares
+		final DoubleAdder weights = new DoubleAdder();
+		final DoubleAdder squares = new DoubleAdder();
+		// the limits
+		final long maxSamples;
+		final long deadline;
+		final double targetSamples;
+
+		Progress(long maxSamples, long deadline, double targetSamples) {
+			this.maxSamples = maxSamples;
+			this.deadline = deadline;
+			this.targetSamples = targetSamples;
+		}
+
+		/**
+		 * Returns true once any of the limits has been reached
+		 *
+		 * @return
+		 */
+		boolean isDone() {
+			if (this.drawn.sum() >= this.maxSamples || System.nanoTime() - this.deadline >= 0) {
+				return true;
+			}
+			double squares = this.squares.sum();
+			return squares > 0 && FleetSample.effectiveSamples(this.weights.sum(), squares) >= this.targetSamples;
+		}
+	}
+
+	/**
+	 * One thread's share of the samples
+	 */
+	private class Worker extends RecursiveTask<FleetSample> {
+
+		private static final long serialVersionUID = 1L;
+
+		// what has been seen of the ocean
+		private final Observation seen;
+		// this worker's own random stream
+		private final SplittableRandom random;
+		// when to stop
+		private final Progress progress;
+		// the locations of the fleet being drawn, and those and their
+		// neighbours, where no other ship may go (reused by every sample)
+		private final BitBoard occupied;
+		private final BitBoard halo;
+		// placed[s] is true once the ship afloat[s] has been placed
+		private final boolean[] placed;
+		// scratch arrays of the choices open to the fleet: the positions, as
+		// (row * columns + column) * 2 + (1 if horizontal), and the ships
+		private final int[] options;
+		private final int[] optionShips;
+
+		Worker(Observation seen, SplittableRandom random, Progress progress) {
+			this.seen = seen;
+			this.random = random;
+			this.progress = progress;
+			this.occupied = new BitBoard(config.getRows(), config.getColumns());
+			this.halo = new BitBoard(config.getRows(), config.getColumns());
+			this.placed = new boolean[seen.afloat.length];
+			// (every position of one ship, or every ship through one hit)
+			int choices = Math.max(2 * config.getRows() * config.getColumns(),
+					2 * seen.afloat.length * config.getShipLength(0));
+			this.options = new int[choices];
+			this.optionShips = new int[choices];
+		}
+
+		@Override
+		protected FleetSample compute() {
+			FleetSample result = new FleetSample(config.getRows(), config.getColumns());
+			while (!this.progress.isDone()) {
+				this.progress.drawn.add(BLOCK);
+				double weights = 0;
+				double squares = 0;
+				for (int n = 0; n < BLOCK; n++) {
+					double weight = drawOne(result);
+					weights += weight;
+					squares += weight * weight;
+				}
+				this.progress.weights.add(weights);
+				this.progress.squares.add(squares);
+			}
+			return result;
+		}
+
+		/**
+		 * Draws one fleet and records it in the result if it is consistent with
+		 * what has been seen
+		 *
+		 * @param result
+		 * @return the weight of the fleet (0 if it was rejected)
+		 */
+		private double drawOne(FleetSample result) {
+			int columns = config.getColumns();
+			Observation seen = this.seen;
+			this.occupied.clear();
+			this.halo.clear();
+			// put the sunken ships back where they were
+			for (int[] sunk : seen.sunk) {
+				place(config.getShipLength(sunk[0]), (sunk[1] * columns + sunk[2]) * 2 + sunk[3]);
+			}
+			Arrays.fill(this.placed, false);
+			double weight = 1;
+			// cover the hits first: any ship still to be placed, in any position
+			// through the first hit that is not covered yet
+			for (int hit : seen.hits) {
+				if (this.occupied.get(hit))
+					continue;
+				int hitRow = hit / columns;
+				int hitColumn = hit % columns;
+				int count = 0;
+				for (int s = 0; s < seen.afloat.length; s++) {
+					if (this.placed[s])
+						continue;
+					int length = config.getShipLength(seen.afloat[s]);
+					for (int h = 0; h < 2; h++) {
+						// the positions with the hit as part d
+						for (int d = 0; d < length; d++) {
+							int row = h == 1 ? hitRow : hitRow - d;
+							int column = h == 1 ? hitColumn - d : hitColumn;
+							if (row < 0 || column < 0)
+								break;
+							int option = (row * columns + column) * 2 + h;
+							if (seen.fits[length][option] && isClear(length, option)) {
+								this.options[count] = option;
+								this.optionShips[count] = s;
+								count++;
+							}
+						}
+					}
+				}
+				if (!choose(count, result))
+					return 0;
+				weight *= count;
+			}
+			// then every other ship, longest first, anywhere it fits
+			for (int s = 0; s < seen.afloat.length; s++) {
+				if (this.placed[s])
+					continue;
+				int length = config.getShipLength(seen.afloat[s]);
+				boolean[] fits = seen.fits[length];
+				int count = 0;
+				for (int option = 0; option < fits.length; option++) {
+					if (fits[option] && isClear(length, option)) {
+						this.options[count] = option;
+						this.optionShips[count] = s;
+						count++;
+					}
+				}
+				if (!choose(count, result))
+					return 0;
+				weight *= count;
+			}
+			result.accept(this.occupied, weight);
+			return weight;
+		}
+
+		/**
+		 * Places one of the given number of choices, chosen uniformly, or
+		 * rejects the sample if there are none
+		 *
+		 * @param count
+		 * @param result
+		 * @return false if the sample was rejected
+		 */
+		private boolean choose(int count, FleetSample result) {
+			if (count == 0) {
+				// the earlier ships left no room for this one
+				result.reject();
+				return false;
+			}
+			int choice = this.random.nextInt(count);
+			int s = this.optionShips[choice];
+			place(config.getShipLength(this.seen.afloat[s]), this.options[choice]);
+			this.placed[s] = true;
+			return true;
+		}
+
+		/**
+		 * Returns true if a ship of the given length at the given position would
+		 * not touch any ship placed so far
+		 *
+		 * @param length
+		 * @param option the position, as (row * columns + column) * 2 + (1 if
+		 *               horizontal)
+		 * @return
+		 */
+		private boolean isClear(int length, int option) {
+			int bow = option >> 1;
+			int step = (option & 1) == 1 ? 1 : config.getColumns();
+			for (int d = 0; d < length; d++) {
+				if (this.halo.get(bow + d * step))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Places a ship of the given length at the given position (see isClear())
+		 *
+		 * @param length
+		 * @param option
+		 */
+		private void place(int length, int option) {
+			int rows = config.getRows();
+			int columns = config.getColumns();
+			int row = option / 2 / columns;
+			int column = option / 2 % columns;
+			boolean horizontal = (option & 1) == 1;
+			int lastRow = row + (horizontal ? 0 : length - 1);
+			int lastColumn = column + (horizontal ? length - 1 : 0);
+			for (int i = Math.max(0, row - 1); i <= Math.min(rows - 1, lastRow + 1); i++) {
+				for (int j = Math.max(0, column - 1); j <= Math.min(columns - 1, lastColumn + 1); j++) {
+					this.halo.set(i * columns + j);
+					if (i >= row && i <= lastRow && j >= column && j <= lastColumn) {
+						this.occupied.set(i * columns + j);
+					}
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		// the number of random shots fired before sampling (default: 30)
+		int shots = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+		// the number of threads to use (default: all available cores)
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		// the master seed (default: a new one every time)
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : GameRandom.randomSeed();
+		// the time budget, in milliseconds (default: 1 second)
+		long budget = args.length > 3 ? Long.parseLong(args[3]) : 1_000;
+		GameConfig config = GameConfig.standard();
+		// a random fleet, with some random shots fired at it
+		GameRandom random = new GameRandom(seed);
+		Ocean ocean = new Ocean(config);
+		ocean.placeAllShipsRandomly(random);
+		RandomShooter shooter = new RandomShooter();
+		shooter.newGame(config, random);
+		for (int i = 0; i < shots && !ocean.isGameOver(); i++) {
+			int cell = shooter.nextShot();
+			ocean.fire(cell / config.getColumns(), cell % config.getColumns());
+		}
+		ocean.print();
+		FleetSampler sampler = new FleetSampler(config, threads);
+		FleetSample sample = sampler.sample(ocean, new SplittableRandom(seed), Long.MAX_VALUE, budget * 1_000_000,
+				0.005);
+		sampler.shutdown();
+		System.out.printf("Seed %d, %d thread(s)%n%s", seed, threads, sample);
+	}
+}
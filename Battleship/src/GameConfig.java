@@ -0,0 +1,230 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The size of the ocean and the makeup of the fleet for a game of Battleship
+ *
+ * Instances are immutable, so one configuration can be shared by any number
+ * of oceans and games. (The only state is a FleetPlacer for each thread that
+ * places fleets of this configuration, which is reused from game to game.)
+ *
+ */
+public class GameConfig {
+
+	/* INSTANCE VARIABLES */
+
+	// the classic game: a 10x10 ocean with 1 battleship, 2 cruisers,
+	// 3 destroyers and 4 submarines
+	private static final GameConfig STANDARD = new GameConfig(10, 10, new int[] { 4, 3, 2, 1 },
+			new int[] { 1, 2, 3, 4 });
+
+	// the number of rows in the ocean
+	private final int rows;
+	// the number of columns in the ocean
+	private final int columns;
+	// the length of every ship in the fleet, longest first
+	private final int[] shipLengths;
+	// the total number of locations occupied by the fleet
+	private final int fleetCells;
+	// the placer used by Ocean.placeAllShipsRandomly() on each thread
+	private final ThreadLocal<FleetPlacer> placers;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a GameConfig
+	 *
+	 * @param rows    the number of rows in the ocean
+	 * @param columns the number of columns in the ocean
+	 * @param lengths the different ship lengths in the fleet
+	 * @param counts  the number of ships of each length
+	 * @throws IllegalArgumentException if the ocean or the fleet is invalid
+	 */
+	public GameConfig(int rows, int columns, int[] lengths, int[] counts) {
+		if (rows < 1 || columns < 1 || (long) rows * columns > Integer.MAX_VALUE / 2) {
+			throw new IllegalArgumentException("Invalid ocean size: " + rows + "x" + columns);
+		}
+		if (lengths.length != counts.length) {
+			throw new IllegalArgumentException("Every ship length needs a count");
+		}
+		this.rows = rows;
+		this.columns = columns;
+		// count the ships in the fleet
+		int fleetSize = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			if (lengths[i] < 1 || lengths[i] > Math.max(rows, columns)) {
+				throw new IllegalArgumentException("Invalid ship length: " + lengths[i]);
+			}
+			if (counts[i] < 0) {
+				throw new IllegalArgumentException("Invalid ship count: " + counts[i]);
+			}
+			fleetSize += counts[i];
+		}
+		if (fleetSize == 0) {
+			throw new IllegalArgumentException("The fleet must have at least one ship");
+		}
+		// list the length of every ship in the fleet
+		this.shipLengths = new int[fleetSize];
+		int ship = 0;
+		int cells = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			for (int j = 0; j < counts[i]; j++) {
+				this.shipLengths[ship++] = lengths[i];
+				cells += lengths[i];
+			}
+		}
+		// longest ships first, since they are the hardest to place
+		Arrays.sort(this.shipLengths);
+		for (int i = 0; i < fleetSize / 2; i++) {
+			int temp = this.shipLengths[i];
+			this.shipLengths[i] = this.shipLengths[fleetSize - 1 - i];
+			this.shipLengths[fleetSize - 1 - i] = temp;
+		}
+		this.fleetCells = cells;
+		this.placers = ThreadLocal.withInitial(() -> new FleetPlacer(rows, columns, this.shipLengths));
+	}
+
+	/**
+	 * Returns the configuration of the classic 10x10 game
+	 *
+	 * @return
+	 */
+	public static GameConfig standard() {
+		return STANDARD;
+	}
+
+	/**
+	 * Creates a new (unplaced) ship for the given position in the fleet
+	 *
+	 * @param ship the index of the ship in the fleet
+	 * @return
+	 */
+	public Ship createShip(int ship) {
+		switch (this.shipLengths[ship]) {
+		case 4:
+			return new Battleship();
+		case 3:
+			return new Cruiser();
+		case 2:
+			return new Destroyer();
+		case 1:
+			return new Submarine();
+		default:
+			return new Warship(this.shipLengths[ship]);
+		}
+	}
+
+	/**
+	 * Returns the number of rows in the ocean
+	 *
+	 * @return
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Returns the number of columns in the ocean
+	 *
+	 * @return
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Returns the number of ships in the fleet
+	 *
+	 * @return
+	 */
+	public int getFleetSize() {
+		return this.shipLengths.length;
+	}
+
+	/**
+	 * Returns the length of the given ship in the fleet
+	 *
+	 * @param ship the index of the ship in the fleet
+	 * @return
+	 */
+	public int getShipLength(int ship) {
+		return this.shipLengths[ship];
+	}
+
+	/**
+	 * Returns the length of every ship in the fleet, longest first
+	 *
+	 * @return
+	 */
+	public int[] getShipLengths() {
+		return this.shipLengths.clone();
+	}
+
+	/**
+	 * Returns the FleetPlacer for this configuration belonging to the current
+	 * thread (so that placing a fleet does not build a new placer every time)
+	 *
+	 * @return
+	 */
+	FleetPlacer getPlacer() {
+		return this.placers.get();
+	}
+
+	/**
+	 * Returns the total number of locations occupied by the fleet
+	 *
+	 * @return
+	 */
+	public int getFleetCells() {
+		return this.fleetCells;
+	}
+
+	/**
+	 * Returns the number of bytes written by writeTo() for a fleet of the given
+	 * size
+	 *
+	 * @param fleetSize
+	 * @return
+	 */
+	public static int encodedSize(int fleetSize) {
+		// rows, columns, fleet size, then the length of every ship
+		return 12 + 4 * fleetSize;
+	}
+
+	/**
+	 * Writes this configuration at the buffer's position (for the headers of
+	 * saved games and journals)
+	 *
+	 * @param buffer
+	 */
+	public void writeTo(ByteBuffer buffer) {
+		buffer.putInt(this.rows).putInt(this.columns).putInt(this.shipLengths.length);
+		for (int length : this.shipLengths) {
+			buffer.putInt(length);
+		}
+	}
+
+	/**
+	 * Reads a configuration written by writeTo() at the buffer's position
+	 *
+	 * @param buffer
+	 * @return
+	 * @throws IllegalArgumentException if the configuration is invalid
+	 */
+	public static GameConfig readFrom(ByteBuffer buffer) {
+		int rows = buffer.getInt();
+		int columns = buffer.getInt();
+		int fleetSize = buffer.getInt();
+		if (fleetSize < 1 || fleetSize > buffer.remaining() / 4) {
+			throw new IllegalArgumentException("Invalid fleet size: " + fleetSize);
+		}
+		// each ship is listed on its own, so every count is 1
+		int[] lengths = new int[fleetSize];
+		for (int i = 0; i < fleetSize; i++) {
+			lengths[i] = buffer.getInt();
+		}
+		int[] counts = new int[fleetSize];
+		Arrays.fill(counts, 1);
+		return new GameConfig(rows, columns, lengths, counts);
+	}
+}
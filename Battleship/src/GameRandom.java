@@ -0,0 +1,105 @@
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A random stream for simulated games, derived from a master seed and the
+ * number of the game, so that any game of a run can be played again exactly
+ * (on any thread, and whatever the number of threads)
+ *
+ * Each worker keeps one GameRandom and calls startGame() before each game,
+ * which resets it to the start of that game's stream; no object is created per
+ * game. The streams are SplitMix64 (the generator behind SplittableRandom),
+ * each starting at a well-mixed function of the master seed and the game, so
+ * the streams of different games are independent for all practical purposes.
+ * A GameRandom must only be used by one thread at a time.
+ *
+ */
+public class GameRandom implements RandomGenerator {
+
+	/* INSTANCE VARIABLES */
+
+	// the odd constant that SplitMix64 adds to its state for every number
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	// the seed that every game's stream is derived from
+	private final long masterSeed;
+	// the game whose stream this is
+	private long game;
+	// the state of the stream
+	private long state;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a GameRandom with the given master seed (positioned at the
+	 * start of game 0)
+	 *
+	 * @param masterSeed
+	 */
+	public GameRandom(long masterSeed) {
+		this.masterSeed = masterSeed;
+		startGame(0);
+	}
+
+	/**
+	 * Returns a master seed that is different every time
+	 *
+	 * @return
+	 */
+	public static long randomSeed() {
+		return new SplittableRandom().nextLong();
+	}
+
+	/**
+	 * Resets the stream to the start of the given game
+	 *
+	 * @param game
+	 * @return this GameRandom
+	 */
+	public GameRandom startGame(long game) {
+		this.game = game;
+		this.state = mix(this.masterSeed ^ mix(game + GOLDEN_GAMMA));
+		return this;
+	}
+
+	/**
+	 * Returns the master seed
+	 *
+	 * @return
+	 */
+	public long getMasterSeed() {
+		return this.masterSeed;
+	}
+
+	/**
+	 * Returns the game whose stream this is
+	 *
+	 * @return
+	 */
+	public long getGame() {
+		return this.game;
+	}
+
+	@Override
+	public long nextLong() {
+		this.state += GOLDEN_GAMMA;
+		return mix(this.state);
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	/**
+	 * Scrambles the bits of a number (the finalizer of SplitMix64)
+	 *
+	 * @param z
+	 * @return
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,279 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The state of one player's games of Battleship: the current ocean, the results
+ * of the player's last volley, and their scores (kept in a Leaderboard)
+ *
+ * A GameSession does no input or output of its own. BattleshipGame drives one
+ * from the console and BattleshipServer drives one per connection, so the rules
+ * of the game live in one place. It listens to its ocean, so it learns which
+ * ship each shot sank, and when the game is over, as the shot is fired.
+ *
+ */
+public class GameSession implements OceanListener {
+
+	/* INSTANCE VARIABLES */
+
+	// results of a shot (see Ocean.fire())
+	public static final int MISS = Ocean.MISS;
+	public static final int HIT = Ocean.HIT;
+	public static final int SUNK = Ocean.SUNK;
+	public static final int REPEAT = Ocean.REPEAT;
+	// the name of a player who has not given one
+	public static final String DEFAULT_PLAYER = "player";
+
+	// the size of the ocean and the makeup of the fleet
+	final GameConfig config;
+	// reads the coordinates entered by the player
+	final CoordinateParser parser;
+	// the ocean of the current game
+	private Ocean ocean;
+	// the results of the shots in the last volley (the locations are kept by
+	// the parser)
+	private int[] results = new int[8];
+	// the ships sunk by the shots in the last volley (null for a shot that
+	// sank none)
+	private Ship[] sunkShips = new Ship[8];
+	// the ship sunk by the shot being fired, if any
+	private Ship sunk;
+	// the number of shots fired in the last volley
+	private int volleySize;
+	// keeps the player's scores (created when the first game is finished, if
+	// none was given)
+	private Leaderboard leaderboard;
+	// the name the player's scores are kept under
+	private String player = DEFAULT_PLAYER;
+	// true if the last game finished broke the player's record
+	private boolean newRecord;
+	// records every game and shot, or null
+	private ShotJournal journal;
+	// the number of the current game in the journal
+	private int journalGame;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a GameSession with the given size and fleet
+	 *
+	 * @param config
+	 */
+	public GameSession(GameConfig config) {
+		this.config = config;
+		this.parser = new CoordinateParser(config.getRows(), config.getColumns());
+	}
+
+	/**
+	 * Records every game started from now on, and every shot fired in it, in the
+	 * given journal
+	 *
+	 * @param journal
+	 */
+	public void setJournal(ShotJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Keeps the scores of the games finished from now on in the given
+	 * leaderboard (which may be shared with other sessions)
+	 *
+	 * @param leaderboard
+	 */
+	public void setLeaderboard(Leaderboard leaderboard) {
+		this.leaderboard = leaderboard;
+	}
+
+	/**
+	 * Sets the name the player's scores are kept under
+	 *
+	 * @param player 1 to Leaderboard.MAX_NAME bytes of UTF-8
+	 * @throws IllegalArgumentException if the name is empty or too long
+	 */
+	public void setPlayer(String player) {
+		int length = player.getBytes(StandardCharsets.UTF_8).length;
+		if (length == 0 || length > Leaderboard.MAX_NAME) {
+			throw new IllegalArgumentException("A player's name must be 1 to " + Leaderboard.MAX_NAME
+					+ " bytes long: " + player);
+		}
+		this.player = player;
+	}
+
+	/**
+	 * Starts a new game, with the ships placed randomly
+	 */
+	public void newGame() {
+		this.ocean = new Ocean(this.config);
+		this.ocean.placeAllShipsRandomly();
+		this.ocean.addListener(this);
+		this.volleySize = 0;
+		this.newRecord = false;
+		if (this.journal != null) {
+			try {
+				this.journalGame = this.journal.startGame(this.ocean);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Fires at every location in the given input, in order, until the volley is
+	 * spent or the fleet is gone
+	 *
+	 * @param input one or more locations (see CoordinateParser)
+	 * @return the number of shots fired, or -1 if the input is not valid (in
+	 *         which case no shots are fired)
+	 */
+	public int fire(CharSequence input) {
+		int volley = this.parser.parse(input);
+		EngineMetrics.global().recordInput(volley >= 0);
+		if (volley < 0) {
+			return -1;
+		}
+		if (this.results.length < volley) {
+			this.results = new int[Math.max(volley, this.results.length * 2)];
+			this.sunkShips = new Ship[this.results.length];
+		}
+		int i = 0;
+		while (i < volley && !this.ocean.isGameOver()) {
+			int row = this.parser.getRow(i);
+			int column = this.parser.getColumn(i);
+			// fire at the location and record the result
+			this.sunk = null;
+			this.results[i] = this.ocean.fire(row, column);
+			this.sunkShips[i] = this.sunk;
+			if (this.journal != null) {
+				try {
+					this.journal.recordShot(this.journalGame, row, column, this.results[i]);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			i++;
+		}
+		this.volleySize = i;
+		return i;
+	}
+
+	@Override
+	public void onSunk(int row, int column, Ship ship) {
+		this.sunk = ship;
+	}
+
+	@Override
+	public void onGameOver(int shotsFired) {
+		// keep score once the fleet is gone
+		if (this.leaderboard == null) {
+			this.leaderboard = new Leaderboard();
+		}
+		this.newRecord = this.leaderboard.record(this.player, shotsFired);
+	}
+
+	/**
+	 * Returns the ocean of the current game
+	 *
+	 * @return
+	 */
+	public Ocean getOcean() {
+		return this.ocean;
+	}
+
+	/**
+	 * Returns true if every ship of the current game has been sunk
+	 *
+	 * @return
+	 */
+	public boolean isGameOver() {
+		return this.ocean.isGameOver();
+	}
+
+	/**
+	 * Returns the number of shots fired in the last volley
+	 *
+	 * @return
+	 */
+	public int getVolleySize() {
+		return this.volleySize;
+	}
+
+	/**
+	 * Returns the row of the given shot of the last volley
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getShotRow(int i) {
+		return this.parser.getRow(i);
+	}
+
+	/**
+	 * Returns the column of the given shot of the last volley
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getShotColumn(int i) {
+		return this.parser.getColumn(i);
+	}
+
+	/**
+	 * Returns the result (MISS, HIT, SUNK or REPEAT) of the given shot of the last
+	 * volley
+	 *
+	 * @param i
+	 * @return
+	 */
+	public int getShotResult(int i) {
+		return this.results[i];
+	}
+
+	/**
+	 * Returns the ship sunk by the given shot of the last volley, or null if it
+	 * sank none
+	 *
+	 * @param i
+	 * @return
+	 */
+	public Ship getSunkShip(int i) {
+		return this.sunkShips[i];
+	}
+
+	/**
+	 * Returns true if the last game finished broke the player's record
+	 *
+	 * @return
+	 */
+	public boolean isNewRecord() {
+		return this.newRecord;
+	}
+
+	/**
+	 * Returns the lowest number of shots of any game the player has finished
+	 * (Integer.MAX_VALUE if none has been finished)
+	 *
+	 * @return
+	 */
+	public int getLowestNumOfShots() {
+		return this.leaderboard == null ? Integer.MAX_VALUE : this.leaderboard.getBest(this.player);
+	}
+
+	/**
+	 * Returns the name the player's scores are kept under
+	 *
+	 * @return
+	 */
+	public String getPlayer() {
+		return this.player;
+	}
+
+	/**
+	 * Returns the leaderboard the player's scores are kept in, or null if no
+	 * game has been finished and none was given
+	 *
+	 * @return
+	 */
+	public Leaderboard getLeaderboard() {
+		return this.leaderboard;
+	}
+}
@@ -0,0 +1,151 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * A Shooter that hunts at random until it hits a ship, then targets the
+ * locations next to the hit until the ship is sunk
+ *
+ * Hunting picks a random location that has not been fired upon. After a hit,
+ * the four neighbours of the hit are queued as targets (the last ones queued
+ * are tried first, so the shooter keeps following a line of hits); once no ship
+ * is left damaged, the shooter goes back to hunting.
+ *
+ */
+public class HuntTargetShooter implements Shooter {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of rows and columns in the ocean
+	protected int rows;
+	protected int columns;
+	// true for every location that has been fired upon
+	protected boolean[] fired;
+	// the locations in a random order, for hunting
+	protected int[] order;
+	// the locations queued as targets (a stack)
+	private int[] targets;
+	private int targetCount;
+	// the number of hits on ships that are still afloat
+	private int openHits;
+	// the random stream for this game
+	protected RandomGenerator random;
+
+	/* METHODS */
+
+	@Override
+	public void newGame(GameConfig config, RandomGenerator random) {
+		this.rows = config.getRows();
+		this.columns = config.getColumns();
+		int size = this.rows * this.columns;
+		if (this.fired == null || this.fired.length != size) {
+			this.fired = new boolean[size];
+			this.order = new int[size];
+			// every location can be queued at most once for each of its
+			// 4 neighbours
+			this.targets = new int[4 * size];
+		}
+		Arrays.fill(this.fired, false);
+		// shuffle the locations (starting from the same order every game, so
+		// the shots depend only on the random stream)
+		for (int i = 0; i < size; i++) {
+			this.order[i] = i;
+		}
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int cell = this.order[i];
+			this.order[i] = this.order[j];
+			this.order[j] = cell;
+		}
+		this.targetCount = 0;
+		this.openHits = 0;
+		this.random = random;
+	}
+
+	@Override
+	public int nextShot() {
+		// finish off a damaged ship first
+		while (this.targetCount > 0) {
+			int cell = this.targets[--this.targetCount];
+			if (!this.fired[cell]) {
+				return markFired(cell);
+			}
+		}
+		return markFired(huntShot());
+	}
+
+	/**
+	 * Returns the location to fire at while no ship is known to be damaged
+	 *
+	 * @return a location that has not been fired upon
+	 */
+	protected int huntShot() {
+		for (int cell : this.order) {
+			if (!this.fired[cell]) {
+				return cell;
+			}
+		}
+		throw new IllegalStateException("Every location has been fired upon");
+	}
+
+	/**
+	 * Remembers that the given location has been fired upon, and returns it
+	 *
+	 * @param cell
+	 * @return
+	 */
+	private int markFired(int cell) {
+		this.fired[cell] = true;
+		return cell;
+	}
+
+	@Override
+	public void shotResult(int row, int column, boolean hit, Ship sunk) {
+		// the location may have come from somewhere else (such as a cache)
+		this.fired[row * this.columns + column] = true;
+		if (!hit) {
+			return;
+		}
+		if (sunk != null) {
+			// the other parts of the ship had already been hit
+			this.openHits -= sunk.getLength() - 1;
+			shipSunk(sunk);
+			if (this.openHits == 0) {
+				// nothing left to finish off
+				this.targetCount = 0;
+			}
+			return;
+		}
+		this.openHits++;
+		// queue the neighbours of the hit
+		queue(row - 1, column);
+		queue(row + 1, column);
+		queue(row, column - 1);
+		queue(row, column + 1);
+	}
+
+	/**
+	 * Called when a ship has been sunk (after the hit that sank it has been
+	 * counted)
+	 *
+	 * @param ship
+	 */
+	protected void shipSunk(Ship ship) {
+		// a plain hunter learns nothing more from it
+	}
+
+	/**
+	 * Queues the given location as a target, if it is inside the ocean and has
+	 * not been fired upon
+	 *
+	 * @param row
+	 * @param column
+	 */
+	private void queue(int row, int column) {
+		if (row < 0 || row >= this.rows || column < 0 || column >= this.columns)
+			return;
+		int cell = row * this.columns + column;
+		if (!this.fired[cell]) {
+			this.targets[this.targetCount++] = cell;
+		}
+	}
+}
@@ -0,0 +1,366 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a ShotJournal back: rebuilds any game at any shot, or replays every game
+ * in the journal and checks that each shot still has the result that was
+ * recorded
+ *
+ * The journal is memory-mapped and indexed once (where each game starts), so
+ * rebuilding a game only reads the records from its start onwards, and the
+ * games are played on BitboardOceans.
+ *
+ */
+public class JournalReplayer {
+
+	/* INSTANCE VARIABLES */
+
+	// the configuration of the games
+	private final GameConfig config;
+	// the format of the snapshot at the start of each game
+	private final OceanSnapshot format;
+	// the journal
+	private final ByteBuffer data;
+	// where each game starts (the offset of its START record)
+	private long[] gameStarts = new long[64];
+	// the number of games in the journal
+	private int gameCount;
+	// the end of the last complete record
+	private long validLength;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a JournalReplayer of the journal at the given path
+	 *
+	 * @param path
+	 * @throws IOException if the file is not a journal
+	 */
+	public JournalReplayer(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Journals over 2 GB are not supported: " + path);
+			}
+			this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (this.data.remaining() < 8 + GameConfig.encodedSize(0) || this.data.getInt() != ShotJournal.MAGIC) {
+			throw new IOException("Not a journal: " + path);
+		}
+		if (this.data.getInt() != ShotJournal.VERSION) {
+			throw new IOException("Unsupported journal version: " + path);
+		}
+		try {
+			this.config = GameConfig.readFrom(this.data);
+		} catch (RuntimeException e) {
+			throw new IOException("Corrupt journal header: " + path, e);
+		}
+		this.format = new OceanSnapshot(this.config);
+		index();
+	}
+
+	/**
+	 * Finds where each game starts, and where the last complete record ends
+	 */
+	private void index() {
+		int position = this.data.position();
+		int limit = this.data.limit();
+		while (true) {
+			this.validLength = position;
+			if (position == limit)
+				return;
+			long record = readNumber(position);
+			if (record < 0)
+				return;
+			int next = position + numberLength(position);
+			if ((record & 3) == ShotJournal.CONTROL) {
+				if (record >>> 2 == ShotJournal.START) {
+					if (limit - next < this.format.getSize())
+						return;
+					if (this.gameCount == this.gameStarts.length) {
+						this.gameStarts = Arrays.copyOf(this.gameStarts, this.gameCount * 2);
+					}
+					this.gameStarts[this.gameCount++] = position;
+					next += this.format.getSize();
+				} else {
+					if (readNumber(next) < 0)
+						return;
+					next += numberLength(next);
+				}
+			}
+			position = next;
+		}
+	}
+
+	/**
+	 * Returns the LEB128 number at the given position, or -1 if it was cut short
+	 *
+	 * @param position
+	 * @return
+	 */
+	private long readNumber(int position) {
+		long n = 0;
+		int shift = 0;
+		while (position < this.data.limit()) {
+			byte b = this.data.get(position++);
+			n |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return n;
+			shift += 7;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of bytes of the (complete) LEB128 number at the given
+	 * position
+	 *
+	 * @param position
+	 * @return
+	 */
+	private int numberLength(int position) {
+		int length = 1;
+		while (this.data.get(position++) < 0) {
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the configuration of the games in the journal
+	 *
+	 * @return
+	 */
+	public GameConfig getConfig() {
+		return this.config;
+	}
+
+	/**
+	 * Returns the number of games in the journal
+	 *
+	 * @return
+	 */
+	public int getGameCount() {
+		return this.gameCount;
+	}
+
+	/**
+	 * Returns the length of the journal up to the end of the last complete record
+	 * (anything after it was cut short by a crash)
+	 *
+	 * @return
+	 */
+	public long getValidLength() {
+		return this.validLength;
+	}
+
+	/**
+	 * Rebuilds the given game as it stands at the end of the journal
+	 *
+	 * @param game
+	 * @return
+	 */
+	public Ocean replay(int game) {
+		return replay(game, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Rebuilds the given game as it was after the given number of shots
+	 *
+	 * @param game
+	 * @param shots the number of shots (recorded in the journal) to replay
+	 * @return
+	 * @throws IllegalArgumentException if the journal has fewer shots for the game
+	 *                                  (unless shots is Integer.MAX_VALUE)
+	 * @throws IllegalStateException    if a shot no longer has the result that was
+	 *                                  recorded
+	 */
+	public Ocean replay(int game, int shots) {
+		if (game < 0 || game >= this.gameCount) {
+			throw new IndexOutOfBoundsException("No game " + game);
+		}
+		int position = (int) this.gameStarts[game];
+		position += numberLength(position);
+		Ocean ocean = this.format.decode(this.data, position);
+		position += this.format.getSize();
+		// the game the records belong to, and the number of the next game to start
+		int current = game;
+		int nextGame = game + 1;
+		int replayed = 0;
+		while (replayed < shots && position < this.validLength && !ocean.isGameOver()) {
+			long record = readNumber(position);
+			position += numberLength(position);
+			if ((record & 3) != ShotJournal.CONTROL) {
+				if (current == game) {
+					shoot(ocean, record >>> 2, (int) (record & 3), game);
+					replayed++;
+				}
+			} else if (record >>> 2 == ShotJournal.START) {
+				current = nextGame++;
+				position += this.format.getSize();
+			} else if (record >>> 2 == ShotJournal.REPEAT) {
+				long location = readNumber(position);
+				position += numberLength(position);
+				if (current == game) {
+					shoot(ocean, location, Ocean.REPEAT, game);
+					replayed++;
+				}
+			} else {
+				current = (int) readNumber(position);
+				position += numberLength(position);
+			}
+		}
+		if (replayed < shots && shots != Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Game " + game + " has only " + replayed + " shots");
+		}
+		return ocean;
+	}
+
+	/**
+	 * Fires the recorded shot and checks its result
+	 *
+	 * @param ocean
+	 * @param cell     the location (row * columns + column)
+	 * @param expected the result recorded
+	 * @param game
+	 * @throws IllegalStateException if the result differs from the one recorded
+	 */
+	private void shoot(Ocean ocean, long cell, int expected, int game) {
+		int row = (int) (cell / this.config.getColumns());
+		int column = (int) (cell % this.config.getColumns());
+		if (ocean.fire(row, column) != expected) {
+			throw new IllegalStateException(
+					"Game " + game + " diverges from the journal at (" + row + ", " + column + ")");
+		}
+	}
+
+	/**
+	 * Replays every game in the journal, checking the result of every shot
+	 *
+	 * @return
+	 */
+	public Summary replayAll() {
+		Summary summary = new Summary();
+		// the games that are still being played
+		Ocean[] oceans = new Ocean[this.gameCount];
+		int current = -1;
+		int nextGame = 0;
+		int position = (int) (this.gameCount > 0 ? this.gameStarts[0] : this.validLength);
+		while (position < this.validLength) {
+			long record = readNumber(position);
+			position += numberLength(position);
+			// the location fired upon and the result recorded, if this is a shot
+			long cell = -1;
+			int expected = 0;
+			if ((record & 3) != ShotJournal.CONTROL) {
+				cell = record >>> 2;
+				expected = (int) (record & 3);
+			} else if (record >>> 2 == ShotJournal.REPEAT) {
+				cell = readNumber(position);
+				position += numberLength(position);
+				expected = Ocean.REPEAT;
+			}
+			if (cell >= 0) {
+				Ocean ocean = current < 0 ? null : oceans[current];
+				if (ocean == null) {
+					// a shot at a game that is over (or was never started)
+					summary.mismatches++;
+					continue;
+				}
+				int row = (int) (cell / this.config.getColumns());
+				int column = (int) (cell % this.config.getColumns());
+				if (ocean.fire(row, column) != expected) {
+					summary.mismatches++;
+				}
+				summary.shots++;
+				if (ocean.isGameOver()) {
+					summary.finished++;
+					// the game is done with, so let it go
+					oceans[current] = null;
+				}
+			} else if (record >>> 2 == ShotJournal.START) {
+				current = nextGame++;
+				oceans[current] = this.format.decode(this.data, position);
+				position += this.format.getSize();
+				summary.games++;
+			} else {
+				current = (int) readNumber(position);
+				position += numberLength(position);
+				if (current >= this.gameCount) {
+					current = -1;
+				}
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * The totals of replayAll()
+	 */
+	public static class Summary {
+
+		// the number of games replayed
+		long games;
+		// the number of games played to the end
+		long finished;
+		// the number of shots replayed
+		long shots;
+		// the number of shots whose result differed from the one recorded
+		long mismatches;
+
+		/**
+		 * Returns the number of games replayed
+		 *
+		 * @return
+		 */
+		public long getGames() {
+			return this.games;
+		}
+
+		/**
+		 * Returns the number of games played to the end (every ship sunk)
+		 *
+		 * @return
+		 */
+		public long getFinished() {
+			return this.finished;
+		}
+
+		/**
+		 * Returns the number of shots replayed
+		 *
+		 * @return
+		 */
+		public long getShots() {
+			return this.shots;
+		}
+
+		/**
+		 * Returns the number of shots whose result differed from the one
+		 * recorded
+		 *
+		 * @return
+		 */
+		public long getMismatches() {
+			return this.mismatches;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%,d games (%,d finished), %,d shots, %,d mismatches", this.games, this.finished,
+					this.shots, this.mismatches);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		JournalReplayer replayer = new JournalReplayer(Paths.get(args[0]));
+		long start = System.nanoTime();
+		Summary summary = replayer.replayAll();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%s in %.2f s (%,.0f shots per second)%n", summary, seconds, summary.getShots() / seconds);
+	}
+}
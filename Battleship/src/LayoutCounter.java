@@ -0,0 +1,805 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Counts every legal layout of a fleet exactly (ships of the same length are
+ * interchangeable, and no two ships may touch, even diagonally, as in
+ * Ship.okToPlaceShipAt()), and how many of them cover each location
+ *
+ * Since ships never touch, a layout is just the set of locations its ships
+ * cover, so the counter decides the locations one at a time, row by row, and
+ * counts the ways of getting to each "profile" on the way: for every column,
+ * the location decided last (in this row if it has been decided, otherwise in
+ * the row above), and what it holds: empty sea, a ship that may still go on
+ * downwards (and how long it is so far), the end of a horizontal ship being
+ * laid (and how long it is so far), or part of a ship that is finished. With
+ * the ships of each length still to be laid and whether the location up and
+ * to the left holds a ship, that is all that decides which layouts can follow,
+ * so layouts that agree on it are counted together. The classic game has a
+ * few million profiles at a location, against almost 2 * 10^15 layouts
+ * (and, once counted, only 1.2 million that lead to any are kept).
+ *
+ * The profiles at each location are found forwards from the empty ocean, with
+ * the number of ways to reach each; then, backwards from the end, the number
+ * of ways to finish from each. Their product, summed over the profiles that
+ * place a ship at a location, is the number of layouts covering it. Each step
+ * is split over the cores with fork/join. The counts from each profile also
+ * let any layout be found from its number (in a fixed order), so the layouts
+ * can be listed, or drawn uniformly at random.
+ *
+ * Counting the classic game needs up to 3 GB, more than the default heap of
+ * most machines, so run it as "java -Xmx3g LayoutCounter".
+ *
+ */
+public class LayoutCounter {
+
+	/* INSTANCE VARIABLES */
+
+	// the profiles handled by one task
+	private static final int CHUNK = 4096;
+	// the profiles sampled to split the profiles at a location into parts
+	private static final int SAMPLES_PER_PART = 64;
+
+	// the size of the ocean
+	private final int rows;
+	private final int columns;
+	// the length of the longest ship
+	private final int maxLength;
+	// what a column of a profile holds: EMPTY; 1 to maxLength for a ship that
+	// may go on downwards, of that length so far; finished, for part of a ship
+	// that is finished; or maxLength + h for the end of a horizontal ship of
+	// length h (2 or more) being laid
+	private static final int EMPTY = 0;
+	private final int finished;
+	// the bits taken by each column of a profile
+	private final int bitsPerColumn;
+	// the bits taken by the whole profile, then the up-left bit, then the ships
+	// still to be laid
+	private final int profileBits;
+	private final long profileMask;
+	// the ships still to be laid, as digits: the number of ships of length L
+	// is (remaining / unit[L]) % (count[L] + 1) (unit[L] is 0 if there are
+	// none)
+	private final int[] unit;
+	private final int[] count;
+	// the number of the whole fleet
+	private final int fullFleet;
+	// longest[remaining] is the length of the longest ship still to be laid,
+	// and shipCells[remaining] the locations they cover between them
+	private final int[] longest;
+	private final int[] shipCells;
+	// the pool that does the counting
+	private final ForkJoinPool pool;
+	// levels[t] holds the profiles after t locations have been decided (sorted)
+	private long[][] levels;
+	// finishes[t][i] is the number of ways to finish from levels[t][i]
+	private long[][] finishes;
+	// occupancy[cell] is the number of layouts with a ship at the location
+	private long[] occupancy;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a LayoutCounter of the given fleet, using the given number
+	 * of threads (call count() to do the counting)
+	 *
+	 * @param config
+	 * @param threads
+	 * @throws IllegalArgumentException if the profiles of the configuration do
+	 *                                  not fit in a long
+	 */
+	public LayoutCounter(GameConfig config, int threads) {
+		this.rows = config.getRows();
+		this.columns = config.getColumns();
+		int maxLength = 0;
+		for (int i = 0; i < config.getFleetSize(); i++) {
+			maxLength = Math.max(maxLength, config.getShipLength(i));
+		}
+		this.maxLength = maxLength;
+		this.finished = maxLength + 1;
+		this.bitsPerColumn = 32 - Integer.numberOfLeadingZeros(2 * maxLength);
+		this.profileBits = this.bitsPerColumn * this.columns;
+		this.profileMask = (1L << this.profileBits) - 1;
+		this.count = new int[maxLength + 1];
+		for (int i = 0; i < config.getFleetSize(); i++) {
+			this.count[config.getShipLength(i)]++;
+		}
+		this.unit = new int[maxLength + 1];
+		long fleets = 1;
+		for (int length = 1; length <= maxLength; length++) {
+			if (this.count[length] > 0) {
+				this.unit[length] = (int) fleets;
+				fleets *= this.count[length] + 1;
+			}
+		}
+		if (this.profileBits + 1 + 64 - Long.numberOfLeadingZeros(fleets) > 63) {
+			throw new IllegalArgumentException("The ocean is too wide, or the fleet too big, to count exactly");
+		}
+		this.fullFleet = (int) fleets - 1;
+		this.longest = new int[(int) fleets];
+		this.shipCells = new int[(int) fleets];
+		for (int remaining = 0; remaining < fleets; remaining++) {
+			for (int length = 1; length <= maxLength; length++) {
+				if (shipsLeft(remaining, length) > 0) {
+					this.longest[remaining] = length;
+				}
+				this.shipCells[remaining] += length * shipsLeft(remaining, length);
+			}
+		}
+		this.pool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Returns the number of ships of the given length still to be laid
+	 *
+	 * @param remaining
+	 * @param length
+	 * @return
+	 */
+	private int shipsLeft(int remaining, int length) {
+		return this.unit[length] == 0 ? 0 : remaining / this.unit[length] % (this.count[length] + 1);
+	}
+
+	/**
+	 * Returns the ships still to be laid once a ship of the given length has
+	 * been, or -1 if none of that length was left
+	 *
+	 * @param remaining
+	 * @param length
+	 * @return
+	 */
+	private int lay(int remaining, int length) {
+		return shipsLeft(remaining, length) == 0 ? -1 : remaining - this.unit[length];
+	}
+
+	/**
+	 * Returns what the given column of a profile holds
+	 *
+	 * @param profile
+	 * @param column
+	 * @return
+	 */
+	private int valueAt(long profile, int column) {
+		return (int) (profile >>> (column * this.bitsPerColumn)) & ((1 << this.bitsPerColumn) - 1);
+	}
+
+	/**
+	 * Returns the profile with the given column set to the given value
+	 *
+	 * @param profile
+	 * @param column
+	 * @param value
+	 * @return
+	 */
+	private long withValue(long profile, int column, int value) {
+		int shift = column * this.bitsPerColumn;
+		return profile & ~((long) ((1 << this.bitsPerColumn) - 1) << shift) | (long) value << shift;
+	}
+
+	/**
+	 * Returns the state reached by deciding the next location, or -1 if no
+	 * layout can be finished from there (the state after the last location is
+	 * always 0)
+	 *
+	 * @param state    the state after step locations have been decided
+	 * @param step     the number of the location (row * columns + column)
+	 * @param occupied true to put a ship there, false for empty sea
+	 * @return
+	 */
+	private long advance(long state, int step, boolean occupied) {
+		int row = step / this.columns;
+		int column = step % this.columns;
+		int remaining = (int) (state >>> (this.profileBits + 1));
+		boolean upLeft = (state >>> this.profileBits & 1) != 0;
+		long profile = state & this.profileMask;
+		int up = valueAt(profile, column);
+		int left = column > 0 ? valueAt(profile, column - 1) : EMPTY;
+		int value;
+		if (occupied) {
+			int upRight = column + 1 < this.columns ? valueAt(profile, column + 1) : EMPTY;
+			// nothing may touch a ship diagonally, nor join two ships at a corner
+			if (upLeft || upRight != EMPTY || (up != EMPTY && left != EMPTY)) {
+				return -1;
+			}
+			int longest = this.longest[remaining];
+			if (up != EMPTY) {
+				// carry on the ship above downwards (if it is not horizontal)
+				if (up > this.maxLength || up >= longest) {
+					return -1;
+				}
+				value = up + 1;
+			} else if (left != EMPTY) {
+				// carry on the ship to the left (a single location, or a
+				// horizontal ship)
+				int length = left == 1 ? 1 : left > this.finished ? left - this.maxLength : -1;
+				if (length < 0 || length >= longest) {
+					return -1;
+				}
+				value = this.maxLength + length + 1;
+				profile = withValue(profile, column - 1, this.finished);
+			} else {
+				if (longest == 0) {
+					return -1;
+				}
+				value = 1;
+			}
+		} else {
+			// empty sea ends the ship above, and a horizontal ship to the left
+			if (up != EMPTY && up <= this.maxLength) {
+				remaining = lay(remaining, up);
+				if (remaining < 0) {
+					return -1;
+				}
+			}
+			if (left > this.finished) {
+				remaining = lay(remaining, left - this.maxLength);
+				if (remaining < 0) {
+					return -1;
+				}
+				profile = withValue(profile, column - 1, this.finished);
+			}
+			value = EMPTY;
+		}
+		upLeft = up != EMPTY;
+		profile = withValue(profile, column, value);
+		if (column == this.columns - 1) {
+			// the end of the row ends a horizontal ship
+			if (value > this.finished) {
+				remaining = lay(remaining, value - this.maxLength);
+				if (remaining < 0) {
+					return -1;
+				}
+				profile = withValue(profile, column, this.finished);
+			}
+			upLeft = false;
+			if (row == this.rows - 1) {
+				// and the end of the ocean ends every ship
+				for (int j = 0; j < this.columns && remaining >= 0; j++) {
+					int v = valueAt(profile, j);
+					if (v != EMPTY && v <= this.maxLength) {
+						remaining = lay(remaining, v);
+					}
+				}
+				return remaining == 0 ? 0 : -1;
+			}
+		}
+		// give up if the rest of the fleet cannot fit in the rest of the ocean:
+		// a ship covers at most 2 locations of any 2x2 square, so at most about
+		// half of the rows still to come
+		int toLay = this.shipCells[remaining];
+		for (int j = 0; j < this.columns; j++) {
+			int v = valueAt(profile, j);
+			// (a ship being laid is part way there)
+			toLay -= v == EMPTY || v == this.finished ? 0 : v <= this.maxLength ? v : v - this.maxLength;
+		}
+		int rowsLeft = this.rows - 1 - row;
+		if (toLay > this.columns - 1 - column + (rowsLeft + 1) / 2 * 2 * ((this.columns + 1) / 2)) {
+			return -1;
+		}
+		return (long) remaining << (this.profileBits + 1) | (upLeft ? 1L : 0) << this.profileBits | profile;
+	}
+
+	/**
+	 * Counts the layouts, and the layouts covering each location (for the classic
+	 * game this takes about a minute and a half on one core, and up to 3 GB)
+	 *
+	 * @return the number of layouts
+	 * @throws ArithmeticException if there are too many layouts to count in a
+	 *                             long
+	 */
+	public long count() {
+		int cells = this.rows * this.columns;
+		this.levels = new long[cells + 1][];
+		long[][] reaches = new long[cells + 1][];
+		this.levels[0] = new long[] { (long) this.fullFleet << (this.profileBits + 1) };
+		reaches[0] = new long[] { 1 };
+		// forwards: the profiles after each location, and the ways to reach them
+		for (int step = 0; step < cells; step++) {
+			long[] states = this.levels[step];
+			// the two profiles that may follow each one (-1 for none)
+			long[] next = new long[2 * states.length];
+			this.pool.invoke(new Expand(step, states, next, 0, states.length));
+			// then the profiles that were reached more than once are merged, in
+			// parts of about the same size (by value, so the parts come out in
+			// order)
+			long[] bounds = partBounds(next);
+			StateCounts[] parts = new StateCounts[bounds.length - 1];
+			this.pool.invoke(new Gather(next, reaches[step], bounds, parts, 0, parts.length));
+			int size = 0;
+			for (StateCounts part : parts) {
+				size += part.size;
+			}
+			this.levels[step + 1] = new long[size];
+			reaches[step + 1] = new long[size];
+			size = 0;
+			for (StateCounts part : parts) {
+				System.arraycopy(part.keys, 0, this.levels[step + 1], size, part.size);
+				System.arraycopy(part.values, 0, reaches[step + 1], size, part.size);
+				size += part.size;
+			}
+		}
+		// backwards: the ways to finish from each profile, and (with the ways
+		// to reach it) the layouts that put a ship at each location
+		this.finishes = new long[cells + 1][];
+		this.finishes[cells] = new long[this.levels[cells].length];
+		Arrays.fill(this.finishes[cells], 1);
+		this.occupancy = new long[cells];
+		for (int step = cells - 1; step >= 0; step--) {
+			this.finishes[step] = new long[this.levels[step].length];
+			this.occupancy[step] = this.pool
+					.invoke(new Finish(step, reaches[step], 0, this.levels[step].length));
+			reaches[step + 1] = null;
+			dropDeadEnds(step + 1);
+		}
+		return getCount();
+	}
+
+	/**
+	 * Forgets the profiles at the given location that no layout can be finished
+	 * from (most of them, in the classic game), once they are no longer needed
+	 *
+	 * @param step
+	 */
+	private void dropDeadEnds(int step) {
+		long[] states = this.levels[step];
+		long[] finishes = this.finishes[step];
+		int live = 0;
+		for (int i = 0; i < states.length; i++) {
+			if (finishes[i] != 0) {
+				states[live] = states[i];
+				finishes[live] = finishes[i];
+				live++;
+			}
+		}
+		this.levels[step] = Arrays.copyOf(states, live);
+		this.finishes[step] = Arrays.copyOf(finishes, live);
+	}
+
+	/**
+	 * Returns the bounds of the parts the given profiles are merged in: part p
+	 * holds the profiles from bounds[p] (inclusive) to bounds[p + 1] (exclusive),
+	 * chosen from a sample so the parts are about the same size
+	 *
+	 * @param next
+	 * @return
+	 */
+	private long[] partBounds(long[] next) {
+		int parts = this.pool.getParallelism() == 1 ? 1 : 4 * this.pool.getParallelism();
+		long[] bounds = new long[parts + 1];
+		bounds[parts] = Long.MAX_VALUE;
+		if (parts > 1) {
+			long[] sample = new long[SAMPLES_PER_PART * parts];
+			for (int i = 0; i < sample.length; i++) {
+				sample[i] = next[(int) ((long) i * next.length / sample.length)];
+			}
+			Arrays.sort(sample);
+			for (int p = 1; p < parts; p++) {
+				// (leaving out the -1s that stand for no profile)
+				bounds[p] = Math.max(0, sample[p * SAMPLES_PER_PART]);
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Returns the number of layouts (after count())
+	 *
+	 * @return
+	 */
+	public long getCount() {
+		return this.finishes[0][0];
+	}
+
+	/**
+	 * Returns the number of profiles at the location with the most (after
+	 * count(), only those that some layout can be finished from are kept)
+	 *
+	 * @return
+	 */
+	public int getMaxProfiles() {
+		int max = 0;
+		for (long[] level : this.levels) {
+			max = Math.max(max, level.length);
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the number of layouts with a ship at the given location (after
+	 * count())
+	 *
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public long getOccupancy(int row, int column) {
+		return this.occupancy[row * this.columns + column];
+	}
+
+	/**
+	 * Returns the probability that a layout drawn uniformly at random has a
+	 * ship at the given location (after count())
+	 *
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public double getProbability(int row, int column) {
+		return (double) getOccupancy(row, column) / getCount();
+	}
+
+	/**
+	 * Returns the number of ways to finish from the given state (0 if it is not
+	 * a profile that can be finished)
+	 *
+	 * @param step
+	 * @param state
+	 * @return
+	 */
+	private long finishesFrom(int step, long state) {
+		if (state < 0) {
+			return 0;
+		}
+		int i = Arrays.binarySearch(this.levels[step], state);
+		return i < 0 ? 0 : this.finishes[step][i];
+	}
+
+	/**
+	 * Returns the layout with the given number (after count()), as the
+	 * locations its ships cover; the layouts are numbered from 0 in the order
+	 * of their locations, read row by row with empty sea first
+	 *
+	 * @param index from 0 to getCount() - 1
+	 * @return
+	 */
+	public BitBoard getLayout(long index) {
+		if (index < 0 || index >= getCount()) {
+			throw new IndexOutOfBoundsException("No layout " + index + " of " + getCount());
+		}
+		BitBoard layout = new BitBoard(this.rows, this.columns);
+		long state = this.levels[0][0];
+		for (int step = 0; step < this.rows * this.columns; step++) {
+			long empty = advance(state, step, false);
+			long ways = finishesFrom(step + 1, empty);
+			if (index < ways) {
+				state = empty;
+			} else {
+				index -= ways;
+				state = advance(state, step, true);
+				layout.set(step);
+			}
+		}
+		return layout;
+	}
+
+	/**
+	 * Hands every layout with a number from first (inclusive) to last
+	 * (exclusive) to the given consumer, in order
+	 *
+	 * @param first
+	 * @param last
+	 * @param consumer
+	 */
+	public void forEachLayout(long first, long last, Consumer<BitBoard> consumer) {
+		for (long index = first; index < last; index++) {
+			consumer.accept(getLayout(index));
+		}
+	}
+
+	/**
+	 * Returns a layout drawn uniformly at random from all of them (after
+	 * count())
+	 *
+	 * @param random
+	 * @return
+	 */
+	public BitBoard sample(RandomGenerator random) {
+		return getLayout(random.nextLong(getCount()));
+	}
+
+	/**
+	 * Stops the threads
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * The states reached from a range of the profiles at one location, with the
+	 * number of ways to reach each (an open-addressing map from state to count)
+	 */
+	private static class StateCounts {
+
+		long[] keys;
+		long[] values;
+		boolean[] used;
+		int size;
+
+		/**
+		 * Constructor for an empty map with room for the given number of states
+		 *
+		 * @param expected
+		 */
+		StateCounts(int expected) {
+			int capacity = Integer.highestOneBit(Math.max(16, 2 * expected - 1)) << 1;
+			this.keys = new long[capacity];
+			this.values = new long[capacity];
+			this.used = new boolean[capacity];
+		}
+
+		/**
+		 * Adds the given number of ways to the given state
+		 *
+		 * @param key
+		 * @param value
+		 */
+		void add(long key, long value) {
+			if (2 * (this.size + 1) > this.keys.length) {
+				grow();
+			}
+			int slot = slotOf(key);
+			if (this.used[slot]) {
+				this.values[slot] = Math.addExact(this.values[slot], value);
+			} else {
+				this.used[slot] = true;
+				this.keys[slot] = key;
+				this.values[slot] = value;
+				this.size++;
+			}
+		}
+
+		/**
+		 * Returns the slot that holds the given state, or the empty slot it
+		 * would go in
+		 *
+		 * @param key
+		 * @return
+		 */
+		private int slotOf(long key) {
+			int mask = this.keys.length - 1;
+			int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+			while (this.used[slot] && this.keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		/**
+		 * Doubles the size of the table
+		 */
+		private void grow() {
+			long[] keys = this.keys;
+			long[] values = this.values;
+			boolean[] used = this.used;
+			this.keys = new long[keys.length * 2];
+			this.values = new long[keys.length * 2];
+			this.used = new boolean[keys.length * 2];
+			this.size = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (used[i]) {
+					add(keys[i], values[i]);
+				}
+			}
+		}
+
+		/**
+		 * Packs the states into the first size entries of keys, in order, with
+		 * their counts in values (the map cannot be used after this)
+		 */
+		void sort() {
+			long[] sorted = new long[this.size];
+			int n = 0;
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.used[i]) {
+					sorted[n++] = this.keys[i];
+				}
+			}
+			Arrays.sort(sorted);
+			// then look up the count of each
+			long[] counts = new long[this.size];
+			for (int i = 0; i < sorted.length; i++) {
+				counts[i] = this.values[slotOf(sorted[i])];
+			}
+			this.keys = sorted;
+			this.values = counts;
+			this.used = null;
+		}
+	}
+
+	/**
+	 * Finds the profiles that may follow a range of the profiles at one
+	 * location
+	 */
+	private class Expand extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int step;
+		private final long[] states;
+		private final long[] next;
+		private final int from;
+		private final int to;
+
+		Expand(int step, long[] states, long[] next, int from, int to) {
+			this.step = step;
+			this.states = states;
+			this.next = next;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > CHUNK) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Expand(this.step, this.states, this.next, this.from, middle),
+						new Expand(this.step, this.states, this.next, middle, this.to));
+				return;
+			}
+			for (int i = this.from; i < this.to; i++) {
+				this.next[2 * i] = advance(this.states[i], this.step, false);
+				this.next[2 * i + 1] = advance(this.states[i], this.step, true);
+			}
+		}
+	}
+
+	/**
+	 * Merges the profiles in a range of parts (see partBounds()), adding up the
+	 * ways to reach each, and sorts each part
+	 */
+	private static class Gather extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] next;
+		private final long[] reaches;
+		private final long[] bounds;
+		private final StateCounts[] parts;
+		private final int from;
+		private final int to;
+
+		Gather(long[] next, long[] reaches, long[] bounds, StateCounts[] parts, int from, int to) {
+			this.next = next;
+			this.reaches = reaches;
+			this.bounds = bounds;
+			this.parts = parts;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Gather(this.next, this.reaches, this.bounds, this.parts, this.from, middle),
+						new Gather(this.next, this.reaches, this.bounds, this.parts, middle, this.to));
+				return;
+			}
+			long low = this.bounds[this.from];
+			long high = this.bounds[this.from + 1];
+			// (most profiles have about as many successors as there are profiles)
+			StateCounts part = new StateCounts(this.next.length / 2 / this.parts.length);
+			for (int i = 0; i < this.next.length; i++) {
+				// (-1, for no profile, is below every part)
+				if (this.next[i] >= low && this.next[i] < high) {
+					part.add(this.next[i], this.reaches[i >> 1]);
+				}
+			}
+			part.sort();
+			this.parts[this.from] = part;
+		}
+	}
+
+	/**
+	 * Counts the ways to finish from a range of the profiles at one location,
+	 * and returns the number of layouts that reach one of them and put a ship at
+	 * the location
+	 */
+	private class Finish extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int step;
+		private final long[] reaches;
+		private final int from;
+		private final int to;
+
+		Finish(int step, long[] reaches, int from, int to) {
+			this.step = step;
+			this.reaches = reaches;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (this.to - this.from > CHUNK) {
+				int middle = (this.from + this.to) >>> 1;
+				Finish first = new Finish(this.step, this.reaches, this.from, middle);
+				first.fork();
+				long second = new Finish(this.step, this.reaches, middle, this.to).compute();
+				return Math.addExact(second, first.join());
+			}
+			long[] states = levels[this.step];
+			long occupied = 0;
+			for (int i = this.from; i < this.to; i++) {
+				long empty = finishesFrom(this.step + 1, advance(states[i], this.step, false));
+				long ship = finishesFrom(this.step + 1, advance(states[i], this.step, true));
+				finishes[this.step][i] = Math.addExact(empty, ship);
+				occupied = Math.addExact(occupied, Math.multiplyExact(this.reaches[i], ship));
+			}
+			return occupied;
+		}
+	}
+
+	public static void main(String[] args) {
+		// run with a heap of 3 GB or more (java -Xmx3g LayoutCounter [threads]
+		// [fleets])
+		// the number of threads to use (default: all available cores)
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		// the number of random fleets to check Ocean.placeAllShipsRandomly()
+		// against (default: 1,000,000)
+		int fleets = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+		GameConfig config = GameConfig.standard();
+		LayoutCounter counter = new LayoutCounter(config, threads);
+		long start = System.nanoTime();
+		long layouts;
+		try {
+			layouts = counter.count();
+		} catch (OutOfMemoryError e) {
+			counter.shutdown();
+			System.err.println("Out of memory: counting the classic game needs up to 3 GB (java -Xmx3g LayoutCounter)");
+			System.exit(1);
+			return;
+		}
+		counter.shutdown();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%,d layouts (at most %,d profiles at a location), counted in %.2f s with %d thread(s)%n",
+				layouts, counter.getMaxProfiles(), seconds, threads);
+		// the chance of a ship at each location, in percent
+		System.out.println("Chance of a ship at each location (%):");
+		for (int row = 0; row < config.getRows(); row++) {
+			for (int column = 0; column < config.getColumns(); column++) {
+				System.out.printf("%6.2f", 100 * counter.getProbability(row, column));
+			}
+			System.out.println();
+		}
+		if (fleets <= 0) {
+			return;
+		}
+		// how often random fleets put a ship at each location, against the
+		// exact chance (if the placer draws every layout alike, the scores
+		// should be within about 3.5 of 0 at all 100 locations)
+		long[] hits = new long[config.getRows() * config.getColumns()];
+		SplittableRandom random = new SplittableRandom();
+		for (int i = 0; i < fleets; i++) {
+			Ocean ocean = new Ocean(config);
+			ocean.placeAllShipsRandomly(random);
+			for (int row = 0; row < config.getRows(); row++) {
+				for (int column = 0; column < config.getColumns(); column++) {
+					if (ocean.isOccupied(row, column)) {
+						hits[row * config.getColumns() + column]++;
+					}
+				}
+			}
+		}
+		double worst = 0;
+		int worstCell = 0;
+		for (int cell = 0; cell < hits.length; cell++) {
+			double p = (double) counter.occupancy[cell] / layouts;
+			double z = (hits[cell] - fleets * p) / Math.sqrt(fleets * p * (1 - p));
+			if (Math.abs(z) > Math.abs(worst)) {
+				worst = z;
+				worstCell = cell;
+			}
+		}
+		System.out.printf("%,d random fleets: the worst location is (%d, %d), %.2f%% against %.2f%% (z = %.2f)%n", fleets,
+				worstCell / config.getColumns(), worstCell % config.getColumns(),
+				100.0 * hits[worstCell] / fleets, 100 * (double) counter.occupancy[worstCell] / layouts, worst);
+	}
+}
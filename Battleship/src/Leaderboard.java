@@ -0,0 +1,620 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The best and most recent scores (the number of shots a game took) of every
+ * player, kept in a file so they outlive the program
+ *
+ * The file is append-only: a header ("BSLB" and a version number), then one
+ * record per finished game, as unsigned LEB128 numbers: the shots, the time
+ * (milliseconds since 1970), the number of games the player had finished by
+ * then, and the length of the player's name, followed by the name in UTF-8.
+ * When the file is opened, every record is read back into an index in memory;
+ * a record cut short by a crash is dropped. Once the file holds many more
+ * records than the index needs (each player's best game and the last few), it
+ * is compacted: rewritten from scratch with only those, and swapped for the old
+ * one in a single step.
+ *
+ * Any number of sessions may record games at once. Each player's scores are
+ * guarded by a lock of their own, the players and the ranking of their best
+ * scores are kept in concurrent maps, and the records are queued for a writer
+ * thread that adds them to the file about once a second, so games of different
+ * players never wait for each other (or for the disk). The ranking is sorted as
+ * it changes, so the top N are found in O(N) however many games there have
+ * been.
+ *
+ * A Leaderboard created without a file keeps the same scores in memory only.
+ *
+ */
+public class Leaderboard implements Closeable, Flushable {
+
+	/* INSTANCE VARIABLES */
+
+	// "BSLB", at the start of every file
+	static final int MAGIC = 0x42534C42;
+	static final int VERSION = 1;
+	// the number of recent scores kept for each player
+	public static final int RECENT = 10;
+	// the longest name a player may have, in bytes of UTF-8
+	public static final int MAX_NAME = 255;
+	// how often the queued records are written out
+	private static final long FLUSH_MILLIS = 1000;
+	// the file is compacted once it holds this many times the records the index
+	// needs (and at least COMPACT_MIN of them)
+	private static final int COMPACT_FACTOR = 4;
+	private static final long COMPACT_MIN = 10_000;
+
+	// the file, and a file to write the compacted records to (null if the
+	// scores are only kept in memory)
+	private final Path path;
+	private final Path compactPath;
+	private FileChannel channel;
+	// every player, by name
+	private final ConcurrentHashMap<String, Player> players = new ConcurrentHashMap<>();
+	// the best score of every player, best first
+	private final ConcurrentSkipListSet<Score> ranking = new ConcurrentSkipListSet<>();
+	// records that have not been written yet
+	private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>();
+	// the thread that writes the records (null if the scores are only kept in
+	// memory)
+	private final Thread writer;
+	// the number of records in the file, and the number the index needs
+	private long fileRecords;
+	private long liveRecords;
+	// false once the leaderboard has been closed
+	private volatile boolean open = true;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a Leaderboard that keeps its scores in memory only
+	 */
+	public Leaderboard() {
+		this.path = null;
+		this.compactPath = null;
+		this.writer = null;
+	}
+
+	/**
+	 * Opens the leaderboard at the given path, creating it if it does not
+	 * exist, and starts the thread that writes to it
+	 *
+	 * @param path
+	 * @throws IOException if the file is not a leaderboard
+	 */
+	public Leaderboard(Path path) throws IOException {
+		this.path = path;
+		this.compactPath = path.resolveSibling(path.getFileName() + ".compact");
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (this.channel.size() == 0) {
+				writeFully(this.channel, ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip());
+			} else {
+				Map<String, Player> players = new HashMap<>();
+				long validLength = read(this.channel, path, players);
+				// drop a record that was cut short by a crash
+				this.channel.truncate(validLength);
+				for (Player player : players.values()) {
+					this.players.put(player.name, player);
+					this.ranking.add(player.best);
+					this.liveRecords += player.liveRecords();
+				}
+			}
+			this.channel.position(this.channel.size());
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+		this.writer = new Thread(this::writeRecords, "leaderboard-writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Reads every record in the given file into the given map, and returns the
+	 * end of the last complete record
+	 *
+	 * @param channel
+	 * @param path    (for the error message)
+	 * @param players
+	 * @return
+	 * @throws IOException if the file is not a leaderboard
+	 */
+	private long read(FileChannel channel, Path path, Map<String, Player> players) throws IOException {
+		if (channel.size() > Integer.MAX_VALUE) {
+			throw new IOException("Leaderboards over 2 GB are not supported: " + path);
+		}
+		MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		if (data.remaining() < 8 || data.getInt() != MAGIC) {
+			throw new IOException("Not a leaderboard: " + path);
+		}
+		if (data.getInt() != VERSION) {
+			throw new IOException("Unsupported leaderboard version: " + path);
+		}
+		long validLength = data.position();
+		byte[] name = new byte[MAX_NAME];
+		while (data.hasRemaining()) {
+			long shots = readNumber(data);
+			long time = readNumber(data);
+			long games = readNumber(data);
+			long length = readNumber(data);
+			if (length < 0 || length > MAX_NAME || data.remaining() < length) {
+				break;
+			}
+			data.get(name, 0, (int) length);
+			String player = new String(name, 0, (int) length, StandardCharsets.UTF_8);
+			players.computeIfAbsent(player, Player::new).replay((int) shots, time, (int) games);
+			this.fileRecords++;
+			validLength = data.position();
+		}
+		return validLength;
+	}
+
+	/**
+	 * Returns the LEB128 number at the buffer's position (and moves past it), or
+	 * -1 if it was cut short
+	 *
+	 * @param data
+	 * @return
+	 */
+	private static long readNumber(ByteBuffer data) {
+		long n = 0;
+		int shift = 0;
+		while (data.hasRemaining() && shift < 64) {
+			byte b = data.get();
+			n |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return n;
+			shift += 7;
+		}
+		return -1;
+	}
+
+	/**
+	 * Records a finished game of the given player
+	 *
+	 * @param name  the player
+	 * @param shots the number of shots the game took
+	 * @return true if the game was the player's best yet
+	 * @throws IllegalArgumentException if the name is empty or too long
+	 */
+	public boolean record(String name, int shots) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		if (nameBytes.length == 0 || nameBytes.length > MAX_NAME) {
+			throw new IllegalArgumentException("A player's name must be 1 to " + MAX_NAME + " bytes long: " + name);
+		}
+		long time = System.currentTimeMillis();
+		Player player = this.players.computeIfAbsent(name, Player::new);
+		synchronized (player) {
+			Score previous = player.best;
+			boolean best = player.add(shots, time);
+			if (best) {
+				// the ranking holds the player's best score only
+				this.ranking.add(player.best);
+				if (previous != null) {
+					this.ranking.remove(previous);
+				}
+			}
+			// queued while the lock is held, so each player's records are
+			// written in the order of their games
+			if (this.writer != null) {
+				this.queue.offer(encode(nameBytes, shots, time, player.games));
+			}
+			return best;
+		}
+	}
+
+	/**
+	 * Returns a record as it is written to the file
+	 *
+	 * @param name
+	 * @param shots
+	 * @param time
+	 * @param games the number of games the player had finished by then
+	 * @return
+	 */
+	private static byte[] encode(byte[] name, int shots, long time, int games) {
+		ByteBuffer record = ByteBuffer.allocate(4 * 10 + name.length);
+		putNumber(record, shots);
+		putNumber(record, time);
+		putNumber(record, games);
+		putNumber(record, name.length);
+		record.put(name);
+		byte[] bytes = new byte[record.position()];
+		record.flip().get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Adds an unsigned LEB128 number to the buffer
+	 *
+	 * @param buffer
+	 * @param n
+	 */
+	private static void putNumber(ByteBuffer buffer, long n) {
+		while ((n & ~0x7FL) != 0) {
+			buffer.put((byte) ((n & 0x7F) | 0x80));
+			n >>>= 7;
+		}
+		buffer.put((byte) n);
+	}
+
+	/**
+	 * Writes the queued records about once a second (run by the writer thread)
+	 */
+	private void writeRecords() {
+		while (this.open) {
+			// (not interrupted to stop it, since that would close the file)
+			LockSupport.parkNanos(FLUSH_MILLIS * 1_000_000L);
+			try {
+				flush();
+			} catch (IOException e) {
+				// keep the records queued, and try again next time
+				System.err.println("Could not write the leaderboard: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Writes the records queued so far to the file and waits until they are on
+	 * the disk (and compacts the file, if it is due)
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		if (this.channel == null || this.queue.isEmpty()) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		int records = 0;
+		byte[] record;
+		while ((record = this.queue.peek()) != null) {
+			if (buffer.remaining() < record.length) {
+				if (buffer.position() == 0) {
+					buffer = ByteBuffer.allocate(record.length);
+				} else {
+					writeFully(this.channel, buffer.flip());
+					buffer.clear();
+					continue;
+				}
+			}
+			buffer.put(record);
+			// only taken from the queue once it is in the buffer
+			this.queue.poll();
+			records++;
+		}
+		writeFully(this.channel, buffer.flip());
+		this.channel.force(false);
+		this.fileRecords += records;
+		if (this.fileRecords > COMPACT_MIN && this.fileRecords > COMPACT_FACTOR * this.liveRecords) {
+			compact();
+		}
+	}
+
+	/**
+	 * Rewrites the file with only the records the index needs (called with the
+	 * lock of flush() held, so nothing else writes to the file meanwhile)
+	 *
+	 * @throws IOException
+	 */
+	private void compact() throws IOException {
+		// start from the file rather than the index, whose latest scores may
+		// still be queued (they are added to the new file in the usual way)
+		Map<String, Player> players = new HashMap<>();
+		this.fileRecords = 0;
+		read(this.channel, this.path, players);
+		long live = 0;
+		try (FileChannel out = FileChannel.open(this.compactPath, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			buffer.putInt(MAGIC).putInt(VERSION);
+			for (Player player : players.values()) {
+				byte[] name = player.name.getBytes(StandardCharsets.UTF_8);
+				List<Score> scores = player.liveScores();
+				for (int i = 0; i < scores.size(); i++) {
+					Score score = scores.get(i);
+					// the scores are the player's last games (after the best, if it
+					// is not one of them), so this is the number of each one
+					int game = player.games - (scores.size() - 1 - i);
+					byte[] record = encode(name, score.shots, score.time, game);
+					if (buffer.remaining() < record.length) {
+						writeFully(out, buffer.flip());
+						buffer.clear();
+					}
+					buffer.put(record);
+					live++;
+				}
+			}
+			writeFully(out, buffer.flip());
+			out.force(false);
+		}
+		this.channel.close();
+		Files.move(this.compactPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.channel = FileChannel.open(this.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.channel.position(this.channel.size());
+		this.fileRecords = live;
+		this.liveRecords = live;
+	}
+
+	/**
+	 * Writes the whole buffer to the given file
+	 *
+	 * @param channel
+	 * @param buffer
+	 * @throws IOException
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Writes the records queued so far, stops the writer thread and closes the
+	 * file
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		this.open = false;
+		if (this.writer == null) {
+			return;
+		}
+		LockSupport.unpark(this.writer);
+		try {
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			try {
+				flush();
+			} finally {
+				this.channel.close();
+				this.channel = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns the best players, best first (ties go to the player who got there
+	 * first)
+	 *
+	 * @param n the largest number of players to return
+	 * @return the best score of each player
+	 */
+	public List<Score> getTop(int n) {
+		List<Score> top = new ArrayList<>(Math.min(n, 64));
+		Iterator<Score> scores = this.ranking.iterator();
+		while (top.size() < n && scores.hasNext()) {
+			top.add(scores.next());
+		}
+		return top;
+	}
+
+	/**
+	 * Returns the fewest shots any game of the given player took, or
+	 * Integer.MAX_VALUE if they have not finished a game
+	 *
+	 * @param name
+	 * @return
+	 */
+	public int getBest(String name) {
+		Player player = this.players.get(name);
+		if (player == null) {
+			return Integer.MAX_VALUE;
+		}
+		synchronized (player) {
+			// (null if the player's first game is being recorded right now)
+			return player.best == null ? Integer.MAX_VALUE : player.best.shots;
+		}
+	}
+
+	/**
+	 * Returns the most recent scores of the given player (at most RECENT of
+	 * them), latest first
+	 *
+	 * @param name
+	 * @return
+	 */
+	public int[] getRecent(String name) {
+		Player player = this.players.get(name);
+		if (player == null) {
+			return new int[0];
+		}
+		synchronized (player) {
+			int count = Math.min(player.games, RECENT);
+			int[] recent = new int[count];
+			for (int i = 0; i < count; i++) {
+				recent[i] = player.recent[Math.floorMod(player.games - 1 - i, RECENT)].shots;
+			}
+			return recent;
+		}
+	}
+
+	/**
+	 * Returns the number of games the given player has finished
+	 *
+	 * @param name
+	 * @return
+	 */
+	public int getGames(String name) {
+		Player player = this.players.get(name);
+		if (player == null) {
+			return 0;
+		}
+		synchronized (player) {
+			return player.games;
+		}
+	}
+
+	/**
+	 * Returns the number of players who have finished a game
+	 *
+	 * @return
+	 */
+	public int getPlayers() {
+		return this.players.size();
+	}
+
+	/**
+	 * A score: one finished game of a player (ordered best first: fewest shots,
+	 * then earliest)
+	 */
+	public static class Score implements Comparable<Score> {
+
+		private final String player;
+		private final int shots;
+		private final long time;
+
+		Score(String player, int shots, long time) {
+			this.player = player;
+			this.shots = shots;
+			this.time = time;
+		}
+
+		/**
+		 * Returns the name of the player
+		 *
+		 * @return
+		 */
+		public String getPlayer() {
+			return this.player;
+		}
+
+		/**
+		 * Returns the number of shots the game took
+		 *
+		 * @return
+		 */
+		public int getShots() {
+			return this.shots;
+		}
+
+		/**
+		 * Returns when the game finished, in milliseconds since 1970
+		 *
+		 * @return
+		 */
+		public long getTime() {
+			return this.time;
+		}
+
+		@Override
+		public int compareTo(Score other) {
+			if (this.shots != other.shots)
+				return Integer.compare(this.shots, other.shots);
+			if (this.time != other.time)
+				return Long.compare(this.time, other.time);
+			return this.player.compareTo(other.player);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-20s %5d", this.player, this.shots);
+		}
+	}
+
+	/**
+	 * The scores of one player (guarded by the Player's own lock, except while
+	 * a file is being read)
+	 */
+	private static class Player {
+
+		final String name;
+		// the best score, or null before the first game
+		Score best;
+		// the last RECENT scores, the latest at index (games - 1) % RECENT
+		final Score[] recent = new Score[RECENT];
+		// the number of games finished
+		int games;
+
+		Player(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Adds a finished game
+		 *
+		 * @param shots
+		 * @param time
+		 * @return true if it is the best game yet
+		 */
+		boolean add(int shots, long time) {
+			Score score = new Score(this.name, shots, time);
+			this.recent[this.games % RECENT] = score;
+			this.games++;
+			if (this.best == null || shots < this.best.shots) {
+				this.best = score;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Adds a game read from the file
+		 *
+		 * @param shots
+		 * @param time
+		 * @param games the number of games the player had finished by then
+		 */
+		void replay(int shots, long time, int games) {
+			// a compacted file holds only some of the games, but each record
+			// knows which game of the player's it was
+			this.games = Math.max(this.games, games - 1);
+			add(shots, time);
+		}
+
+		/**
+		 * Returns the number of records a compacted file needs for this player
+		 *
+		 * @return
+		 */
+		int liveRecords() {
+			return liveScores().size();
+		}
+
+		/**
+		 * Returns the scores a compacted file needs for this player, in the order
+		 * they are to be written: the best (unless it is among the recent ones),
+		 * then the recent ones, oldest first
+		 *
+		 * @return
+		 */
+		List<Score> liveScores() {
+			List<Score> scores = new ArrayList<>(RECENT + 1);
+			int count = Math.min(this.games, RECENT);
+			boolean bestIsRecent = false;
+			for (int i = count - 1; i >= 0; i--) {
+				Score score = this.recent[Math.floorMod(this.games - 1 - i, RECENT)];
+				scores.add(score);
+				bestIsRecent |= score == this.best;
+			}
+			if (!bestIsRecent) {
+				scores.add(0, this.best);
+			}
+			return scores;
+		}
+	}
+}
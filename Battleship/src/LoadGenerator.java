@@ -0,0 +1,447 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Opens many sessions on a BattleshipServer and plays games on all of them at
+ * once, to measure how many sessions fit in a gigabyte of heap and how long the
+ * server takes to answer a shot
+ *
+ * Every session has one shot in flight at a time; the latency of a shot is the
+ * time from sending it until its whole reply ("OK ..." or "OVER ...") has been
+ * read. The heap per session is measured by the server itself ("STATS"), before
+ * and after the sessions are opened, so for clean figures run the server in a
+ * JVM of its own (with -Dbattleship.stats=true, so it answers "STATS");
+ * without a port, a server is started in this JVM, and the figure includes the
+ * generator's own bookkeeping for each session.
+ *
+ */
+public class LoadGenerator {
+
+	/* INSTANCE VARIABLES */
+
+	// the size of the ocean and the makeup of the fleet (must match the server)
+	private final GameConfig config;
+	// the server
+	private final InetSocketAddress address;
+	// the simulated players
+	private final Client[] clients;
+	// waits for any session to get a reply
+	private final Selector selector;
+	// the shot being sent
+	private final ByteBuffer out = ByteBuffer.allocate(64);
+	// the latencies of the shots answered while recording
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	// true once the warm-up is over
+	private boolean recording;
+	// the number of games finished while recording
+	private long games;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a LoadGenerator
+	 *
+	 * @param config
+	 * @param address
+	 * @param sessions the number of sessions to open
+	 * @throws IOException
+	 */
+	public LoadGenerator(GameConfig config, InetSocketAddress address, int sessions) throws IOException {
+		this.config = config;
+		this.address = address;
+		this.clients = new Client[sessions];
+		this.selector = Selector.open();
+		SplittableRandom random = new SplittableRandom();
+		for (int i = 0; i < sessions; i++) {
+			this.clients[i] = new Client(random.split());
+		}
+	}
+
+	/**
+	 * Opens the sessions and returns the heap the server uses for each
+	 *
+	 * @return the number of bytes of heap per session
+	 * @throws IOException
+	 */
+	public long connect() throws IOException {
+		try (SocketChannel control = SocketChannel.open(this.address)) {
+			// ask twice: the first collection also clears whatever the server
+			// left behind while starting up
+			heapUsed(control);
+			long before = heapUsed(control);
+			for (Client client : this.clients) {
+				client.channel = SocketChannel.open(this.address);
+				client.channel.configureBlocking(false);
+				client.channel.register(this.selector, SelectionKey.OP_READ, client);
+			}
+			// wait until every session has started its first game
+			int started = 0;
+			while (started < this.clients.length) {
+				started += poll();
+			}
+			long after = heapUsed(control);
+			return (after - before) / this.clients.length;
+		}
+	}
+
+	/**
+	 * Plays games on every session for the given time
+	 *
+	 * @param warmupNanos  the time to play before recording any latencies
+	 * @param measureNanos the time to record latencies for
+	 * @throws IOException
+	 */
+	public void run(long warmupNanos, long measureNanos) throws IOException {
+		// every session fires its first shot
+		for (Client client : this.clients) {
+			fire(client);
+		}
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < warmupNanos) {
+			poll();
+		}
+		this.recording = true;
+		start = System.nanoTime();
+		while (System.nanoTime() - start < measureNanos) {
+			poll();
+		}
+		this.recording = false;
+		for (Client client : this.clients) {
+			client.channel.close();
+		}
+		this.selector.close();
+	}
+
+	/**
+	 * Reads the replies that have arrived and answers each one
+	 *
+	 * @return the number of games that were started
+	 * @throws IOException
+	 */
+	private int poll() throws IOException {
+		int started = 0;
+		this.selector.select(100);
+		Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+		while (keys.hasNext()) {
+			SelectionKey key = keys.next();
+			keys.remove();
+			Client client = (Client) key.attachment();
+			if (client.channel.read(client.in) < 0) {
+				throw new IOException("The server closed a session");
+			}
+			client.in.flip();
+			// handle every complete line of the reply
+			int lineStart = client.in.position();
+			for (int i = lineStart; i < client.in.limit(); i++) {
+				if (client.in.get(i) != '\n')
+					continue;
+				started += handle(client, lineStart);
+				lineStart = i + 1;
+			}
+			client.in.position(lineStart);
+			client.in.compact();
+		}
+		return started;
+	}
+
+	/**
+	 * Handles a line of a reply
+	 *
+	 * @param client
+	 * @param start  the position of the line in the client's buffer
+	 * @return 1 if the line started a game, 0 otherwise
+	 * @throws IOException
+	 */
+	private int handle(Client client, int start) throws IOException {
+		ByteBuffer in = client.in;
+		switch (in.get(start)) {
+		case 'B':
+			// "BATTLESHIP ...": a new game has started
+			client.shooter.newGame(this.config, client.random);
+			// fire the first shot unless the sessions are still being opened
+			if (client.playing) {
+				fire(client);
+			}
+			client.playing = true;
+			return 1;
+		case 'M':
+		case 'R':
+			client.shooter.shotResult(client.row, client.column, false, null);
+			return 0;
+		case 'H':
+		case 'S':
+			client.shooter.shotResult(client.row, client.column, true, null);
+			return 0;
+		case 'O':
+			// "OK ..." or "OVER ...": the shot has been answered
+			if (this.recording) {
+				this.latencies.record(System.nanoTime() - client.sentAt);
+			}
+			if (in.get(start + 1) == 'K') {
+				fire(client);
+			} else {
+				if (this.recording) {
+					this.games++;
+				}
+				send(client, "NEW\n");
+			}
+			return 0;
+		default:
+			throw new IOException("Unexpected reply from the server");
+		}
+	}
+
+	/**
+	 * Sends a session's next shot
+	 *
+	 * @param client
+	 * @throws IOException
+	 */
+	private void fire(Client client) throws IOException {
+		int cell = client.shooter.nextShot();
+		client.row = cell / this.config.getColumns();
+		client.column = cell % this.config.getColumns();
+		this.out.clear();
+		appendNumber(client.row);
+		this.out.put((byte) ',');
+		appendNumber(client.column);
+		this.out.put((byte) '\n');
+		this.out.flip();
+		client.sentAt = System.nanoTime();
+		// a shot is a few bytes, so the socket always takes it at once
+		client.channel.write(this.out);
+	}
+
+	/**
+	 * Sends a command on a session
+	 *
+	 * @param client
+	 * @param command
+	 * @throws IOException
+	 */
+	private void send(Client client, String command) throws IOException {
+		this.out.clear();
+		this.out.put(command.getBytes(StandardCharsets.US_ASCII));
+		this.out.flip();
+		client.channel.write(this.out);
+	}
+
+	/**
+	 * Adds a (non-negative) number to the shot being sent
+	 *
+	 * @param n
+	 */
+	private void appendNumber(int n) {
+		if (n >= 10) {
+			appendNumber(n / 10);
+		}
+		this.out.put((byte) ('0' + n % 10));
+	}
+
+	/**
+	 * Asks the server how much heap it uses
+	 *
+	 * @param control a blocking session used only for "STATS"
+	 * @return
+	 * @throws IOException
+	 */
+	private static long heapUsed(SocketChannel control) throws IOException {
+		control.write(ByteBuffer.wrap("STATS\n".getBytes(StandardCharsets.US_ASCII)));
+		// skip the greeting, and read up to the end of the "STATS" line
+		StringBuilder line = new StringBuilder();
+		ByteBuffer b = ByteBuffer.allocate(1);
+		while (true) {
+			if (control.read(b) < 0) {
+				throw new IOException("The server closed the control session");
+			}
+			b.flip();
+			char c = (char) b.get();
+			b.clear();
+			if (c != '\n') {
+				line.append(c);
+			} else if (line.toString().startsWith("STATS ")) {
+				String[] fields = line.toString().split(" ");
+				return Long.parseLong(fields[2]);
+			} else {
+				line.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * Returns the histogram of the latencies recorded
+	 *
+	 * @return
+	 */
+	public LatencyHistogram getLatencies() {
+		return this.latencies;
+	}
+
+	/**
+	 * Returns the number of games finished while recording
+	 *
+	 * @return
+	 */
+	public long getGames() {
+		return this.games;
+	}
+
+	/**
+	 * A simulated player
+	 */
+	private static class Client {
+
+		// the player's session
+		SocketChannel channel;
+		// the start of a reply that has not fully arrived
+		final ByteBuffer in = ByteBuffer.allocate(256);
+		// chooses where to fire
+		final Shooter shooter = new RandomShooter();
+		final SplittableRandom random;
+		// the location of the shot in flight, and when it was sent
+		int row;
+		int column;
+		long sentAt;
+		// false until the first game has started
+		boolean playing;
+
+		Client(SplittableRandom random) {
+			this.random = random;
+		}
+	}
+
+	/**
+	 * A histogram of latencies with about 3% precision, from 1 microsecond up
+	 */
+	public static class LatencyHistogram {
+
+		// latencies below this number of microseconds each have a bucket
+		private static final int EXACT = 1024;
+		// above that, each power of 2 is split into this many buckets
+		private static final int SUB_BUCKETS = 64;
+
+		private final long[] counts = new long[EXACT + (63 - 10) * SUB_BUCKETS];
+		private long total;
+		private long max;
+
+		/**
+		 * Records a latency
+		 *
+		 * @param nanos
+		 */
+		public void record(long nanos) {
+			long micros = nanos / 1000;
+			this.counts[bucketOf(micros)]++;
+			this.total++;
+			this.max = Math.max(this.max, micros);
+		}
+
+		/**
+		 * Returns the bucket that holds the given latency
+		 *
+		 * @param micros
+		 * @return
+		 */
+		private static int bucketOf(long micros) {
+			if (micros < EXACT) {
+				return (int) micros;
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(micros);
+			int sub = (int) (micros >>> (exponent - 6)) & (SUB_BUCKETS - 1);
+			return EXACT + (exponent - 10) * SUB_BUCKETS + sub;
+		}
+
+		/**
+		 * Returns the largest latency that falls in the given bucket
+		 *
+		 * @param bucket
+		 * @return
+		 */
+		private static long highestIn(int bucket) {
+			if (bucket < EXACT) {
+				return bucket;
+			}
+			int exponent = (bucket - EXACT) / SUB_BUCKETS + 10;
+			int sub = (bucket - EXACT) % SUB_BUCKETS;
+			return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 6)) - 1;
+		}
+
+		/**
+		 * Returns the latency (in microseconds) that the given fraction of the
+		 * recorded latencies do not exceed
+		 *
+		 * @param fraction
+		 * @return
+		 */
+		public long getPercentile(double fraction) {
+			long rank = (long) Math.ceil(fraction * this.total);
+			long seen = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				seen += this.counts[i];
+				if (seen >= rank && seen > 0) {
+					return Math.min(highestIn(i), this.max);
+				}
+			}
+			return this.max;
+		}
+
+		/**
+		 * Returns the number of latencies recorded
+		 *
+		 * @return
+		 */
+		public long getCount() {
+			return this.total;
+		}
+
+		/**
+		 * Returns the largest latency recorded, in microseconds
+		 *
+		 * @return
+		 */
+		public long getMax() {
+			return this.max;
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		// the number of sessions to open (default: 1000)
+		int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		// the number of seconds to record latencies for (default: 10)
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		// the port of a running server (default: start one in this JVM)
+		int port = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		GameConfig config = GameConfig.standard();
+		BattleshipServer server = null;
+		if (port == 0) {
+			server = new BattleshipServer(config, 0, Runtime.getRuntime().availableProcessors());
+			server.setStatsEnabled(true);
+			server.start();
+			port = server.getPort();
+		}
+		LoadGenerator generator = new LoadGenerator(config,
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), port), sessions);
+		long bytesPerSession = generator.connect();
+		System.out.printf("%d sessions, %d bytes of heap each (%,d sessions per GB)%n", sessions, bytesPerSession,
+				bytesPerSession > 0 ? (1L << 30) / bytesPerSession : 0);
+		// warm up for a fifth of the measured time
+		generator.run(seconds * 200_000_000L, seconds * 1_000_000_000L);
+		LatencyHistogram latencies = generator.getLatencies();
+		System.out.printf("%,d shots (%,d per second), %,d games%n", latencies.getCount(),
+				latencies.getCount() / seconds, generator.getGames());
+		System.out.printf("shot latency (microseconds): p50 %d, p99 %d, p99.9 %d, max %d%n",
+				latencies.getPercentile(0.5), latencies.getPercentile(0.99), latencies.getPercentile(0.999),
+				latencies.getMax());
+		if (server != null) {
+			server.shutdown();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative numbers (latencies, counts) that any number of
+ * threads can record into at once without locking
+ *
+ * Every bucket is a LongAdder, so threads recording at the same time do not
+ * contend for the same memory. Numbers below 128 each have a bucket of their
+ * own (so the number of shots of a classic game is exact); above that, each
+ * power of 2 is split into 16 buckets, so a percentile is never off by more
+ * than a sixteenth. Reading the histogram while it is being recorded into
+ * gives a result that is close, but not necessarily exact.
+ *
+ */
+public class MetricHistogram {
+
+	/* INSTANCE VARIABLES */
+
+	// numbers below this each have a bucket
+	private static final int EXACT = 128;
+	// above that, each power of 2 is split into this many buckets
+	private static final int SUB_BUCKETS = 16;
+	// log2(EXACT) and log2(SUB_BUCKETS)
+	private static final int EXACT_BITS = 7;
+	private static final int SUB_BITS = 4;
+
+	// the number of times each bucket was recorded
+	private final LongAdder[] counts = new LongAdder[EXACT + (63 - EXACT_BITS) * SUB_BUCKETS];
+	// the sum of the numbers recorded
+	private final LongAdder sum = new LongAdder();
+	// the largest number recorded
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an empty MetricHistogram
+	 */
+	public MetricHistogram() {
+		for (int i = 0; i < this.counts.length; i++) {
+			this.counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a number (negative numbers are recorded as 0)
+	 *
+	 * @param value
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		this.counts[bucketOf(value)].increment();
+		this.sum.add(value);
+		this.max.accumulate(value);
+	}
+
+	/**
+	 * Returns the bucket that holds the given number
+	 *
+	 * @param value
+	 * @return
+	 */
+	private static int bucketOf(long value) {
+		if (value < EXACT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return EXACT + (exponent - EXACT_BITS) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Returns the largest number that falls in the given bucket
+	 *
+	 * @param bucket
+	 * @return
+	 */
+	private static long highestIn(int bucket) {
+		if (bucket < EXACT) {
+			return bucket;
+		}
+		int exponent = (bucket - EXACT) / SUB_BUCKETS + EXACT_BITS;
+		int sub = (bucket - EXACT) % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+	}
+
+	/**
+	 * Returns the number that the given fraction of the recorded numbers do not
+	 * exceed (0 if nothing has been recorded)
+	 *
+	 * @param fraction
+	 * @return
+	 */
+	public long getPercentile(double fraction) {
+		// read every bucket once, so the total matches the buckets
+		long[] snapshot = new long[this.counts.length];
+		long total = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = this.counts[i].sum();
+			total += snapshot[i];
+		}
+		long max = this.max.get();
+		long rank = (long) Math.ceil(fraction * total);
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank && seen > 0) {
+				return Math.min(highestIn(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the number of numbers recorded
+	 *
+	 * @return
+	 */
+	public long getCount() {
+		long total = 0;
+		for (LongAdder count : this.counts) {
+			total += count.sum();
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the sum of the numbers recorded
+	 *
+	 * @return
+	 */
+	public long getSum() {
+		return this.sum.sum();
+	}
+
+	/**
+	 * Returns the mean of the numbers recorded (0 if nothing has been recorded)
+	 *
+	 * @return
+	 */
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) getSum() / count;
+	}
+
+	/**
+	 * Returns the largest number recorded
+	 *
+	 * @return
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+}
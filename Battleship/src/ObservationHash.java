@@ -0,0 +1,203 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A Zobrist hash of what a player has seen of an ocean: which locations have
+ * been fired upon, and whether each was a miss, a hit on a ship that is still
+ * afloat, or part of a sunken ship
+ *
+ * Every location has a random 64-bit key for each of those states, and the
+ * hash is the XOR of the keys of all the locations that have been fired upon,
+ * so a shot updates it with a couple of XORs instead of rehashing the ocean.
+ *
+ * The hash is kept for every symmetry of the ocean at once (the 8 rotations and
+ * reflections of a square ocean, or the 4 that keep a rectangular one the same
+ * shape), as if the ocean had been turned that way before hashing. The
+ * canonical hash is the lowest of them, so positions that are rotations or
+ * mirror images of each other have the same canonical hash; toCanonical() and
+ * fromCanonical() turn a location into and out of the orientation it belongs
+ * to.
+ *
+ */
+public class ObservationHash {
+
+	/* INSTANCE VARIABLES */
+
+	// the states of a location, as a player sees them
+	public static final int UNKNOWN = 0;
+	public static final int MISSED = 1;
+	public static final int HIT = 2;
+	public static final int SUNK = 3;
+
+	// the tables of every size of ocean used so far
+	private static final ConcurrentHashMap<Long, Tables> TABLES = new ConcurrentHashMap<>();
+
+	// the keys and symmetries of this size of ocean
+	private final Tables tables;
+	// the number of columns in the ocean
+	private final int columns;
+	// the hash in every orientation
+	private final long[] hashes;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for the hash of an ocean of the given size that has never
+	 * been fired upon
+	 *
+	 * @param rows
+	 * @param columns
+	 */
+	public ObservationHash(int rows, int columns) {
+		this.tables = TABLES.computeIfAbsent((long) rows << 32 | columns, size -> new Tables(rows, columns));
+		this.columns = columns;
+		this.hashes = new long[this.tables.maps.length];
+	}
+
+	/**
+	 * Records that the given location changed from one state to another
+	 *
+	 * @param row
+	 * @param column
+	 * @param from   UNKNOWN, MISSED, HIT or SUNK
+	 * @param to
+	 */
+	public void update(int row, int column, int from, int to) {
+		int cell = row * this.columns + column;
+		long[] keys = this.tables.keys;
+		for (int t = 0; t < this.hashes.length; t++) {
+			int turned = this.tables.maps[t][cell] << 2;
+			this.hashes[t] ^= keys[turned | from] ^ keys[turned | to];
+		}
+	}
+
+	/**
+	 * Returns the orientation whose hash is the canonical one
+	 *
+	 * @return
+	 */
+	public int canonicalSymmetry() {
+		int best = 0;
+		for (int t = 1; t < this.hashes.length; t++) {
+			if (this.hashes[t] < this.hashes[best]) {
+				best = t;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the canonical hash (the same for every rotation and reflection of
+	 * the position)
+	 *
+	 * @return
+	 */
+	public long canonical() {
+		return this.hashes[canonicalSymmetry()];
+	}
+
+	/**
+	 * Returns the hash in the given orientation
+	 *
+	 * @param symmetry
+	 * @return
+	 */
+	public long getHash(int symmetry) {
+		return this.hashes[symmetry];
+	}
+
+	/**
+	 * Returns the number of orientations (8 for a square ocean, 4 otherwise)
+	 *
+	 * @return
+	 */
+	public int getSymmetryCount() {
+		return this.hashes.length;
+	}
+
+	/**
+	 * Returns where the given location (row * columns + column) is once the
+	 * ocean is turned into the given orientation
+	 *
+	 * @param symmetry
+	 * @param cell
+	 * @return
+	 */
+	public int toCanonical(int symmetry, int cell) {
+		return this.tables.maps[symmetry][cell];
+	}
+
+	/**
+	 * Returns the location that ends up at the given location once the ocean is
+	 * turned into the given orientation
+	 *
+	 * @param symmetry
+	 * @param cell
+	 * @return
+	 */
+	public int fromCanonical(int symmetry, int cell) {
+		return this.tables.inverses[symmetry][cell];
+	}
+
+	/**
+	 * The keys and symmetries of one size of ocean, shared by every hash of
+	 * that size
+	 */
+	private static class Tables {
+
+		// keys[cell << 2 | state] (0 for UNKNOWN, so an untouched ocean hashes
+		// to 0)
+		final long[] keys;
+		// maps[t][cell] is where the location goes in orientation t
+		final int[][] maps;
+		// inverses[t][cell] is the location that goes to cell in orientation t
+		final int[][] inverses;
+
+		Tables(int rows, int columns) {
+			int cells = rows * columns;
+			// the same keys every run, so hashes can be compared between runs
+			SplittableRandom random = new SplittableRandom((long) rows << 32 | columns);
+			this.keys = new long[cells << 2];
+			for (int i = 0; i < this.keys.length; i++) {
+				if ((i & 3) != UNKNOWN) {
+					this.keys[i] = random.nextLong();
+				}
+			}
+			// turning a rectangular ocean by 90 degrees changes its shape
+			int count = rows == columns ? 8 : 4;
+			this.maps = new int[count][cells];
+			this.inverses = new int[count][cells];
+			for (int t = 0; t < count; t++) {
+				for (int i = 0; i < rows; i++) {
+					for (int j = 0; j < columns; j++) {
+						int turned = turn(t, i, j, rows, columns);
+						this.maps[t][i * columns + j] = turned;
+						this.inverses[t][turned] = i * columns + j;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns where the given location goes in the given orientation
+		 *
+		 * @param t       0 to 3 flip the rows and/or columns; 4 to 7 also swap
+		 *                rows and columns (square oceans only)
+		 * @param row
+		 * @param column
+		 * @param rows
+		 * @param columns
+		 * @return
+		 */
+		private static int turn(int t, int row, int column, int rows, int columns) {
+			int i = (t & 1) != 0 ? rows - 1 - row : row;
+			int j = (t & 2) != 0 ? columns - 1 - column : column;
+			if ((t & 4) != 0) {
+				int swap = i;
+				i = j;
+				j = swap;
+			}
+			return i * columns + j;
+		}
+	}
+}
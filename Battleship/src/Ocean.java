@@ -1,4 +1,7 @@
-import java.util.Random;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * A class for the ocean in the game Battleship
@@ -10,92 +13,142 @@ public class Ocean {
 
 	/* INSTANCE VARIABLES */
 
+	// results of fire()
+	public static final int MISS = 0;
+	public static final int HIT = 1;
+	public static final int SUNK = 2;
+	// the location had already been fired upon
+	public static final int REPEAT = 3;
+
+	// the listeners of an ocean that has none
+	private static final OceanListener[] NO_LISTENERS = new OceanListener[0];
+
+	// the state of a location
+	// empty sea that has never been fired upon
+	private static final byte EMPTY = 0;
+	// empty sea that has been fired upon
+	private static final byte MISSED = 1;
+	// part of a ship that has never been fired upon
+	private static final byte AFLOAT = 2;
+	// part of a ship that has been hit, but is still afloat
+	private static final byte DAMAGED = 3;
+	// part of a sunken ship
+	private static final byte SUNKEN = 4;
+
+	// the size of the ocean and the makeup of the fleet
+	protected final GameConfig config;
+	// the number of rows in the ocean
+	protected final int rows;
+	// the number of columns in the ocean
+	protected final int columns;
 	// used to quickly determine which ship is in any given location
+	// each row is only created once a ship is placed in it, and a location
+	// without a ship stays null (it holds the shared EmptySea), so a large
+	// ocean costs next to nothing until it is used
 	private Ship[][] ships;
+	// the state of every location, so that checking a location never has to
+	// ask its ship (a row is created when a ship is placed or a shot is fired
+	// in it)
+	private byte[][] states;
+	// the ships that have been placed, in the order they were placed
+	protected final Ship[] fleet;
+	// the number of ships that have been placed
+	protected int shipsPlaced;
 	// the total number of shots fired by the user
-	private int shotsFired;
+	protected int shotsFired;
 	// the number of times a shot hit a ship
 	// if the user shoots the same part of a ship more than once,
-	// every hit is counted, even though the additional "hits" don't do any good
-	private int hitCount;
-	// the number of ships sunk (10 ships in all)
-	private int shipsSunk;
+	// only the first hit is counted (the others are repeats)
+	protected int hitCount;
+	// the number of ships sunk
+	protected int shipsSunk;
+	// sinkTurns[i] is the number of shots that had been fired when the i-th ship
+	// placed was sunk (0 while it is afloat)
+	private final int[] sinkTurns;
 	// the number of remaining ships
-	private int shipsRemaining;
+	protected int shipsRemaining;
+	// the hash of what the player has seen, or null if it is not kept
+	private ObservationHash observation;
+	// told about every shot (replaced, never changed, when a listener is added
+	// or removed, so telling them allocates nothing)
+	private OceanListener[] listeners = NO_LISTENERS;
 
 	/* METHODS */
 
 	/**
-	 * Constructor for an instance of Ocean
+	 * Constructor for an instance of Ocean (classic 10x10 game)
 	 */
 	public Ocean() {
-		// create a new 10x10 ships array
-		ships = new Ship[10][10];
-		// populate the ships array with EmptySeas
-		for (int i = 0; i < 10; i++) {
-			for (int j = 0; j < 10; j++) {
-				// place an EmptySea at the current square
-				ships[i][j] = new EmptySea();
-				// set the EmptySea's bowRow
-				ships[i][j].setBowRow(i);
-				// set the EmptySea's bowColumn
-				ships[i][j].setBowColumn(j);
-			}
-		}
+		this(GameConfig.standard());
+	}
+
+	/**
+	 * Constructor for an instance of Ocean with the given size and fleet
+	 * 
+	 * @param config
+	 */
+	public Ocean(GameConfig config) {
+		// create the rows of the ships array (filled in as needed)
+		this(config, new Ship[config.getRows()][]);
+	}
+
+	/**
+	 * Constructor for subclasses that keep their own representation of the
+	 * ocean (the ships array may be null)
+	 * 
+	 * @param config
+	 * @param ships
+	 */
+	protected Ocean(GameConfig config, Ship[][] ships) {
+		this.config = config;
+		this.rows = config.getRows();
+		this.columns = config.getColumns();
+		this.ships = ships;
+		this.states = ships == null ? null : new byte[ships.length][];
+		this.fleet = new Ship[config.getFleetSize()];
+		this.sinkTurns = new int[config.getFleetSize()];
 		// initialize game variables as 0 (except for shipsRemaining)
 		shotsFired = 0;
 		hitCount = 0;
 		shipsSunk = 0;
-		shipsRemaining = 10;
-	}
-
-	/**
-	 * Places all ten ships randomly on the empty ocean
-	 */
-	public void placeAllShipsRandomly() {
-		// will hold each new ship
-		Ship ship;
-		// will be used to generate random values
-		Random rand = new Random();
-		// will hold randomly generated values for bowRow
-		int bowRow;
-		// will hold randomly generated values for bowColumn
-		int bowColumn;
-		// will hold randomly generated values for horizontal
-		boolean horizontal;
-		// create and place each ship in the fleet in descending order of length
-		for (int i = 0; i < 10; i++) {
-			if (i == 0) {
-				// 1x battleship (length 4)
-				ship = new Battleship();
-			} else if (i == 1 || i == 2) {
-				// 2x cruisers (length 3)
-				ship = new Cruiser();
-			} else if (3 <= i && i <= 5) {
-				// 3x destroyers (length 2)
-				ship = new Destroyer();
-			} else {
-				// 4x submarines (length 1)
-				ship = new Submarine();
-			}
-			// keep generating random values the new ship
-			// until it is okay to place it
-			while (true) {
-				// generate a random int for bowRow
-				bowRow = rand.nextInt(10);
-				// generate a random int for bowColumn
-				bowColumn = rand.nextInt(10);
-				// generate a random boolean for horizontal
-				horizontal = rand.nextBoolean();
-				// check if it is okay to place the ship with the random values
-				if (ship.okToPlaceShipAt(bowRow, bowColumn, horizontal, this)) {
-					// if it is okay, then place the ship
-					ship.placeShipAt(bowRow, bowColumn, horizontal, this);
-					// break from the while loop and proceed to next ship
-					break;
-				}
-			}
+		shipsRemaining = config.getFleetSize();
+	}
+
+	/**
+	 * Places all the ships in the fleet randomly on the empty ocean
+	 * 
+	 * @return the number of placement attempts used
+	 */
+	public int placeAllShipsRandomly() {
+		// nobody needs to replay this fleet, so use the thread's own stream
+		return placeAllShipsRandomly(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Places all the ships in the fleet on the empty ocean, using the given
+	 * random stream (so the same stream in the same state places the same
+	 * fleet)
+	 * 
+	 * @param random
+	 * @return the number of placement attempts used
+	 */
+	public int placeAllShipsRandomly(RandomGenerator random) {
+		// choose a legal position for every ship
+		// (the placer never gets stuck, unlike picking random positions
+		// until Ship.okToPlaceShipAt() accepts one; it is reused by every
+		// ocean of this configuration on this thread, so placing a fleet
+		// allocates nothing but the ships and the rows they are in)
+		long start = System.nanoTime();
+		FleetPlacer placer = this.config.getPlacer();
+		int attempts = placer.place(random);
+		// create each ship in the fleet (in descending order of length)
+		// and place it at its chosen position
+		for (int i = 0; i < this.config.getFleetSize(); i++) {
+			Ship ship = this.config.createShip(i);
+			ship.placeShipAt(placer.getBowRow(i), placer.getBowColumn(i), placer.isHorizontal(i), this);
 		}
+		EngineMetrics.global().recordPlacement(attempts - this.config.getFleetSize(), System.nanoTime() - start);
+		return attempts;
 	}
 
 	/**
@@ -106,16 +159,9 @@ public class Ocean {
 	 * @return
 	 */
 	public boolean isOccupied(int row, int column) {
-		// return false if the location contains an EmptySea
-		if (ships[row][column].getShipType().equals("empty")) {
-			return false;
-		}
-		// return false if the location contains a sunken ship
-		if (ships[row][column].isSunk()) {
-			return false;
-		}
-		// otherwise return true
-		return true;
+		// true if the location contains part of a ship that is still afloat
+		byte state = stateAt(row, column);
+		return state == AFLOAT || state == DAMAGED;
 	}
 
 	/**
@@ -127,24 +173,291 @@ public class Ocean {
 	 * @return
 	 */
 	boolean shootAt(int row, int column) {
-		// get the ship at the given location
-		Ship ship = this.ships[row][column];
-		// increment the hit count if the location contains a "real" ship
-		if (isOccupied(row, column)) {
-			this.hitCount++;
+		int result = fire(row, column);
+		// firing again at a ship that is still afloat still "hits" it
+		return result == HIT || result == SUNK || (result == REPEAT && isOccupied(row, column));
+	}
+
+	/**
+	 * Shoots at the given location and returns what happened
+	 * 
+	 * @param row
+	 * @param column
+	 * @return MISS, HIT, SUNK (if the shot hit the last part of a ship that was
+	 *         afloat) or REPEAT (if the location had already been fired upon;
+	 *         the shot counts, but changes nothing else)
+	 */
+	final int fire(int row, int column) {
+		int result;
+		// time a sample of the shots for the engine metrics (chosen at random,
+		// not by the shot's number, or the first shot of every game, which is
+		// the slowest, would always be one of them)
+		if ((ThreadLocalRandom.current().nextInt() & EngineMetrics.SHOT_SAMPLE_MASK) == 0) {
+			long start = System.nanoTime();
+			result = applyShot(row, column);
+			EngineMetrics.global().recordShot(System.nanoTime() - start);
+		} else {
+			result = applyShot(row, column);
+		}
+		if (this.observation != null) {
+			observe(row, column, result);
+		}
+		if (result == SUNK) {
+			Ship ship = getShipAt(row, column);
+			noteSinkTurn(ship);
+			if (isGameOver()) {
+				EngineMetrics.global().recordGameFinished(this.shotsFired);
+			}
+			if (this.listeners.length > 0) {
+				notifySunk(row, column, ship);
+			}
+		} else if (this.listeners.length > 0) {
+			notifyShot(row, column, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Tells the listeners about a shot that did not sink a ship
+	 * 
+	 * @param row
+	 * @param column
+	 * @param result
+	 */
+	private void notifyShot(int row, int column, int result) {
+		for (OceanListener listener : this.listeners) {
+			if (result == MISS) {
+				listener.onMiss(row, column);
+			} else if (result == HIT) {
+				listener.onHit(row, column);
+			}
+		}
+	}
+
+	/**
+	 * Tells the listeners about a shot that sank a ship (and about the end of
+	 * the game, if it was the last one)
+	 * 
+	 * @param row
+	 * @param column
+	 * @param ship
+	 */
+	private void notifySunk(int row, int column, Ship ship) {
+		boolean gameOver = isGameOver();
+		for (OceanListener listener : this.listeners) {
+			listener.onSunk(row, column, ship);
+			if (gameOver) {
+				listener.onGameOver(this.shotsFired);
+			}
+		}
+	}
+
+	/**
+	 * Tells the given listener about every shot fired from now on (see
+	 * OceanListener), after the listeners added before it
+	 * 
+	 * @param listener
+	 */
+	public void addListener(OceanListener listener) {
+		OceanListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+		this.listeners = listeners;
+	}
+
+	/**
+	 * Stops telling the given listener about shots (if it was added more than
+	 * once, only the last is removed)
+	 * 
+	 * @param listener
+	 */
+	public void removeListener(OceanListener listener) {
+		for (int i = this.listeners.length - 1; i >= 0; i--) {
+			if (this.listeners[i] == listener) {
+				OceanListener[] listeners = new OceanListener[this.listeners.length - 1];
+				System.arraycopy(this.listeners, 0, listeners, 0, i);
+				System.arraycopy(this.listeners, i + 1, listeners, i, listeners.length - i);
+				this.listeners = listeners;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Remembers the shot on which the given ship was sunk
+	 * 
+	 * @param ship
+	 */
+	private void noteSinkTurn(Ship ship) {
+		for (int i = 0; i < this.shipsPlaced; i++) {
+			if (this.fleet[i] == ship) {
+				this.sinkTurns[i] = this.shotsFired;
+				return;
+			}
 		}
-		// shoot at the given location
-		boolean hit = ship.shootAt(row, column);
-		// if a ship was just hit AND sunk...
-		if (hit && ship.isSunk()) {
-			// ...increment the # of ships sunk
-			shipsSunk++;
-			// and decrement the # of ships remaining
-			shipsRemaining--;
+	}
+
+	/**
+	 * Returns the number of shots that had been fired when the given ship (in
+	 * the order the ships were placed) was sunk, or 0 if it is still afloat (or
+	 * was already sunk when the ocean was restored from a snapshot)
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public int getSinkTurn(int i) {
+		return this.sinkTurns[i];
+	}
+
+	/**
+	 * Updates the observation hash after a shot
+	 * 
+	 * @param row
+	 * @param column
+	 * @param result
+	 */
+	private void observe(int row, int column, int result) {
+		switch (result) {
+		case MISS:
+			this.observation.update(row, column, ObservationHash.UNKNOWN, ObservationHash.MISSED);
+			break;
+		case HIT:
+			this.observation.update(row, column, ObservationHash.UNKNOWN, ObservationHash.HIT);
+			break;
+		case SUNK:
+			// every part of the ship is now seen as sunken (the others had
+			// already been hit)
+			Ship ship = getShipAt(row, column);
+			for (int i = 0; i < ship.getLength(); i++) {
+				int r = ship.isHorizontal() ? ship.getBowRow() : ship.getBowRow() + i;
+				int c = ship.isHorizontal() ? ship.getBowColumn() + i : ship.getBowColumn();
+				boolean last = r == row && c == column;
+				this.observation.update(r, c, last ? ObservationHash.UNKNOWN : ObservationHash.HIT,
+						ObservationHash.SUNK);
+			}
+			break;
+		default:
+			// a repeat changes nothing
+		}
+	}
+
+	/**
+	 * Starts keeping an ObservationHash of this ocean (if it is not kept
+	 * already), updated with every shot from now on, and returns it
+	 * 
+	 * @return
+	 */
+	public ObservationHash trackObservation() {
+		if (this.observation == null) {
+			ObservationHash hash = new ObservationHash(this.rows, this.columns);
+			// hash the shots that have already been fired
+			for (int i = 0; i < this.rows; i++) {
+				for (int j = 0; j < this.columns; j++) {
+					switch (getSymbol(i, j)) {
+					case '-':
+						hash.update(i, j, ObservationHash.UNKNOWN, ObservationHash.MISSED);
+						break;
+					case 'S':
+						hash.update(i, j, ObservationHash.UNKNOWN, ObservationHash.HIT);
+						break;
+					case 'x':
+						hash.update(i, j, ObservationHash.UNKNOWN, ObservationHash.SUNK);
+						break;
+					default:
+						// never fired upon
+					}
+				}
+			}
+			this.observation = hash;
 		}
+		return this.observation;
+	}
+
+	/**
+	 * Returns the ObservationHash of this ocean, or null if it is not kept (see
+	 * trackObservation())
+	 * 
+	 * @return
+	 */
+	public ObservationHash getObservation() {
+		return this.observation;
+	}
+
+	/**
+	 * Shoots at the given location and returns what happened (see fire(); the
+	 * part that depends on how the ocean is stored)
+	 * 
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	protected int applyShot(int row, int column) {
 		// increment the # of shots fired by 1
 		this.shotsFired++;
-		return hit;
+		switch (stateAt(row, column)) {
+		case EMPTY:
+			// record the miss
+			markShot(row, column);
+			return MISS;
+		case AFLOAT:
+			// a new hit
+			this.hitCount++;
+			if (markShot(row, column)) {
+				// the ship was just sunk, so increment the # of ships sunk
+				// and decrement the # of ships remaining
+				this.shipsSunk++;
+				this.shipsRemaining--;
+				return SUNK;
+			}
+			return HIT;
+		default:
+			return REPEAT;
+		}
+	}
+
+	/**
+	 * Marks a location that has never been fired upon as fired upon, without
+	 * counting the shot
+	 * 
+	 * @param row
+	 * @param column
+	 * @return true if the shot sank a ship
+	 */
+	private boolean markShot(int row, int column) {
+		if (stateAt(row, column) == EMPTY) {
+			// record the miss (the shared EmptySea keeps no state)
+			if (this.states[row] == null) {
+				this.states[row] = new byte[this.columns];
+			}
+			this.states[row][column] = MISSED;
+			return false;
+		}
+		Ship ship = this.ships[row][column];
+		ship.shootAt(row, column);
+		if (!ship.isSunk()) {
+			this.states[row][column] = DAMAGED;
+			return false;
+		}
+		// mark every location of the ship as sunken
+		for (int i = 0; i < ship.getLength(); i++) {
+			if (ship.isHorizontal()) {
+				this.states[row][ship.getBowColumn() + i] = SUNKEN;
+			} else {
+				this.states[ship.getBowRow() + i][column] = SUNKEN;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the state of the given location
+	 * 
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	private byte stateAt(int row, int column) {
+		// a row that was never created is all empty sea
+		return this.states[row] == null ? EMPTY : this.states[row][column];
 	}
 
 	/**
@@ -162,7 +475,7 @@ public class Ocean {
 	 * @return
 	 */
 	public int getHitCount() {
-		// all hits are counted, not just the first time a given square is hit
+		// only the first hit on a given square is counted
 		return this.hitCount;
 	}
 
@@ -190,48 +503,310 @@ public class Ocean {
 	 * @return
 	 */
 	public boolean isGameOver() {
-		return this.shipsSunk == 10;
+		return this.shipsSunk == this.config.getFleetSize();
+	}
+
+	/**
+	 * Returns the size of the ocean and the makeup of the fleet
+	 * 
+	 * @return
+	 */
+	public GameConfig getConfig() {
+		return this.config;
 	}
 
 	/**
-	 * Returns the 10x10 array of ships
+	 * Returns the number of rows in the ocean
+	 * 
+	 * @return
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Returns the number of columns in the ocean
+	 * 
+	 * @return
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Returns the full array of ships
 	 * 
 	 * @return
 	 */
 	public Ship[][] getShipArray() {
 		/*
-		 * Returns the 10x10 array of ships Methods in the Ship class that take an Ocean
-		 * parameter really need to be able to look at the contents of this array
-		 * placeShipAt() even needs to modify it While it is undesirable to allow
-		 * methods in one class to directly access instance variables in another class,
-		 * sometimes there is just no good alternative
+		 * Returns the array of ships, with the shared EmptySea in every location
+		 * that does not contain a ship. The array is filled in lazily, so the first
+		 * call takes time proportional to the size of the ocean; prefer getShipAt()
+		 * for large oceans
 		 */
+		for (int i = 0; i < this.rows; i++) {
+			if (this.ships[i] == null) {
+				this.ships[i] = new Ship[this.columns];
+			}
+			for (int j = 0; j < this.columns; j++) {
+				if (this.ships[i][j] == null) {
+					this.ships[i][j] = EmptySea.getInstance();
+				}
+			}
+		}
 		return this.ships;
 	}
 
+	/**
+	 * Returns the ship (or EmptySea) at the given location
+	 * 
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public Ship getShipAt(int row, int column) {
+		if (this.ships[row] != null && this.ships[row][column] != null) {
+			return this.ships[row][column];
+		}
+		// no ship has been placed here, so the location is empty sea
+		return EmptySea.getInstance();
+	}
+
+	/**
+	 * Puts a reference to the given ship at the given location (used by
+	 * Ship.placeShipAt())
+	 * 
+	 * @param row
+	 * @param column
+	 * @param ship
+	 */
+	void setShipAt(int row, int column, Ship ship) {
+		// create the row the first time a ship is placed in it
+		if (this.ships[row] == null) {
+			this.ships[row] = new Ship[this.columns];
+		}
+		if (this.states[row] == null) {
+			this.states[row] = new byte[this.columns];
+		}
+		this.ships[row][column] = ship;
+		this.states[row][column] = AFLOAT;
+		addToFleet(ship);
+	}
+
+	/**
+	 * Adds a ship to the fleet the first time one of its locations is stored
+	 * 
+	 * @param ship
+	 */
+	protected void addToFleet(Ship ship) {
+		// Ship.placeShipAt() stores every location of a new ship in turn,
+		// so the ship is only new if it differs from the last one added
+		if (this.shipsPlaced == 0 || this.fleet[this.shipsPlaced - 1] != ship) {
+			this.fleet[this.shipsPlaced] = ship;
+			this.shipsPlaced++;
+		}
+	}
+
+	/**
+	 * Returns the number of ships that have been placed
+	 * 
+	 * @return
+	 */
+	public int getShipsPlaced() {
+		return this.shipsPlaced;
+	}
+
+	/**
+	 * Returns the given ship of the fleet, in the order the ships were placed
+	 * 
+	 * @param i
+	 * @return
+	 */
+	public Ship getShip(int i) {
+		return this.fleet[i];
+	}
+
+	/**
+	 * Returns true if the given location has been fired upon
+	 * 
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	boolean isShot(int row, int column) {
+		byte state = stateAt(row, column);
+		return state != EMPTY && state != AFLOAT;
+	}
+
+	/**
+	 * Marks the given location as fired upon without counting the shot (used
+	 * when a saved game is restored; the counters are restored separately)
+	 * 
+	 * @param row
+	 * @param column
+	 */
+	void restoreShot(int row, int column) {
+		if (!isShot(row, column)) {
+			markShot(row, column);
+		}
+	}
+
+	/**
+	 * Sets the counters of a restored game
+	 * 
+	 * @param shotsFired
+	 * @param hitCount
+	 * @param shipsSunk
+	 */
+	void restoreCounters(int shotsFired, int hitCount, int shipsSunk) {
+		this.shotsFired = shotsFired;
+		this.hitCount = hitCount;
+		this.shipsSunk = shipsSunk;
+		this.shipsRemaining = this.config.getFleetSize() - shipsSunk;
+	}
+
 	/**
 	 * Prints the ocean grid
 	 */
 	public void print() {
+		print(System.out);
+	}
+
+	/**
+	 * Prints the ocean grid to the given stream
+	 * 
+	 * @param out
+	 */
+	public void print(PrintStream out) {
 		/*
 		 * Prints the ocean Row numbers should be displayed along the left edge of the
 		 * array, and column numbers should displayed along the top Numbers should be 0
-		 * to 9 Use 'S' to indicate a location that you have fired upon and hit a "real"
-		 * ship Use '-' to indicate a location that you have fired upon and found
-		 * nothing Use 'x' to indicate a location containing a sunken ship Use '.' to
-		 * indicate a location that you have never fired upon The only method in Ocean
-		 * that does any input/output NEVER called from within the Ocean class, only
-		 * from BattleShipGame
+		 * to (rows - 1) and 0 to (columns - 1) Use 'S' to indicate a location that
+		 * you have fired upon and hit a "real" ship Use '-' to indicate a location
+		 * that you have fired upon and found nothing Use 'x' to indicate a location
+		 * containing a sunken ship Use '.' to indicate a location that you have never
+		 * fired upon The only method in Ocean that does any input/output NEVER called
+		 * from within the Ocean class, only from BattleShipGame
 		 */
-		System.out.println("    |  0  |  1  |  2  |  3  |  4  |  5  |  6  |  7  |  8  |  9  |");
-		System.out.println("----+-----+-----+-----+-----+-----+-----+-----+-----+-----+-----+");
-		for (int i = 0; i < 10; i++) {
-			System.out.printf("  %d |", i);
-			for (int j = 0; j < 10; j++) {
-				System.out.printf("  %s  |", this.ships[i][j].isHit(i, j) ? this.ships[i][j] : ".");
+		// build the whole grid first, then print it in one go
+		String separator = separatorLine();
+		StringBuilder sb = new StringBuilder();
+		sb.append(headerLine()).append('\n');
+		sb.append(separator).append('\n');
+		for (int i = 0; i < this.rows; i++) {
+			sb.append(rowLabel(i));
+			for (int j = 0; j < this.columns; j++) {
+				sb.append(cell(getSymbol(i, j)));
+			}
+			sb.append('\n');
+			sb.append(separator).append('\n');
+		}
+		out.print(sb);
+	}
+
+	/**
+	 * Returns the symbol printed for the given location: 'S' for a hit on a ship
+	 * that is still afloat, '-' for a miss, 'x' for part of a sunken ship, and '.'
+	 * for a location that has never been fired upon
+	 * 
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public char getSymbol(int row, int column) {
+		switch (stateAt(row, column)) {
+		case MISSED:
+			return '-';
+		case DAMAGED:
+			return 'S';
+		case SUNKEN:
+			return 'x';
+		default:
+			// never fired upon
+			return '.';
+		}
+	}
+
+	/**
+	 * Returns the line of column numbers printed along the top of the ocean
+	 * 
+	 * @return
+	 */
+	protected String headerLine() {
+		StringBuilder sb = new StringBuilder();
+		// leave room for the row numbers
+		for (int i = 0; i < rowLabel(0).length() - 1; i++) {
+			sb.append(' ');
+		}
+		sb.append('|');
+		int width = digits(this.columns - 1);
+		for (int j = 0; j < this.columns; j++) {
+			sb.append("  ").append(j);
+			for (int k = digits(j); k < width + 2; k++) {
+				sb.append(' ');
+			}
+			sb.append('|');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the line printed between two rows of the ocean
+	 * 
+	 * @return
+	 */
+	protected String separatorLine() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < rowLabel(0).length() - 1; i++) {
+			sb.append('-');
+		}
+		sb.append('+');
+		int width = digits(this.columns - 1);
+		for (int j = 0; j < this.columns; j++) {
+			for (int k = 0; k < width + 4; k++) {
+				sb.append('-');
 			}
-			System.out.println("");
-			System.out.println("----+-----+-----+-----+-----+-----+-----+-----+-----+-----+-----+");
+			sb.append('+');
 		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the row number printed along the left edge of the given row
+	 * 
+	 * @param row
+	 * @return
+	 */
+	protected String rowLabel(int row) {
+		StringBuilder sb = new StringBuilder("  ").append(row);
+		for (int k = digits(row); k < digits(this.rows - 1); k++) {
+			sb.append(' ');
+		}
+		return sb.append(" |").toString();
+	}
+
+	/**
+	 * Returns the text printed for a single location with the given symbol
+	 * 
+	 * @param symbol
+	 * @return
+	 */
+	protected String cell(char symbol) {
+		StringBuilder sb = new StringBuilder("  ").append(symbol);
+		for (int k = 1; k < digits(this.columns - 1) + 2; k++) {
+			sb.append(' ');
+		}
+		return sb.append('|').toString();
+	}
+
+	/**
+	 * Returns the number of decimal digits in the given (non-negative) number
+	 * 
+	 * @param n
+	 * @return
+	 */
+	private static int digits(int n) {
+		return n < 10 ? 1 : 1 + digits(n / 10);
 	}
 }
@@ -0,0 +1,49 @@
+/**
+ * Something that wants to hear about every shot fired at an Ocean, as it
+ * happens (see Ocean.addListener())
+ *
+ * The listeners are called by the thread that fired, before fire() returns,
+ * after the ocean has been updated, so it can be asked about the shot (e.g. how
+ * many ships remain). Every method does nothing unless overridden, so a
+ * listener only needs the ones it cares about. A shot at a location that had
+ * already been fired upon calls none of them.
+ *
+ */
+public interface OceanListener {
+
+	/**
+	 * Called when a shot hits empty sea
+	 *
+	 * @param row
+	 * @param column
+	 */
+	default void onMiss(int row, int column) {
+	}
+
+	/**
+	 * Called when a shot hits a ship, but does not sink it
+	 *
+	 * @param row
+	 * @param column
+	 */
+	default void onHit(int row, int column) {
+	}
+
+	/**
+	 * Called when a shot hits the last part of a ship that was afloat
+	 *
+	 * @param row
+	 * @param column
+	 * @param ship   the ship that was sunk
+	 */
+	default void onSunk(int row, int column, Ship ship) {
+	}
+
+	/**
+	 * Called when a shot sinks the last ship of the fleet (after onSunk())
+	 *
+	 * @param shotsFired the number of shots fired in the game
+	 */
+	default void onGameOver(int shotsFired) {
+	}
+}
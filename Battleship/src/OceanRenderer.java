@@ -0,0 +1,272 @@
+import java.io.PrintStream;
+
+/**
+ * Draws the ocean display for BattleshipGame
+ *
+ * Each frame is built in a buffer that is reused from frame to frame, and is
+ * written to the terminal with a single write. In plain mode (for dumb
+ * terminals, pipes and files) every frame scrolls the old one out of sight and
+ * prints the whole grid, like Ocean.print(). In ANSI mode the first frame
+ * clears the screen, and every later frame only moves the cursor to the
+ * locations that changed since the previous frame and redraws those.
+ *
+ * Either way, the cursor ends up on the line below the grid, which is cleared
+ * in ANSI mode, so messages can be printed there. Those lines are made a
+ * scroll region of their own in ANSI mode, so that long messages scroll
+ * under the grid instead of scrolling the grid off the screen (which would
+ * leave the cursor positions of the changes pointing at the wrong lines). If
+ * the terminal is too short to keep any lines below the grid, every frame is
+ * drawn in full instead. Call restore() before leaving the program, to give
+ * the whole terminal back to the shell.
+ *
+ */
+public class OceanRenderer {
+
+	/* INSTANCE VARIABLES */
+
+	// the ANSI "control sequence introducer"
+	private static final String CSI = "\033[";
+	// the number of blank lines used to scroll the old frame away in plain mode
+	private static final int CLEAR_LINES = 50;
+	// the number of lines of a terminal that does not say (that of a VT100)
+	private static final int DEFAULT_HEIGHT = 24;
+
+	// the terminal
+	private final PrintStream out;
+	// true to use ANSI cursor movement
+	private final boolean ansi;
+	// the number of lines of the terminal
+	private final int height;
+	// true while the lines below the grid are a scroll region
+	private boolean scrollRegion;
+	// the frame being built (ASCII only, so one byte per character)
+	private byte[] buffer = new byte[4096];
+	private int length;
+	// the symbols of the previous frame, or null if the next frame must be
+	// drawn in full
+	private char[] previous;
+	// the size of the ocean in the previous frame
+	private int previousRows;
+	private int previousColumns;
+	// the parts of the grid that don't change, for the current ocean size
+	private String headerLine;
+	private String separatorLine;
+	private String[] rowLabels;
+	private int cellWidth;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an OceanRenderer
+	 *
+	 * @param out    the terminal to draw on
+	 * @param ansi   true to redraw only the locations that change (the terminal
+	 *               must understand ANSI escape sequences)
+	 * @param height the number of lines of the terminal (only used in ANSI mode)
+	 */
+	public OceanRenderer(PrintStream out, boolean ansi, int height) {
+		this.out = out;
+		this.ansi = ansi;
+		this.height = height;
+	}
+
+	/**
+	 * Returns a renderer for the console, using ANSI mode if the program is
+	 * running in an interactive terminal that is not a dumb one
+	 *
+	 * The height of the terminal is taken from the LINES environment variable
+	 * if it is set, and is otherwise assumed to be 24 lines.
+	 *
+	 * @return
+	 */
+	public static OceanRenderer forConsole() {
+		String term = System.getenv("TERM");
+		boolean ansi = System.console() != null && term != null && !term.isEmpty() && !term.equals("dumb");
+		int height = DEFAULT_HEIGHT;
+		String lines = System.getenv("LINES");
+		if (lines != null) {
+			try {
+				height = Integer.parseInt(lines.trim());
+			} catch (NumberFormatException e) {
+				// keep the default
+			}
+		}
+		return new OceanRenderer(System.out, ansi, height);
+	}
+
+	/**
+	 * Makes the next frame redraw the whole screen
+	 */
+	public void reset() {
+		this.previous = null;
+	}
+
+	/**
+	 * Lets the whole terminal scroll again, leaving the cursor where it is (the
+	 * next frame is drawn in full)
+	 */
+	public void restore() {
+		if (this.scrollRegion) {
+			// save the cursor, reset the scroll region (which moves the cursor
+			// home) and put the cursor back
+			this.out.print("\0337" + CSI + "r\0338");
+			this.out.flush();
+			this.scrollRegion = false;
+		}
+		this.previous = null;
+	}
+
+	/**
+	 * Draws the given ocean
+	 *
+	 * @param ocean
+	 */
+	public void render(Ocean ocean) {
+		int rows = ocean.getRows();
+		int columns = ocean.getColumns();
+		// the fixed parts of the grid only depend on its size
+		if (this.rowLabels == null || rows != this.previousRows || columns != this.previousColumns) {
+			this.headerLine = ocean.headerLine();
+			this.separatorLine = ocean.separatorLine();
+			this.rowLabels = new String[rows];
+			for (int i = 0; i < rows; i++) {
+				this.rowLabels[i] = ocean.rowLabel(i);
+			}
+			this.cellWidth = ocean.cell('.').length();
+			this.previous = null;
+			this.previousRows = rows;
+			this.previousColumns = columns;
+		}
+		this.length = 0;
+		if (this.ansi && this.previous != null) {
+			appendChanges(ocean);
+		} else {
+			appendFullFrame(ocean);
+		}
+		// write the whole frame at once
+		this.out.write(this.buffer, 0, this.length);
+		this.out.flush();
+	}
+
+	/**
+	 * Adds the whole grid to the frame
+	 *
+	 * @param ocean
+	 */
+	private void appendFullFrame(Ocean ocean) {
+		int rows = ocean.getRows();
+		int columns = ocean.getColumns();
+		// the header, a separator, and a separator after each row
+		int gridLines = 2 + 2 * rows;
+		if (this.ansi) {
+			// let the whole screen scroll, move the cursor home and clear the
+			// screen
+			append(CSI).append("r").append(CSI).append("H").append(CSI).append("2J");
+			this.scrollRegion = false;
+			// only the changes are drawn next time if there is room for a
+			// scroll region of at least two lines below the grid
+			this.previous = gridLines + 2 <= this.height ? new char[rows * columns] : null;
+		} else {
+			// "clear" the console with newline characters
+			for (int i = 0; i < CLEAR_LINES; i++) {
+				append('\n');
+			}
+		}
+		append(this.headerLine).append('\n');
+		append(this.separatorLine).append('\n');
+		for (int i = 0; i < rows; i++) {
+			append(this.rowLabels[i]);
+			for (int j = 0; j < columns; j++) {
+				char symbol = ocean.getSymbol(i, j);
+				if (this.previous != null) {
+					this.previous[i * columns + j] = symbol;
+				}
+				// same layout as Ocean.cell()
+				append("  ").append(symbol);
+				for (int k = 3; k < this.cellWidth - 1; k++) {
+					append(' ');
+				}
+				append('|');
+			}
+			append('\n');
+			append(this.separatorLine).append('\n');
+		}
+		if (this.previous != null) {
+			// make the lines below the grid the scroll region (down to the
+			// bottom of the screen), which moves the cursor home, so move it
+			// back below the grid
+			append(CSI).appendNumber(gridLines + 1).append('r');
+			append(CSI).appendNumber(gridLines + 1).append(";1H");
+			this.scrollRegion = true;
+		}
+	}
+
+	/**
+	 * Adds the locations that changed since the previous frame to the frame,
+	 * and moves the cursor below the grid
+	 *
+	 * @param ocean
+	 */
+	private void appendChanges(Ocean ocean) {
+		int rows = ocean.getRows();
+		int columns = ocean.getColumns();
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				char symbol = ocean.getSymbol(i, j);
+				if (symbol == this.previous[i * columns + j])
+					continue;
+				this.previous[i * columns + j] = symbol;
+				// the grid starts with the header and a separator, and each row
+				// is followed by a separator (ANSI positions start at 1)
+				int line = 3 + 2 * i;
+				int position = this.rowLabels[i].length() + j * this.cellWidth + 3;
+				append(CSI).appendNumber(line).append(';').appendNumber(position).append('H').append(symbol);
+			}
+		}
+		// move the cursor below the grid and clear the old messages
+		append(CSI).appendNumber(3 + 2 * rows).append(";1H").append(CSI).append("J");
+	}
+
+	/**
+	 * Adds a character to the frame
+	 *
+	 * @param c
+	 * @return this renderer
+	 */
+	private OceanRenderer append(char c) {
+		if (this.length == this.buffer.length) {
+			// grow the buffer (this only happens for the first few frames)
+			byte[] bigger = new byte[this.buffer.length * 2];
+			System.arraycopy(this.buffer, 0, bigger, 0, this.length);
+			this.buffer = bigger;
+		}
+		this.buffer[this.length++] = (byte) c;
+		return this;
+	}
+
+	/**
+	 * Adds a string to the frame
+	 *
+	 * @param s
+	 * @return this renderer
+	 */
+	private OceanRenderer append(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			append(s.charAt(i));
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a (non-negative) number to the frame, without creating a string
+	 *
+	 * @param n
+	 * @return this renderer
+	 */
+	private OceanRenderer appendNumber(int n) {
+		if (n >= 10) {
+			appendNumber(n / 10);
+		}
+		return append((char) ('0' + n % 10));
+	}
+}
@@ -0,0 +1,270 @@
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed-size binary encoding of the full state of a game: where every ship of
+ * the fleet is, which locations have been fired upon, and the counters of the
+ * ocean
+ *
+ * A snapshot of an ocean with R rows, C columns and a fleet of N ships takes
+ * 10 bytes of counters followed by N * (B + 1) + R * C bits, where B is the
+ * number of bits needed for the index of a location; the classic game fits in
+ * 33 bytes. The ships are listed in the order of the configuration (longest
+ * first), so their lengths need not be stored, and the hits on each ship follow
+ * from the locations fired upon.
+ *
+ * Layout (all numbers big-endian):
+ *
+ * - shotsFired (4 bytes), hitCount (4 bytes), shipsSunk (2 bytes)
+ * - for each ship: the index of its bow (row * C + column, B bits) and 1 bit
+ *   that is set if the ship is horizontal
+ * - one bit for every location, set if it has been fired upon, row by row
+ *
+ * The bits are packed starting from the lowest bit of each byte. An
+ * OceanSnapshot holds no state besides the configuration, so one can be shared
+ * by any number of threads.
+ *
+ */
+public class OceanSnapshot {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of bytes of counters at the start of a snapshot
+	private static final int COUNTER_BYTES = 10;
+
+	// the size of the ocean and the makeup of the fleet
+	private final GameConfig config;
+	// the number of bits used for the index of a location
+	private final int cellBits;
+	// the size of a snapshot in bytes
+	private final int size;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for the snapshot format of oceans with the given configuration
+	 *
+	 * @param config
+	 */
+	public OceanSnapshot(GameConfig config) {
+		if (config.getFleetSize() > 0xFFFF) {
+			throw new IllegalArgumentException("Fleets of more than 65535 ships are not supported");
+		}
+		this.config = config;
+		int cells = config.getRows() * config.getColumns();
+		this.cellBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(cells - 1));
+		long bits = (long) config.getFleetSize() * (this.cellBits + 1) + cells;
+		this.size = COUNTER_BYTES + (int) ((bits + 7) / 8);
+	}
+
+	/**
+	 * Returns the configuration of the oceans in this format
+	 *
+	 * @return
+	 */
+	public GameConfig getConfig() {
+		return this.config;
+	}
+
+	/**
+	 * Returns the size of a snapshot in bytes
+	 *
+	 * @return
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Writes a snapshot of the given ocean at the buffer's position, and moves
+	 * the position past it
+	 *
+	 * @param ocean
+	 * @param buffer
+	 */
+	public void encode(Ocean ocean, ByteBuffer buffer) {
+		encode(ocean, buffer, buffer.position());
+		buffer.position(buffer.position() + this.size);
+	}
+
+	/**
+	 * Writes a snapshot of the given ocean at the given offset in the buffer
+	 * (without moving its position)
+	 *
+	 * @param ocean  an ocean with this format's configuration, with every ship
+	 *               placed
+	 * @param buffer
+	 * @param offset
+	 */
+	public void encode(Ocean ocean, ByteBuffer buffer, int offset) {
+		int fleetSize = this.config.getFleetSize();
+		int columns = this.config.getColumns();
+		if (ocean.getShipsPlaced() != fleetSize) {
+			throw new IllegalArgumentException("Only oceans with the whole fleet placed can be saved");
+		}
+		buffer.putInt(offset, ocean.getShotsFired());
+		buffer.putInt(offset + 4, ocean.getHitCount());
+		buffer.putShort(offset + 8, (short) ocean.getShipsSunk());
+		int position = offset + COUNTER_BYTES;
+		// bits waiting to be written, lowest first
+		long pending = 0;
+		int pendingBits = 0;
+		// the ships, in the order of the configuration: the ships of each length
+		// in the order they were placed
+		int slot = 0;
+		while (slot < fleetSize) {
+			int length = this.config.getShipLength(slot);
+			for (int i = 0; i < fleetSize; i++) {
+				Ship ship = ocean.getShip(i);
+				if (ship.getLength() != length)
+					continue;
+				if (slot == fleetSize || this.config.getShipLength(slot) != length) {
+					throw new IllegalArgumentException("The fleet does not match the configuration");
+				}
+				long cell = ship.getBowRow() * columns + ship.getBowColumn();
+				pending |= (cell | (ship.isHorizontal() ? 1L << this.cellBits : 0)) << pendingBits;
+				pendingBits += this.cellBits + 1;
+				while (pendingBits >= 8) {
+					buffer.put(position++, (byte) pending);
+					pending >>>= 8;
+					pendingBits -= 8;
+				}
+				slot++;
+			}
+			// every ship of this length must have been found
+			if (slot < fleetSize && this.config.getShipLength(slot) == length) {
+				throw new IllegalArgumentException("The fleet does not match the configuration");
+			}
+		}
+		// the locations fired upon
+		for (int i = 0; i < this.config.getRows(); i++) {
+			for (int j = 0; j < columns; j++) {
+				if (ocean.isShot(i, j)) {
+					pending |= 1L << pendingBits;
+				}
+				pendingBits++;
+				if (pendingBits == 8) {
+					buffer.put(position++, (byte) pending);
+					pending = 0;
+					pendingBits = 0;
+				}
+			}
+		}
+		if (pendingBits > 0) {
+			buffer.put(position, (byte) pending);
+		}
+	}
+
+	/**
+	 * Reads the snapshot at the buffer's position into a new ocean, and moves the
+	 * position past it
+	 *
+	 * @param buffer
+	 * @return
+	 */
+	public Ocean decode(ByteBuffer buffer) {
+		Ocean ocean = new BitboardOcean(this.config);
+		decode(buffer, buffer.position(), ocean);
+		buffer.position(buffer.position() + this.size);
+		return ocean;
+	}
+
+	/**
+	 * Reads the snapshot at the given offset in the buffer into a new ocean
+	 * (without moving its position)
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @return
+	 */
+	public Ocean decode(ByteBuffer buffer, int offset) {
+		Ocean ocean = new BitboardOcean(this.config);
+		decode(buffer, offset, ocean);
+		return ocean;
+	}
+
+	/**
+	 * Reads the snapshot at the given offset in the buffer into the given ocean
+	 * (without moving the buffer's position)
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @param ocean  a new ocean with this format's configuration
+	 * @throws IllegalArgumentException if the snapshot is corrupt
+	 */
+	public void decode(ByteBuffer buffer, int offset, Ocean ocean) {
+		int fleetSize = this.config.getFleetSize();
+		int rows = this.config.getRows();
+		int columns = this.config.getColumns();
+		if (ocean.getShipsPlaced() != 0) {
+			throw new IllegalArgumentException("Snapshots can only be restored into a new ocean");
+		}
+		int shotsFired = buffer.getInt(offset);
+		int hitCount = buffer.getInt(offset + 4);
+		int shipsSunk = buffer.getShort(offset + 8) & 0xFFFF;
+		int position = offset + COUNTER_BYTES;
+		// bits read but not used yet, lowest first
+		long pending = 0;
+		int pendingBits = 0;
+		long cellMask = (1L << this.cellBits) - 1;
+		// place the fleet
+		for (int i = 0; i < fleetSize; i++) {
+			while (pendingBits < this.cellBits + 1) {
+				pending |= (buffer.get(position++) & 0xFFL) << pendingBits;
+				pendingBits += 8;
+			}
+			int cell = (int) (pending & cellMask);
+			boolean horizontal = (pending >>> this.cellBits & 1) != 0;
+			pending >>>= this.cellBits + 1;
+			pendingBits -= this.cellBits + 1;
+			int row = cell / columns;
+			int column = cell % columns;
+			int length = this.config.getShipLength(i);
+			if (row >= rows || (horizontal ? column + length > columns : row + length > rows)) {
+				throw new IllegalArgumentException("Corrupt snapshot: ship " + i + " is outside the ocean");
+			}
+			this.config.createShip(i).placeShipAt(row, column, horizontal, ocean);
+		}
+		// mark the locations fired upon
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				if (pendingBits == 0) {
+					pending = buffer.get(position++) & 0xFFL;
+					pendingBits = 8;
+				}
+				if ((pending & 1) != 0) {
+					ocean.restoreShot(i, j);
+				}
+				pending >>>= 1;
+				pendingBits--;
+			}
+		}
+		if (shipsSunk > fleetSize) {
+			throw new IllegalArgumentException("Corrupt snapshot: " + shipsSunk + " ships sunk");
+		}
+		ocean.restoreCounters(shotsFired, hitCount, shipsSunk);
+	}
+
+	/**
+	 * Returns the number of shots fired in the snapshot at the given offset,
+	 * without restoring the ocean
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @return
+	 */
+	public int getShotsFired(ByteBuffer buffer, int offset) {
+		return buffer.getInt(offset);
+	}
+
+	/**
+	 * Returns the number of ships sunk in the snapshot at the given offset,
+	 * without restoring the ocean
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @return
+	 */
+	public int getShipsSunk(ByteBuffer buffer, int offset) {
+		return buffer.getShort(offset + 8) & 0xFFFF;
+	}
+}
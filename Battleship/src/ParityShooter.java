@@ -0,0 +1,69 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * A hunt/target Shooter that hunts only on a lattice of locations, and never
+ * fires next to a ship it has sunk
+ *
+ * A ship of length n always covers a location whose (row + column) is a
+ * multiple of n, so while the shortest ship still afloat has length n, the
+ * shooter only hunts on those locations (every other location on a board with
+ * destroyers, a checkerboard). With submarines afloat the lattice is the whole
+ * ocean, so this only pays off once they have been sunk. Ships never touch, so
+ * the locations around a sunken ship are skipped altogether.
+ *
+ */
+public class ParityShooter extends HuntTargetShooter {
+
+	/* INSTANCE VARIABLES */
+
+	// afloat[n] is the number of ships of length n still afloat
+	private int[] afloat;
+	// the length of the shortest ship still afloat
+	private int parity;
+
+	/* METHODS */
+
+	@Override
+	public void newGame(GameConfig config, RandomGenerator random) {
+		super.newGame(config, random);
+		int[] lengths = config.getShipLengths();
+		// the lengths are longest first
+		this.afloat = new int[lengths[0] + 1];
+		for (int length : lengths) {
+			this.afloat[length]++;
+		}
+		this.parity = lengths[lengths.length - 1];
+	}
+
+	@Override
+	protected int huntShot() {
+		for (int cell : this.order) {
+			if (!this.fired[cell] && (cell / this.columns + cell % this.columns) % this.parity == 0) {
+				return cell;
+			}
+		}
+		// every location of the lattice has been fired upon
+		return super.huntShot();
+	}
+
+	@Override
+	protected void shipSunk(Ship ship) {
+		int length = ship.getLength();
+		int lastRow = ship.getBowRow() + (ship.isHorizontal() ? 0 : length - 1);
+		int lastColumn = ship.getBowColumn() + (ship.isHorizontal() ? length - 1 : 0);
+		// nothing can touch the sunken ship (Ship.okToPlaceShipAt()), so
+		// treat the locations around it as if they had been fired upon
+		for (int i = Math.max(0, ship.getBowRow() - 1); i <= Math.min(this.rows - 1, lastRow + 1); i++) {
+			for (int j = Math.max(0, ship.getBowColumn() - 1); j <= Math.min(this.columns - 1, lastColumn + 1); j++) {
+				this.fired[i * this.columns + j] = true;
+			}
+		}
+		if (length < this.afloat.length && this.afloat[length] > 0) {
+			this.afloat[length]--;
+		}
+		// move up to the shortest ship left
+		while (this.parity < this.afloat.length - 1 && this.afloat[this.parity] == 0) {
+			this.parity++;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+import java.util.Arrays;
+
+/**
+ * Counts, for every location of an ocean, how many legal placements of a ship
+ * of a given length cover it, from scratch
+ *
+ * A location is open until it is blocked (a miss, part of a sunken ship, or
+ * next to one, since ships never touch); a placement is legal if every
+ * location it covers is open. The counts are sliding windows along each row
+ * (horizontal ships) and each column (vertical ships): one pass finds the bows
+ * where the ship fits, and a second adds up, for each location, the bows of the
+ * placements that cover it. The columns are swept a row at a time, with a
+ * running count for each column, so the locations are always visited in the
+ * order they are stored.
+ *
+ * create() returns the fastest version available. With the
+ * jdk.incubator.vector module (java --add-modules jdk.incubator.vector) and
+ * VectorHeatmap on the class path, that is VectorHeatmap, which handles a
+ * whole vector of locations at a time; otherwise it is this class, which
+ * handles one location at a time. Setting the system property
+ * battleship.vector to false always gives this class.
+ *
+ */
+public class PlacementHeatmap {
+
+	/* INSTANCE VARIABLES */
+
+	// true if the Vector API may be used
+	private static final boolean VECTOR_ENABLED = Boolean.parseBoolean(
+			System.getProperty("battleship.vector", "true"))
+			&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	// the number of rows and columns in the ocean
+	protected final int rows;
+	protected final int columns;
+	// open[cell] is 1 if the location may hold part of a ship, 0 if not
+	protected final int[] open;
+	// scratch array: bows[cell] is 1 if the ship being counted fits with its
+	// bow at the location
+	protected final int[] bows;
+	// scratch array of a running count for each column
+	private final int[] counts;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a PlacementHeatmap of an ocean of the given size, with
+	 * every location open (use create() for the fastest version)
+	 *
+	 * @param rows
+	 * @param columns
+	 */
+	public PlacementHeatmap(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		this.open = new int[rows * columns];
+		this.bows = new int[rows * columns];
+		this.counts = new int[columns];
+		reset();
+	}
+
+	/**
+	 * Returns the fastest PlacementHeatmap available for an ocean of the given
+	 * size
+	 *
+	 * @param rows
+	 * @param columns
+	 * @return
+	 */
+	public static PlacementHeatmap create(int rows, int columns) {
+		if (VECTOR_ENABLED) {
+			try {
+				return (PlacementHeatmap) Class.forName("VectorHeatmap").getConstructor(int.class, int.class)
+						.newInstance(rows, columns);
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// not compiled in, or the module is missing after all
+			}
+		}
+		return new PlacementHeatmap(rows, columns);
+	}
+
+	/**
+	 * Returns true if this version uses the Vector API
+	 *
+	 * @return
+	 */
+	public boolean isVectorized() {
+		return false;
+	}
+
+	/**
+	 * Opens every location
+	 */
+	public void reset() {
+		Arrays.fill(this.open, 1);
+	}
+
+	/**
+	 * Blocks the given location
+	 *
+	 * @param row
+	 * @param column
+	 */
+	public void block(int row, int column) {
+		this.open[row * this.columns + column] = 0;
+	}
+
+	/**
+	 * Blocks every location whose bit is set in the given board (such as the
+	 * misses)
+	 *
+	 * @param mask a board of the same size as the ocean
+	 */
+	public void block(BitBoard mask) {
+		for (int w = 0; w < mask.getWordCount(); w++) {
+			long word = mask.getWord(w);
+			while (word != 0) {
+				this.open[(w << 6) + Long.numberOfTrailingZeros(word)] = 0;
+				// clear the lowest bit that is set
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Blocks every location that the player knows cannot hold a ship that is
+	 * still afloat: the misses, the sunken ships and the locations around them
+	 *
+	 * @param ocean
+	 */
+	public void blockSeen(Ocean ocean) {
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				char symbol = ocean.getSymbol(i, j);
+				if (symbol == '-') {
+					block(i, j);
+				} else if (symbol == 'x') {
+					// nothing can touch a sunken ship
+					for (int r = Math.max(0, i - 1); r <= Math.min(this.rows - 1, i + 1); r++) {
+						for (int c = Math.max(0, j - 1); c <= Math.min(this.columns - 1, j + 1); c++) {
+							block(r, c);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the given location is open
+	 *
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public boolean isOpen(int row, int column) {
+		return this.open[row * this.columns + column] != 0;
+	}
+
+	/**
+	 * Adds to coverage[row * columns + column] the number of legal placements of
+	 * a ship of the given length that cover each location (horizontal and
+	 * vertical placements, which are the same placement for a ship of length 1)
+	 *
+	 * @param length
+	 * @param coverage
+	 */
+	public void addCoverage(int length, int[] coverage) {
+		// horizontal ships, a row at a time
+		for (int i = 0; i < this.rows; i++) {
+			addRow(i * this.columns, length, coverage);
+		}
+		if (length == 1) {
+			return;
+		}
+		// vertical ships: from the bottom row up, counts[j] is the number of
+		// open locations starting at each row of column j, so the ship fits
+		// with its bow there if it is at least length
+		Arrays.fill(this.counts, 0);
+		for (int i = this.rows - 1; i >= 0; i--) {
+			int start = i * this.columns;
+			for (int j = 0; j < this.columns; j++) {
+				this.counts[j] = this.open[start + j] == 0 ? 0 : this.counts[j] + 1;
+				this.bows[start + j] = this.counts[j] >= length ? 1 : 0;
+			}
+		}
+		// from the top row down, counts[j] is the number of bows among the last
+		// length rows of column j, which are the placements covering this one
+		Arrays.fill(this.counts, 0);
+		for (int i = 0; i < this.rows; i++) {
+			int start = i * this.columns;
+			// the same column, length rows up
+			int behind = start - length * this.columns;
+			for (int j = 0; j < this.columns; j++) {
+				this.counts[j] += this.bows[start + j];
+				if (behind >= 0) {
+					this.counts[j] -= this.bows[behind + j];
+				}
+				coverage[start + j] += this.counts[j];
+			}
+		}
+	}
+
+	/**
+	 * Adds the coverage of the horizontal placements in one row
+	 *
+	 * @param start    the first location of the row
+	 * @param length
+	 * @param coverage
+	 */
+	private void addRow(int start, int length, int[] coverage) {
+		int end = start + this.columns;
+		// from the far end: run is the number of open locations starting at
+		// each location, so the ship fits with its bow there if run >= length
+		int run = 0;
+		for (int cell = end - 1; cell >= start; cell--) {
+			run = this.open[cell] == 0 ? 0 : run + 1;
+			this.bows[cell] = run >= length ? 1 : 0;
+		}
+		// from the near end: window is the number of bows among the last
+		// length locations, which are the placements covering this one
+		int window = 0;
+		for (int cell = start; cell < end; cell++) {
+			window += this.bows[cell];
+			if (cell - length >= start) {
+				window -= this.bows[cell - length];
+			}
+			coverage[cell] += window;
+		}
+	}
+
+	/**
+	 * Returns the number of rows in the ocean
+	 *
+	 * @return
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Returns the number of columns in the ocean
+	 *
+	 * @return
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+}
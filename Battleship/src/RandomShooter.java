@@ -0,0 +1,51 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * A Shooter that fires at every location once, in a random order
+ *
+ */
+public class RandomShooter implements Shooter {
+
+	/* INSTANCE VARIABLES */
+
+	// the locations of the ocean; the first "fired" of them have been shot at
+	private int[] cells;
+	// the number of shots fired so far in this game
+	private int fired;
+	// the random stream for this game
+	private RandomGenerator random;
+
+	/* METHODS */
+
+	@Override
+	public void newGame(GameConfig config, RandomGenerator random) {
+		int size = config.getRows() * config.getColumns();
+		if (this.cells == null || this.cells.length != size) {
+			this.cells = new int[size];
+		}
+		// start from the same order every game, so that the shots depend only
+		// on the random stream (and a game can be played again exactly)
+		for (int i = 0; i < size; i++) {
+			this.cells[i] = i;
+		}
+		this.fired = 0;
+		this.random = random;
+	}
+
+	@Override
+	public int nextShot() {
+		// one step of a Fisher-Yates shuffle: pick one of the remaining
+		// locations and swap it to the front of the remaining ones
+		int i = this.fired + this.random.nextInt(this.cells.length - this.fired);
+		int cell = this.cells[i];
+		this.cells[i] = this.cells[this.fired];
+		this.cells[this.fired] = cell;
+		this.fired++;
+		return cell;
+	}
+
+	@Override
+	public void shotResult(int row, int column, boolean hit, Ship sunk) {
+		// the results make no difference to a random shooter
+	}
+}
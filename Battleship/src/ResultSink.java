@@ -0,0 +1,338 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams the result of every finished game of a simulation to a file, and
+ * keeps running summaries of them, in a fixed amount of memory however many
+ * games are played
+ *
+ * Every game is written as its number (which, with the master seed in the
+ * header, is all Simulator.replay() needs to play it again), the number of
+ * shots fired, the number of hits, and the shot on which each ship of the fleet
+ * was sunk. A file whose name ends in ".csv" gets one line of text per game;
+ * any other file is binary: a header ("BSRS", a version number, the master
+ * seed and the GameConfig), then each game as unsigned LEB128 numbers (about
+ * 16 bytes a game with the classic fleet).
+ *
+ * Each worker writes into a Batch of its own, and a full batch is handed to a
+ * single writer thread. Only a few batches may wait to be written; once they
+ * are all taken, a worker that fills another batch waits for the writer, so a
+ * slow disk slows the simulation down instead of filling the heap. The written
+ * batches are reused.
+ *
+ * The summaries (the mean and percentiles of the shots and hits, and the mean
+ * sink turn of each ship) are kept in MetricHistograms and counters, so they
+ * take the same memory after a billion games as after one.
+ *
+ */
+public class ResultSink implements Closeable {
+
+	/* INSTANCE VARIABLES */
+
+	// "BSRS", at the start of every binary file
+	static final int MAGIC = 0x42535253;
+	static final int VERSION = 1;
+	// the size of a batch
+	private static final int BATCH_SIZE = 64 * 1024;
+	// the number of full batches that may wait for the writer
+	private static final int QUEUED_BATCHES = 8;
+	// handed to the writer to tell it to stop
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	// the file
+	private final FileChannel channel;
+	// true to write text instead of binary
+	private final boolean csv;
+	// the number of ships in the fleet
+	private final int fleetSize;
+	// the largest number of bytes one game can take
+	private final int maxRecord;
+	// full batches waiting for the writer
+	private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+	// written batches, ready to be reused
+	private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+	// the thread that writes the batches
+	private final Thread writer;
+	// the error that stopped the writer, if any
+	private volatile IOException failure;
+	// the running summaries
+	private final MetricHistogram shots = new MetricHistogram();
+	private final MetricHistogram hits = new MetricHistogram();
+	private final LongAdder[] sinkTurns;
+
+	/* METHODS */
+
+	/**
+	 * Creates (or replaces) the file at the given path, and starts the thread
+	 * that writes to it
+	 *
+	 * @param path   a ".csv" file for text, anything else for binary
+	 * @param config the configuration of the games
+	 * @param seed   the master seed of the games
+	 * @throws IOException
+	 */
+	public ResultSink(Path path, GameConfig config, long seed) throws IOException {
+		this.csv = path.getFileName().toString().endsWith(".csv");
+		this.fleetSize = config.getFleetSize();
+		// a number takes at most 10 bytes in either format, plus a separator
+		this.maxRecord = 11 * (3 + this.fleetSize);
+		this.sinkTurns = new LongAdder[this.fleetSize];
+		for (int i = 0; i < this.fleetSize; i++) {
+			this.sinkTurns[i] = new LongAdder();
+		}
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer header;
+		if (this.csv) {
+			StringBuilder line = new StringBuilder("game,shots,hits");
+			for (int i = 0; i < this.fleetSize; i++) {
+				line.append(",sunk").append(i + 1).append("_length").append(config.getShipLength(i));
+			}
+			header = StandardCharsets.US_ASCII.encode(line.append('\n').toString());
+		} else {
+			header = ByteBuffer.allocate(16 + GameConfig.encodedSize(this.fleetSize));
+			header.putInt(MAGIC).putInt(VERSION).putLong(seed);
+			config.writeTo(header);
+			header.flip();
+		}
+		try {
+			while (header.hasRemaining()) {
+				this.channel.write(header);
+			}
+		} catch (IOException e) {
+			this.channel.close();
+			throw e;
+		}
+		this.writer = new Thread(this::writeBatches, "result-sink");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Returns a new batch for one worker to record games into
+	 *
+	 * @return
+	 */
+	public Batch openBatch() {
+		return new Batch();
+	}
+
+	/**
+	 * Writes the full batches as they come (run by the writer thread)
+	 */
+	private void writeBatches() {
+		while (true) {
+			ByteBuffer batch;
+			try {
+				batch = this.full.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (batch == END) {
+				return;
+			}
+			// after an error, keep taking batches so no worker waits forever
+			if (this.failure == null) {
+				try {
+					while (batch.hasRemaining()) {
+						this.channel.write(batch);
+					}
+				} catch (IOException e) {
+					this.failure = e;
+				}
+			}
+			batch.clear();
+			this.free.offer(batch);
+		}
+	}
+
+	/**
+	 * Hands a full batch to the writer, waiting if too many are waiting already
+	 *
+	 * @param batch
+	 */
+	private void submit(ByteBuffer batch) {
+		batch.flip();
+		try {
+			this.full.put(batch);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting to write results", e);
+		}
+	}
+
+	/**
+	 * Returns an empty batch (one that has been written, if there is one)
+	 *
+	 * @return
+	 */
+	private ByteBuffer takeFree() {
+		IOException failure = this.failure;
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+		ByteBuffer batch = this.free.poll();
+		return batch != null ? batch : ByteBuffer.allocate(BATCH_SIZE);
+	}
+
+	/**
+	 * Waits for every batch handed over to be written, and closes the file
+	 * (batches still open are not written)
+	 *
+	 * @throws IOException if any batch could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.full.put(END);
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.writer.interrupt();
+		}
+		this.channel.close();
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+
+	/**
+	 * Returns the number of games recorded
+	 *
+	 * @return
+	 */
+	public long getGames() {
+		return this.shots.getCount();
+	}
+
+	/**
+	 * Returns the histogram of the number of shots per game
+	 *
+	 * @return
+	 */
+	public MetricHistogram getShots() {
+		return this.shots;
+	}
+
+	/**
+	 * Returns the histogram of the number of hits per game
+	 *
+	 * @return
+	 */
+	public MetricHistogram getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Returns the mean number of shots fired before the given ship of the fleet
+	 * was sunk
+	 *
+	 * @param ship the index of the ship in the fleet
+	 * @return
+	 */
+	public double getMeanSinkTurn(int ship) {
+		long games = getGames();
+		return games == 0 ? 0 : (double) this.sinkTurns[ship].sum() / games;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(String.format(
+				"%d games written: shots mean %.2f, median %d, p99 %d; hits mean %.2f%nmean sink turn by ship:",
+				getGames(), this.shots.getMean(), this.shots.getPercentile(0.5), this.shots.getPercentile(0.99),
+				this.hits.getMean()));
+		for (int i = 0; i < this.fleetSize; i++) {
+			sb.append(String.format(" %.1f", getMeanSinkTurn(i)));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The games recorded by one worker that have not been handed to the writer
+	 * yet (a Batch must only be used by one thread)
+	 */
+	public class Batch implements Closeable {
+
+		// the games recorded so far
+		private ByteBuffer buffer = takeFree();
+
+		/**
+		 * Records a finished game
+		 *
+		 * @param game  the number of the game
+		 * @param ocean the ocean at the end of the game (its ships in fleet order,
+		 *              as placeAllShipsRandomly() places them)
+		 */
+		public void record(long game, Ocean ocean) {
+			if (this.buffer.remaining() < maxRecord) {
+				submit(this.buffer);
+				this.buffer = takeFree();
+			}
+			put(game, false);
+			put(ocean.getShotsFired(), true);
+			put(ocean.getHitCount(), true);
+			for (int i = 0; i < fleetSize; i++) {
+				int turn = ocean.getSinkTurn(i);
+				put(turn, true);
+				sinkTurns[i].add(turn);
+			}
+			if (csv) {
+				this.buffer.put((byte) '\n');
+			}
+			shots.record(ocean.getShotsFired());
+			hits.record(ocean.getHitCount());
+		}
+
+		/**
+		 * Writes a non-negative number in the file's format
+		 *
+		 * @param value
+		 * @param separate true to put a comma before it (in a CSV file)
+		 */
+		private void put(long value, boolean separate) {
+			if (csv) {
+				if (separate) {
+					this.buffer.put((byte) ',');
+				}
+				// the digits, most significant first
+				long scale = 1;
+				while (value / scale >= 10) {
+					scale *= 10;
+				}
+				for (; scale > 0; scale /= 10) {
+					this.buffer.put((byte) ('0' + value / scale % 10));
+				}
+				return;
+			}
+			// unsigned LEB128: 7 bits at a time, lowest first
+			while ((value & ~0x7FL) != 0) {
+				this.buffer.put((byte) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			this.buffer.put((byte) value);
+		}
+
+		/**
+		 * Hands the games recorded to the writer
+		 */
+		@Override
+		public void close() {
+			if (this.buffer.position() > 0) {
+				submit(this.buffer);
+			} else {
+				free.offer(this.buffer);
+			}
+			this.buffer = null;
+		}
+	}
+}
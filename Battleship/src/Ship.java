@@ -8,24 +8,33 @@ public abstract class Ship {
 
 	/* INSTANCE VARIABLES */
 
-	// the row (0 to 9) which contains the bow/front of the ship
+	// the row which contains the bow/front of the ship
 	protected int bowRow;
-	// the column (0 to 9) which contains the bow/front of the ship
+	// the column which contains the bow/front of the ship
 	protected int bowColumn;
 	// the number of squares occupied by the ship
 	protected int length;
 	// true if the ship occupies a single row, false otherwise
 	protected boolean horizontal;
 	// array of booleans telling whether that part of the ship has been hit
-	// BATTLESHIP - uses all 4 locations
-	// CRUISER - uses the first 3
-	// DESTROYER - uses the first 2
-	// SUBMARINE - uses the first 1
-	// EMPTYSEA - uses the first 1 or none
-	protected boolean[] hit = new boolean[4];
+	// (one element for each location occupied by the ship)
+	protected boolean[] hit;
+	// the number of locations that have not been hit yet (0 once the ship is sunk)
+	protected int hitsRemaining;
 
 	/* METHODS */
 
+	/**
+	 * Constructor for a ship of the given length
+	 * 
+	 * @param length
+	 */
+	protected Ship(int length) {
+		this.length = length;
+		this.hit = new boolean[length];
+		this.hitsRemaining = length;
+	}
+
 	/**
 	 * Returns true if it is okay to put a ship of this length with its bow in this
 	 * location with the given orientation
@@ -41,10 +50,13 @@ public abstract class Ship {
 		 * must not overlap another ship, must not touch another ship (vertically,
 		 * horizontally, diagonally), and must not stick out beyond the array
 		 */
+		// the last row and column of the ocean
+		int lastRow = ocean.getRows() - 1;
+		int lastColumn = ocean.getColumns() - 1;
 		// if the ship is horizontal...
 		if (horizontal) {
 			// check if any part of the ship will stick out beyond the array
-			if ((column + this.length) > 10)
+			if ((column + this.length) > lastColumn + 1)
 				return false;
 			for (int i = 0; i < this.length; i++) {
 				// check if the ship's potential spots are occupied
@@ -54,17 +66,17 @@ public abstract class Ship {
 				if ((row - 1 >= 0) && (ocean.isOccupied(row - 1, column + i)))
 					return false;
 				// check if there is already a ship in the row below
-				if ((row + 1 <= 9) && (ocean.isOccupied(row + 1, column + i)))
+				if ((row + 1 <= lastRow) && (ocean.isOccupied(row + 1, column + i)))
 					return false;
 			}
 			for (int j = -1; j < 2; j++) {
 				// check if there is already a ship in the column to the left
-				if ((column - 1 >= 0) && (0 <= row + j) && (row + j <= 9)) {
+				if ((column - 1 >= 0) && (0 <= row + j) && (row + j <= lastRow)) {
 					if (ocean.isOccupied(row + j, column - 1))
 						return false;
 				}
 				// check if there is already a ship in the column to the right
-				if ((column + this.length - 1 < 9) && (0 <= row + j) && (row + j <= 9)) {
+				if ((column + this.length - 1 < lastColumn) && (0 <= row + j) && (row + j <= lastRow)) {
 					if (ocean.isOccupied(row + j, column + this.length))
 						return false;
 				}
@@ -73,7 +85,7 @@ public abstract class Ship {
 		// if the ship is vertical...
 		else {
 			// check if any part of the ship will stick out beyond the array
-			if ((row + this.length) > 10)
+			if ((row + this.length) > lastRow + 1)
 				return false;
 			for (int k = 0; k < this.length; k++) {
 				// check if the ship's potential spots are occupied
@@ -83,17 +95,17 @@ public abstract class Ship {
 				if ((column - 1 >= 0) && (ocean.isOccupied(row + k, column - 1)))
 					return false;
 				// check if there is already a ship in the column to the right
-				if ((column + 1 <= 9) && (ocean.isOccupied(row + k, column + 1)))
+				if ((column + 1 <= lastColumn) && (ocean.isOccupied(row + k, column + 1)))
 					return false;
 			}
 			for (int l = -1; l < 2; l++) {
 				// check if there is already a ship in the row above
-				if ((row - 1 >= 0) && (0 <= column + l) && (column + l <= 9)) {
+				if ((row - 1 >= 0) && (0 <= column + l) && (column + l <= lastColumn)) {
 					if (ocean.isOccupied(row - 1, column + l))
 						return false;
 				}
 				// check if there is already a ship in the row below
-				if ((row + this.length - 1 < 9) && (0 <= column + l) && (column + l <= 9)) {
+				if ((row + this.length - 1 < lastRow) && (0 <= column + l) && (column + l <= lastColumn)) {
 					if (ocean.isOccupied(row + this.length, column + l))
 						return false;
 				}
@@ -112,14 +124,17 @@ public abstract class Ship {
 	 * @param ocean
 	 */
 	public void placeShipAt(int row, int column, boolean horizontal, Ocean ocean) {
-		// get the ocean's ship array
-		Ship[][] ships = ocean.getShipArray();
+		// give the values to the ship's instance variables
+		// (before touching the ocean, which may read them back)
+		this.bowRow = row;
+		this.bowColumn = column;
+		this.horizontal = horizontal;
 		// if the ship is horizontal...
 		if (horizontal) {
 			// place identical references to the ship in the appropriate spots
 			// from left to right
 			for (int i = 0; i < this.length; i++) {
-				ships[row][column + i] = this;
+				ocean.setShipAt(row, column + i, this);
 			}
 		}
 		// if the ship is vertical...
@@ -127,13 +142,9 @@ public abstract class Ship {
 			// place identical references to the ship in the appropriate spots
 			// from top to bottom
 			for (int j = 0; j < this.length; j++) {
-				ships[row + j][column] = this;
+				ocean.setShipAt(row + j, column, this);
 			}
 		}
-		// give the values to the ship's instance variables
-		this.bowRow = row;
-		this.bowColumn = column;
-		this.horizontal = horizontal;
 	}
 
 	/**
@@ -146,18 +157,13 @@ public abstract class Ship {
 	public boolean shootAt(int row, int column) {
 		// if the ship has not been sunk...
 		if (!isSunk()) {
-			// ...update the "hit" array
-			// if the ship is horizontal...
-			if (horizontal) {
-				// ...calculate the index of the hit array
-				// and set that element to true
-				this.hit[column - this.bowColumn] = true;
-			}
-			// if the ship is vertical...
-			else {
-				// ...calculate the index of the hit array
-				// and set that element to true
-				this.hit[row - this.bowRow] = true;
+			// ...calculate the index of the hit array
+			// (along the row if the ship is horizontal, down the column if not)
+			int part = horizontal ? column - this.bowColumn : row - this.bowRow;
+			// the first hit on a part brings the ship closer to sinking
+			if (!this.hit[part]) {
+				this.hit[part] = true;
+				this.hitsRemaining--;
 			}
 			// return true to indicate that the ship was hit
 			return true;
@@ -172,14 +178,9 @@ public abstract class Ship {
 	 * @return
 	 */
 	public boolean isSunk() {
-		// check if all locations used by the ship have been hit
-		for (int i = 0; i < this.length; i++) {
-			// return false if any location has not been hit
-			if (!this.hit[i])
-				return false;
-		}
-		// return true if all locations have been hit
-		return true;
+		// the ship is sunk once all locations used by the ship have been hit
+		// (counted as they are hit, so there is no need to check each one)
+		return this.hitsRemaining == 0;
 	}
 
 	/**
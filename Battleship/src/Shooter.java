@@ -0,0 +1,49 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * A strategy for choosing where to fire, used to play games without a human
+ * player
+ *
+ * A shooter is only used by one thread at a time, and is reused for many
+ * games (newGame() is called at the start of each one).
+ *
+ */
+public interface Shooter {
+
+	/**
+	 * Prepares the shooter for a new game
+	 *
+	 * @param config the size of the ocean and the makeup of the fleet
+	 * @param random the random stream to use for the rest of the game
+	 */
+	void newGame(GameConfig config, RandomGenerator random);
+
+	/**
+	 * Returns the location of the next shot, as row * columns + column
+	 *
+	 * @return
+	 */
+	int nextShot();
+
+	/**
+	 * Tells the shooter the result of its last shot
+	 *
+	 * @param row
+	 * @param column
+	 * @param hit  true if the shot hit a ship that was still afloat
+	 * @param sunk the ship that was sunk by the shot, or null if none was
+	 */
+	void shotResult(int row, int column, boolean hit, Ship sunk);
+
+	/**
+	 * Returns true if the next shot depends only on what has been seen of the
+	 * ocean (up to ties between equally good shots), so it may be taken from a
+	 * DecisionCache instead of calling nextShot(); shotResult() is still called
+	 * for every shot
+	 *
+	 * @return
+	 */
+	default boolean decidesFromObservation() {
+		return false;
+	}
+}
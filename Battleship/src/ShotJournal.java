@@ -0,0 +1,239 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only journal of games: the state of each game when it started, then
+ * every shot fired in it with its result, so games can be audited, replayed
+ * (see JournalReplayer) or rebuilt after a crash
+ *
+ * The file starts with a header ("BSJR", a version number and the GameConfig of
+ * the games), followed by records. Every record starts with an unsigned LEB128
+ * number whose lowest 2 bits say what it is:
+ *
+ * - a shot: (location << 2) | result, where the location is row * columns +
+ *   column and the result is Ocean.MISS, HIT or SUNK; one byte for the
+ *   first 32 locations and two bytes for the next 8160, so every shot in the
+ *   classic game takes one or two bytes
+ * - otherwise (kind << 2) | 3, where kind is:
+ *   - START: a new game, followed by an OceanSnapshot of its ocean; games are
+ *     numbered from 0 in the order they start, and the shots that follow belong
+ *     to the new game
+ *   - SWITCH: followed by the number of a game (LEB128); the shots that follow
+ *     belong to that game
+ *   - REPEAT: followed by a location (LEB128); a shot at a location that had
+ *     already been fired upon (rare, so it does not need to fit in the 2 bits
+ *     of a result)
+ *
+ * Records are collected in a buffer and written in batches, when the buffer is
+ * full or on flush(). A crash can only lose the records that were not flushed
+ * yet; the replayer ignores a record that was cut short. The journal may be
+ * shared by any number of threads (the server writes one for all its sessions).
+ *
+ */
+public class ShotJournal implements Closeable, Flushable {
+
+	/* INSTANCE VARIABLES */
+
+	// "BSJR", at the start of every file
+	static final int MAGIC = 0x42534A52;
+	static final int VERSION = 1;
+	// the kinds of record that are not shots
+	static final int CONTROL = 3;
+	static final int START = 0;
+	static final int SWITCH = 1;
+	static final int REPEAT = 2;
+
+	// the file
+	private final FileChannel channel;
+	// the format of the snapshot at the start of each game
+	private final OceanSnapshot format;
+	// the number of columns in the ocean
+	private final int columns;
+	// records that have not been written yet
+	private final ByteBuffer buffer;
+	// the number of games started
+	private int games;
+	// the game that the next shot belongs to unless another one is named
+	private int currentGame = -1;
+
+	/* METHODS */
+
+	/**
+	 * Opens the journal at the given path, creating it if it does not exist;
+	 * new records are added after any that are already there
+	 *
+	 * @param path
+	 * @param config the configuration of the games (must match the journal's, if
+	 *               it exists)
+	 * @throws IOException
+	 */
+	public ShotJournal(Path path, GameConfig config) throws IOException {
+		this.format = new OceanSnapshot(config);
+		this.columns = config.getColumns();
+		this.buffer = ByteBuffer.allocate(Math.max(64 * 1024, 4 * (this.format.getSize() + 16)));
+		boolean exists = Files.exists(path) && Files.size(path) > 0;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (exists) {
+				// carry on after the games already in the journal
+				JournalReplayer existing = new JournalReplayer(path);
+				if (!sameConfig(existing.getConfig(), config)) {
+					throw new IOException("The journal is for a different configuration: " + path);
+				}
+				this.games = existing.getGameCount();
+				// drop a record that was cut short by a crash
+				this.channel.truncate(existing.getValidLength());
+				this.channel.position(existing.getValidLength());
+			} else {
+				this.buffer.putInt(MAGIC).putInt(VERSION);
+				config.writeTo(this.buffer);
+			}
+		} catch (IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns true if the two configurations describe the same games
+	 *
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	private static boolean sameConfig(GameConfig a, GameConfig b) {
+		if (a.getRows() != b.getRows() || a.getColumns() != b.getColumns() || a.getFleetSize() != b.getFleetSize())
+			return false;
+		for (int i = 0; i < a.getFleetSize(); i++) {
+			if (a.getShipLength(i) != b.getShipLength(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Records the start of a game, with the ocean as it is now (normally a new
+	 * ocean with the fleet placed, but a restored game may be journaled too)
+	 *
+	 * @param ocean
+	 * @return the number of the game, for recordShot()
+	 * @throws IOException
+	 */
+	public synchronized int startGame(Ocean ocean) throws IOException {
+		makeRoom(5 + this.format.getSize());
+		putNumber(START << 2 | CONTROL);
+		this.format.encode(ocean, this.buffer);
+		this.currentGame = this.games;
+		return this.games++;
+	}
+
+	/**
+	 * Records a shot fired in the given game
+	 *
+	 * @param game   the number returned by startGame()
+	 * @param row
+	 * @param column
+	 * @param result Ocean.MISS, HIT, SUNK or REPEAT
+	 * @throws IOException
+	 */
+	public synchronized void recordShot(int game, int row, int column, int result) throws IOException {
+		makeRoom(16);
+		if (game != this.currentGame) {
+			putNumber(SWITCH << 2 | CONTROL);
+			putNumber(game);
+			this.currentGame = game;
+		}
+		long location = (long) row * this.columns + column;
+		if (result == Ocean.REPEAT) {
+			putNumber(REPEAT << 2 | CONTROL);
+			putNumber(location);
+		} else {
+			putNumber(location << 2 | result);
+		}
+	}
+
+	/**
+	 * Adds an unsigned LEB128 number to the buffer
+	 *
+	 * @param n
+	 */
+	private void putNumber(long n) {
+		while (n >= 0x80) {
+			this.buffer.put((byte) (n | 0x80));
+			n >>>= 7;
+		}
+		this.buffer.put((byte) n);
+	}
+
+	/**
+	 * Writes the buffer out if it does not have room for the given number of
+	 * bytes
+	 *
+	 * @param bytes
+	 * @throws IOException
+	 */
+	private void makeRoom(int bytes) throws IOException {
+		if (this.buffer.remaining() < bytes) {
+			writeBuffer();
+		}
+	}
+
+	/**
+	 * Writes the buffer to the file
+	 *
+	 * @throws IOException
+	 */
+	private void writeBuffer() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	/**
+	 * Writes the records collected so far to the file (they survive a crash of
+	 * the program, but not necessarily of the machine; see sync())
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		writeBuffer();
+	}
+
+	/**
+	 * Writes the records collected so far to the file and waits until they are
+	 * on the disk
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void sync() throws IOException {
+		writeBuffer();
+		this.channel.force(false);
+	}
+
+	/**
+	 * Returns the number of games started in the journal (including those that
+	 * were there when it was opened)
+	 *
+	 * @return
+	 */
+	public synchronized int getGameCount() {
+		return this.games;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			writeBuffer();
+		} finally {
+			this.channel.close();
+		}
+	}
+}
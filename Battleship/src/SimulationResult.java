@@ -0,0 +1,231 @@
+/**
+ * The results of a batch of simulated games: how many were played, how long
+ * they took, and how many shots each one needed
+ *
+ */
+public class SimulationResult {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of games played
+	private long games;
+	// the total number of shots fired in all games
+	private long totalShots;
+	// the total of the squares of the number of shots of every game
+	private long totalSquares;
+	// histogram[n] is the number of games that took n shots
+	// (the last element also counts every game that took even longer)
+	private final long[] histogram;
+	// the wall-clock time taken to play the games, in nanoseconds
+	private long elapsedNanos;
+	// the master seed of the games (see GameRandom)
+	private long seed;
+	// the games that took the most and the fewest shots (the lowest-numbered
+	// one if there is a tie), so they can be played again
+	private long longestGame = -1;
+	private int longestShots = -1;
+	private long shortestGame = -1;
+	private int shortestShots = Integer.MAX_VALUE;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an empty SimulationResult
+	 *
+	 * @param maxShots the largest number of shots recorded exactly
+	 */
+	public SimulationResult(int maxShots) {
+		this.histogram = new long[maxShots + 1];
+	}
+
+	/**
+	 * Records a game that took the given number of shots
+	 *
+	 * @param game  the number of the game
+	 * @param shots
+	 */
+	public void record(long game, int shots) {
+		this.games++;
+		this.totalShots += shots;
+		this.totalSquares += (long) shots * shots;
+		this.histogram[Math.min(shots, this.histogram.length - 1)]++;
+		noteOutliers(game, shots, game, shots);
+	}
+
+	/**
+	 * Keeps the given games if they are longer or shorter than the ones kept so
+	 * far
+	 *
+	 * @param longGame
+	 * @param longShots
+	 * @param shortGame
+	 * @param shortShots
+	 */
+	private void noteOutliers(long longGame, int longShots, long shortGame, int shortShots) {
+		if (longShots > this.longestShots || (longShots == this.longestShots && longGame < this.longestGame)) {
+			this.longestGame = longGame;
+			this.longestShots = longShots;
+		}
+		if (shortShots < this.shortestShots
+				|| (shortShots == this.shortestShots && shortGame < this.shortestGame)) {
+			this.shortestGame = shortGame;
+			this.shortestShots = shortShots;
+		}
+	}
+
+	/**
+	 * Adds the games recorded in another result to this one
+	 *
+	 * @param other
+	 */
+	public void merge(SimulationResult other) {
+		this.games += other.games;
+		this.totalShots += other.totalShots;
+		this.totalSquares += other.totalSquares;
+		for (int i = 0; i < this.histogram.length; i++) {
+			this.histogram[i] += other.histogram[i];
+		}
+		if (other.games > 0) {
+			noteOutliers(other.longestGame, other.longestShots, other.shortestGame, other.shortestShots);
+		}
+	}
+
+	/**
+	 * Returns the number of games played
+	 *
+	 * @return
+	 */
+	public long getGames() {
+		return this.games;
+	}
+
+	/**
+	 * Returns the number of games that took the given number of shots
+	 *
+	 * @param shots
+	 * @return
+	 */
+	public long getGamesWithShots(int shots) {
+		return shots < this.histogram.length ? this.histogram[shots] : 0;
+	}
+
+	/**
+	 * Returns the mean number of shots per game
+	 *
+	 * @return
+	 */
+	public double getMeanShots() {
+		return this.games == 0 ? 0 : (double) this.totalShots / this.games;
+	}
+
+	/**
+	 * Returns the sample standard deviation of the number of shots per game (0
+	 * if fewer than 2 games were played)
+	 *
+	 * @return
+	 */
+	public double getStandardDeviation() {
+		if (this.games < 2) {
+			return 0;
+		}
+		double mean = getMeanShots();
+		double variance = (this.totalSquares - mean * this.totalShots) / (this.games - 1);
+		return Math.sqrt(Math.max(0, variance));
+	}
+
+	/**
+	 * Returns the smallest number of shots such that at least the given fraction
+	 * of games took that many shots or fewer
+	 *
+	 * @param fraction between 0 and 1
+	 * @return
+	 */
+	public int getPercentile(double fraction) {
+		// the number of games that must be covered
+		long target = (long) Math.ceil(fraction * this.games);
+		long seen = 0;
+		for (int i = 0; i < this.histogram.length; i++) {
+			seen += this.histogram[i];
+			if (seen >= target && seen > 0) {
+				return i;
+			}
+		}
+		return this.histogram.length - 1;
+	}
+
+	/**
+	 * Sets the wall-clock time taken to play the games
+	 *
+	 * @param elapsedNanos
+	 */
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Returns the wall-clock time taken to play the games, in nanoseconds
+	 *
+	 * @return
+	 */
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * Sets the master seed of the games
+	 *
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the master seed of the games (Simulator.replay() plays any of them
+	 * again)
+	 *
+	 * @return
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Returns the number of the game that took the most shots (-1 if no game
+	 * was played)
+	 *
+	 * @return
+	 */
+	public long getLongestGame() {
+		return this.longestGame;
+	}
+
+	/**
+	 * Returns the number of the game that took the fewest shots (-1 if no game
+	 * was played)
+	 *
+	 * @return
+	 */
+	public long getShortestGame() {
+		return this.shortestGame;
+	}
+
+	/**
+	 * Returns the number of games played per second of wall-clock time
+	 *
+	 * @return
+	 */
+	public double getGamesPerSecond() {
+		return this.elapsedNanos == 0 ? 0 : this.games * 1e9 / this.elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d games in %.2f s (%.0f games/s)%n"
+				+ "shots per game: mean %.2f, min %d, median %d, p90 %d, p99 %d, max %d%n"
+				+ "seed %d: shortest game %d, longest game %d",
+				this.games, this.elapsedNanos / 1e9, getGamesPerSecond(), getMeanShots(), getPercentile(0),
+				getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), getPercentile(1), this.seed,
+				this.shortestGame, this.longestGame);
+	}
+}
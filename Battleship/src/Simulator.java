@@ -0,0 +1,325 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays games of Battleship without any input or output, using a Shooter to
+ * choose where to fire, and spreads the games over all available cores
+ *
+ * The games are split into chunks with a fork/join pool; every chunk has its
+ * own Shooter and its own GameRandom, so the workers never share any mutable
+ * state. Every game is numbered and its random stream depends only on the
+ * master seed and its number, so any game of a run (such as the longest one)
+ * can be played again exactly with replay().
+ *
+ * A Simulator may share a DecisionCache between all its workers, for shooters
+ * that decide from what they have seen alone. A cached shot is as good as the
+ * shooter's own but may break a tie differently, so a run with a cache is not
+ * exactly reproducible (replay() never uses the cache).
+ *
+ */
+public class Simulator {
+
+	/* INSTANCE VARIABLES */
+
+	// the size of the ocean and the makeup of the fleet
+	private final GameConfig config;
+	// creates a Shooter for each chunk of games
+	private final Supplier<? extends Shooter> shooters;
+	// the pool that plays the games
+	private final ForkJoinPool pool;
+	// the shots already worked out for positions seen before, or null
+	private final DecisionCache cache;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a Simulator that uses every available core
+	 *
+	 * @param config
+	 * @param shooters
+	 */
+	public Simulator(GameConfig config, Supplier<? extends Shooter> shooters) {
+		this(config, shooters, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor for a Simulator that uses the given number of threads
+	 *
+	 * @param config
+	 * @param shooters
+	 * @param threads
+	 */
+	public Simulator(GameConfig config, Supplier<? extends Shooter> shooters, int threads) {
+		this(config, shooters, threads, null);
+	}
+
+	/**
+	 * Constructor for a Simulator that uses the given number of threads and
+	 * takes shots from the given cache when it can
+	 *
+	 * @param config
+	 * @param shooters
+	 * @param threads
+	 * @param cache    the cache shared by the workers (used only if the shooters
+	 *                 decide from what they have seen alone), or null
+	 */
+	public Simulator(GameConfig config, Supplier<? extends Shooter> shooters, int threads, DecisionCache cache) {
+		this.config = config;
+		this.shooters = shooters;
+		this.pool = new ForkJoinPool(threads);
+		this.cache = cache;
+	}
+
+	/**
+	 * Plays the given number of games
+	 *
+	 * @param games
+	 * @param seed  the master seed of the games' random streams
+	 * @return
+	 */
+	public SimulationResult run(long games, long seed) {
+		return run(games, seed, null);
+	}
+
+	/**
+	 * Plays the given number of games, streaming the result of every game to the
+	 * given sink
+	 *
+	 * @param games
+	 * @param seed  the master seed of the games' random streams
+	 * @param sink  where to write every game's result, or null
+	 * @return
+	 */
+	public SimulationResult run(long games, long seed, ResultSink sink) {
+		// aim for several chunks per thread, so idle threads can steal work
+		long chunkSize = Math.max(1, games / (this.pool.getParallelism() * 8L));
+		long start = System.nanoTime();
+		SimulationResult result = this.pool.invoke(new Chunk(0, games, chunkSize, seed, sink));
+		result.setElapsedNanos(System.nanoTime() - start);
+		result.setSeed(seed);
+		return result;
+	}
+
+	/**
+	 * Plays one game of a run again, exactly as it was played (on the calling
+	 * thread), and returns the ocean as it was at the end
+	 *
+	 * @param seed the master seed of the run
+	 * @param game the number of the game in the run
+	 * @return
+	 */
+	public Ocean replay(long seed, long game) {
+		GameRandom random = new GameRandom(seed).startGame(game);
+		Ocean ocean = new BitboardOcean(this.config);
+		ocean.placeAllShipsRandomly(random);
+		playOneGame(ocean, this.shooters.get(), random);
+		return ocean;
+	}
+
+	/**
+	 * Stops the threads of the pool
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * Plays a single game on the given ocean (the ships must already be placed)
+	 *
+	 * @param ocean
+	 * @param shooter
+	 * @param random
+	 * @return the number of shots fired, or -1 if the game was abandoned because
+	 *         the shooter kept firing without finishing it
+	 */
+	public static int playOneGame(Ocean ocean, Shooter shooter, RandomGenerator random) {
+		return playOneGame(ocean, shooter, random, null);
+	}
+
+	/**
+	 * Plays a single game on the given ocean (the ships must already be placed),
+	 * taking the shots from the given cache when it has them
+	 *
+	 * @param ocean
+	 * @param shooter
+	 * @param random
+	 * @param cache   a cache for this shooter's strategy, or null (it is only
+	 *                used if shooter.decidesFromObservation())
+	 * @return the number of shots fired, or -1 if the game was abandoned because
+	 *         the shooter kept firing without finishing it
+	 */
+	public static int playOneGame(Ocean ocean, Shooter shooter, RandomGenerator random, DecisionCache cache) {
+		GameConfig config = ocean.getConfig();
+		ObservationHash observation = null;
+		if (cache != null && shooter.decidesFromObservation()) {
+			observation = ocean.trackObservation();
+		}
+		int columns = config.getColumns();
+		// enough for a shooter that never repeats itself, with plenty to spare
+		long maxShots = 4L * config.getRows() * columns;
+		shooter.newGame(config, random);
+		while (!ocean.isGameOver()) {
+			if (ocean.getShotsFired() >= maxShots) {
+				return -1;
+			}
+			// only positions early in a game recur often enough to cache
+			int cell = observation == null || !cache.covers(ocean.getShotsFired()) ? shooter.nextShot()
+					: decide(ocean, shooter, observation, cache);
+			int row = cell / columns;
+			int column = cell % columns;
+			int result = ocean.fire(row, column);
+			// tell the shooter about the ship it sank, if any
+			Ship sunk = result == Ocean.SUNK ? ocean.getShipAt(row, column) : null;
+			shooter.shotResult(row, column, result == Ocean.HIT || result == Ocean.SUNK, sunk);
+		}
+		return ocean.getShotsFired();
+	}
+
+	/**
+	 * Returns the shot stored in the cache for the position the ocean is in, or
+	 * asks the shooter for one (and stores it) if there is none
+	 *
+	 * @param ocean
+	 * @param shooter
+	 * @param observation the ocean's ObservationHash
+	 * @param cache
+	 * @return
+	 */
+	private static int decide(Ocean ocean, Shooter shooter, ObservationHash observation, DecisionCache cache) {
+		int symmetry = observation.canonicalSymmetry();
+		long key = observation.getHash(symmetry);
+		int cached = cache.get(key);
+		if (cached >= 0) {
+			int cell = observation.fromCanonical(symmetry, cached);
+			// a location that has been fired upon means the hash collided
+			// with another position's, so don't trust it
+			if (ocean.getSymbol(cell / ocean.getColumns(), cell % ocean.getColumns()) == '.') {
+				return cell;
+			}
+		}
+		int cell = shooter.nextShot();
+		cache.put(key, observation.toCanonical(symmetry, cell));
+		return cell;
+	}
+
+	/**
+	 * A range of games played by one task of the fork/join pool
+	 */
+	private class Chunk extends RecursiveTask<SimulationResult> {
+
+		private static final long serialVersionUID = 1L;
+
+		// the range of games [from, to) played by this task
+		private final long from;
+		private final long to;
+		// the largest range that is played without splitting it further
+		private final long chunkSize;
+		// the master seed of the games' random streams
+		private final long seed;
+		// where to write every game's result, or null
+		private final ResultSink sink;
+
+		Chunk(long from, long to, long chunkSize, long seed, ResultSink sink) {
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.seed = seed;
+			this.sink = sink;
+		}
+
+		@Override
+		protected SimulationResult compute() {
+			// if the range is still too large...
+			if (this.to - this.from > this.chunkSize) {
+				// ...split it in two
+				long middle = (this.from + this.to) >>> 1;
+				Chunk first = new Chunk(this.from, middle, this.chunkSize, this.seed, this.sink);
+				Chunk second = new Chunk(middle, this.to, this.chunkSize, this.seed, this.sink);
+				first.fork();
+				SimulationResult result = second.compute();
+				result.merge(first.join());
+				return result;
+			}
+			// otherwise play the games in this range
+			SimulationResult result = new SimulationResult(config.getRows() * config.getColumns());
+			Shooter shooter = shooters.get();
+			GameRandom random = new GameRandom(this.seed);
+			ResultSink.Batch batch = this.sink == null ? null : this.sink.openBatch();
+			for (long game = this.from; game < this.to; game++) {
+				// the same stream places the fleet and then guides the shooter
+				random.startGame(game);
+				Ocean ocean = new BitboardOcean(config);
+				ocean.placeAllShipsRandomly(random);
+				int shots = playOneGame(ocean, shooter, random, cache);
+				if (shots < 0) {
+					throw new IllegalStateException("The shooter did not finish game " + game);
+				}
+				result.record(game, shots);
+				if (batch != null) {
+					batch.record(game, ocean);
+				}
+			}
+			if (batch != null) {
+				batch.close();
+			}
+			return result;
+		}
+	}
+
+	public static void main(String[] args) {
+		// the number of games to play (default: one million)
+		long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+		// the number of threads to use (default: all available cores)
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		// the strategy to use: "random" (default), "probability", or "cached"
+		// (probability, with a cache of the shots of positions seen before)
+		boolean cached = args.length > 2 && args[2].equals("cached");
+		boolean probability = cached || args.length > 2 && args[2].equals("probability");
+		// the master seed (default: a new one every time)
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : GameRandom.randomSeed();
+		// a single game of the run to play again and show (default: none, or -1)
+		long replay = args.length > 4 ? Long.parseLong(args[4]) : -1;
+		// a file to stream every game's result to, binary or ".csv" (default:
+		// none)
+		Path results = args.length > 5 ? Paths.get(args[5]) : null;
+		// make the engine metrics available over JMX (and in a file, if asked)
+		EngineMetrics.publish();
+		DecisionCache cache = cached ? new DecisionCache(1 << 18, 15) : null;
+		Simulator simulator = new Simulator(GameConfig.standard(),
+				probability ? ProbabilityShooter::new : RandomShooter::new, threads, cache);
+		if (replay >= 0) {
+			Ocean ocean = simulator.replay(seed, replay);
+			simulator.shutdown();
+			ocean.print();
+			System.out.printf("Game %d of seed %d took %d shots%n", replay, seed, ocean.getShotsFired());
+			return;
+		}
+		// play a small batch first (with another seed), so the JIT compiler has
+		// warmed up
+		simulator.run(Math.min(games, 10_000), ~seed);
+		SimulationResult result;
+		if (results == null) {
+			result = simulator.run(games, seed);
+		} else {
+			try (ResultSink sink = new ResultSink(results, GameConfig.standard(), seed)) {
+				result = simulator.run(games, seed, sink);
+				System.out.println(sink);
+			} catch (IOException e) {
+				simulator.shutdown();
+				System.err.println("Could not write the results: " + e.getMessage());
+				return;
+			}
+		}
+		simulator.shutdown();
+		System.out.printf("%s shooter, %d thread(s)%n%s%n", probability ? "Probability" : "Random", threads,
+				result);
+		if (cache != null) {
+			System.out.println(cache);
+		}
+	}
+}
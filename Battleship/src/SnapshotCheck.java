@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Checks that oceans survive a round trip through a SnapshotStore: a new file
+ * is created, games at different stages are appended, read back, and read
+ * back again after the file is closed and reopened. Replacing a snapshot with
+ * write() is checked too, as is that write() refuses an index past the last
+ * snapshot.
+ *
+ * The program prints what failed and exits with status 1 if anything did.
+ *
+ */
+public class SnapshotCheck {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of oceans stored
+	private static final int OCEANS = 100;
+
+	// the oceans written to the file
+	private final Ocean[] oceans;
+	// the number of checks that failed
+	private int failures;
+
+	/* METHODS */
+
+	/**
+	 * Creates the oceans to be stored, each with its fleet placed and a
+	 * different number of shots fired at it
+	 *
+	 * @param config
+	 * @param seed
+	 */
+	public SnapshotCheck(GameConfig config, long seed) {
+		Random random = new Random(seed);
+		this.oceans = new Ocean[OCEANS];
+		for (int i = 0; i < OCEANS; i++) {
+			Ocean ocean = new Ocean(config);
+			ocean.placeAllShipsRandomly(random);
+			// fire at up to the whole ocean, stopping once the fleet is sunk
+			int shots = random.nextInt(config.getRows() * config.getColumns() + 1);
+			for (int j = 0; j < shots && !ocean.isGameOver(); j++) {
+				ocean.shootAt(random.nextInt(config.getRows()), random.nextInt(config.getColumns()));
+			}
+			this.oceans[i] = ocean;
+		}
+	}
+
+	/**
+	 * Runs every check against a file at the given path
+	 *
+	 * @param path
+	 * @return the number of checks that failed
+	 * @throws IOException
+	 */
+	public int run(Path path) throws IOException {
+		GameConfig config = this.oceans[0].getConfig();
+		try (SnapshotStore store = SnapshotStore.create(path, config, OCEANS)) {
+			for (int i = 0; i < OCEANS; i++) {
+				long index = store.append(this.oceans[i]);
+				check(index == i, "append() returned " + index + " for snapshot " + i);
+			}
+			checkAll(store, "after appending");
+			// there is no snapshot past the last one to replace
+			try {
+				store.write(OCEANS, this.oceans[0]);
+				check(false, "write() accepted an index past the last snapshot");
+			} catch (IndexOutOfBoundsException e) {
+				// expected
+			}
+			// replace the first snapshot with the last ocean, and back again
+			store.write(0, this.oceans[OCEANS - 1]);
+			checkSame(this.oceans[OCEANS - 1], store.read(0), "after write(0)");
+			store.write(0, this.oceans[0]);
+		}
+		try (SnapshotStore store = SnapshotStore.open(path, false)) {
+			check(store.getCount() == OCEANS, "reopened with " + store.getCount() + " snapshots");
+			checkAll(store, "after reopening");
+		}
+		return this.failures;
+	}
+
+	/**
+	 * Checks that every snapshot in the store matches the ocean it was written
+	 * from
+	 *
+	 * @param store
+	 * @param when  when the check is made, for the message
+	 */
+	private void checkAll(SnapshotStore store, String when) {
+		for (int i = 0; i < OCEANS; i++) {
+			check(store.getShotsFired(i) == this.oceans[i].getShotsFired(),
+					"shots fired differ in snapshot " + i + " " + when);
+			checkSame(this.oceans[i], store.read(i), "in snapshot " + i + " " + when);
+		}
+	}
+
+	/**
+	 * Checks that two oceans look the same to the user and have the same counts
+	 *
+	 * @param expected
+	 * @param actual
+	 * @param where    where the oceans came from, for the message
+	 */
+	private void checkSame(Ocean expected, Ocean actual, String where) {
+		check(expected.getShotsFired() == actual.getShotsFired(), "shots fired differ " + where);
+		check(expected.getHitCount() == actual.getHitCount(), "hit count differs " + where);
+		check(expected.getShipsSunk() == actual.getShipsSunk(), "ships sunk differ " + where);
+		for (int row = 0; row < expected.getRows(); row++) {
+			for (int column = 0; column < expected.getColumns(); column++) {
+				if (expected.getSymbol(row, column) != actual.getSymbol(row, column)
+						|| expected.isOccupied(row, column) != actual.isOccupied(row, column)) {
+					check(false, "(" + row + ", " + column + ") differs " + where);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records a failure, with its message, if the condition does not hold
+	 *
+	 * @param condition
+	 * @param message
+	 */
+	private void check(boolean condition, String message) {
+		if (!condition) {
+			System.out.println("FAILED: " + message);
+			this.failures++;
+		}
+	}
+
+	/**
+	 * Runs the checks on a temporary file
+	 *
+	 * @param args  [SEED]
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		// the seed for the oceans (default: 1)
+		long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		Path path = Files.createTempFile("battleship", ".snapshots");
+		int failures;
+		try {
+			failures = new SnapshotCheck(GameConfig.standard(), seed).run(path);
+		} finally {
+			Files.deleteIfExists(path);
+		}
+		if (failures > 0) {
+			System.out.println(failures + " checks failed");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+}
@@ -0,0 +1,305 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of OceanSnapshots (paused games, or corpora of generated oceans),
+ * memory-mapped so that millions of them can be read and written without
+ * reading the file into objects first
+ *
+ * The file starts with a header describing the configuration of the oceans and
+ * the number of snapshots stored, followed by the snapshots back to back. A
+ * file larger than a single mapping allows is mapped in segments, and no
+ * snapshot spans two segments.
+ *
+ * Reading snapshots is safe from any number of threads at once; writing one
+ * must not happen at the same time as reading or writing the same snapshot,
+ * and append() must only be called by one thread at a time.
+ *
+ */
+public class SnapshotStore implements Closeable {
+
+	/* INSTANCE VARIABLES */
+
+	// "BSNP", at the start of every file
+	private static final int MAGIC = 0x42534E50;
+	private static final int VERSION = 1;
+	// the largest segment of the file that is mapped at once
+	private static final int MAX_SEGMENT = 1 << 30;
+	// where the number of snapshots is kept in the header
+	private static final int COUNT_OFFSET = 8;
+
+	// the file
+	private final FileChannel channel;
+	// the format of the snapshots
+	private final OceanSnapshot format;
+	// the size of the header
+	private final int headerSize;
+	// the number of snapshots the file has room for
+	private final long capacity;
+	// the number of snapshots in each segment
+	private final int perSegment;
+	// the header
+	private final MappedByteBuffer header;
+	// the snapshots
+	private final MappedByteBuffer[] segments;
+	// the number of snapshots stored
+	private long count;
+
+	/* METHODS */
+
+	/**
+	 * Creates a new file with room for the given number of snapshots (replacing
+	 * any file at that path)
+	 *
+	 * @param path
+	 * @param config   the configuration of the oceans to be stored
+	 * @param capacity
+	 * @return
+	 * @throws IOException
+	 */
+	public static SnapshotStore create(Path path, GameConfig config, long capacity) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(headerSize(config.getFleetSize()));
+			header.putInt(MAGIC).putInt(VERSION).putLong(0).putLong(capacity);
+			config.writeTo(header);
+			header.flip();
+			channel.write(header, 0);
+			return new SnapshotStore(channel, config, capacity, false);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens an existing file
+	 *
+	 * @param path
+	 * @param writable true to allow adding and replacing snapshots
+	 * @return
+	 * @throws IOException
+	 */
+	public static SnapshotStore open(Path path, boolean writable) throws IOException {
+		FileChannel channel = writable
+				? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer fixed = ByteBuffer.allocate(headerSize(0));
+			channel.read(fixed, 0);
+			fixed.flip();
+			if (fixed.remaining() < headerSize(0) || fixed.getInt() != MAGIC) {
+				throw new IOException("Not a snapshot file: " + path);
+			}
+			if (fixed.getInt() != VERSION) {
+				throw new IOException("Unsupported snapshot file version: " + path);
+			}
+			fixed.getLong();
+			long capacity = fixed.getLong();
+			// read the whole header now that the size of the fleet is known
+			int fleetSize = fixed.getInt(fixed.limit() - 4);
+			if (fleetSize < 1 || fleetSize > (MAX_SEGMENT - headerSize(0)) / 4) {
+				throw new IOException("Corrupt snapshot file header");
+			}
+			ByteBuffer header = ByteBuffer.allocate(headerSize(fleetSize));
+			channel.read(header, 0);
+			header.position(fixed.position()).limit(header.capacity());
+			GameConfig config = GameConfig.readFrom(header);
+			return new SnapshotStore(channel, config, capacity, !writable);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Constructor for a SnapshotStore over an open file whose header has been
+	 * written
+	 *
+	 * @param channel
+	 * @param config
+	 * @param capacity
+	 * @param readOnly
+	 * @throws IOException
+	 */
+	private SnapshotStore(FileChannel channel, GameConfig config, long capacity, boolean readOnly)
+			throws IOException {
+		this.channel = channel;
+		this.format = new OceanSnapshot(config);
+		this.headerSize = headerSize(config.getFleetSize());
+		this.capacity = capacity;
+		int size = this.format.getSize();
+		this.perSegment = MAX_SEGMENT / size;
+		FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+		this.header = channel.map(mode, 0, this.headerSize);
+		this.count = this.header.getLong(COUNT_OFFSET);
+		if (this.count < 0 || this.count > capacity) {
+			throw new IOException("Corrupt snapshot file header");
+		}
+		// map the snapshots in segments of whole snapshots
+		int segmentCount = (int) ((capacity + this.perSegment - 1) / this.perSegment);
+		this.segments = new MappedByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			long first = (long) i * this.perSegment;
+			long snapshots = Math.min(this.perSegment, capacity - first);
+			this.segments[i] = channel.map(mode, this.headerSize + first * size, snapshots * size);
+		}
+	}
+
+	/**
+	 * Returns the size of the header for a fleet of the given size
+	 *
+	 * @param fleetSize
+	 * @return
+	 */
+	private static int headerSize(int fleetSize) {
+		// magic, version, count, capacity, then the configuration
+		return 4 + 4 + 8 + 8 + GameConfig.encodedSize(fleetSize);
+	}
+
+	/**
+	 * Returns the configuration of the oceans in this file
+	 *
+	 * @return
+	 */
+	public GameConfig getConfig() {
+		return this.format.getConfig();
+	}
+
+	/**
+	 * Returns the number of snapshots stored
+	 *
+	 * @return
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the number of snapshots the file has room for
+	 *
+	 * @return
+	 */
+	public long getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Adds a snapshot of the given ocean after the last one stored
+	 *
+	 * @param ocean
+	 * @return the index of the new snapshot
+	 */
+	public long append(Ocean ocean) {
+		if (this.count == this.capacity) {
+			throw new IllegalStateException("The snapshot file is full");
+		}
+		long index = this.count;
+		// not write(), which only replaces snapshots already stored
+		this.format.encode(ocean, segmentOf(index), offsetOf(index));
+		this.count++;
+		this.header.putLong(COUNT_OFFSET, this.count);
+		return index;
+	}
+
+	/**
+	 * Replaces the snapshot at the given index (a new one is added with
+	 * append())
+	 *
+	 * @param index
+	 * @param ocean
+	 */
+	public void write(long index, Ocean ocean) {
+		checkIndex(index);
+		this.format.encode(ocean, segmentOf(index), offsetOf(index));
+	}
+
+	/**
+	 * Restores the snapshot at the given index into a new ocean
+	 *
+	 * @param index
+	 * @return
+	 */
+	public Ocean read(long index) {
+		checkIndex(index);
+		return this.format.decode(segmentOf(index), offsetOf(index));
+	}
+
+	/**
+	 * Restores the snapshot at the given index into the given (new) ocean
+	 *
+	 * @param index
+	 * @param ocean
+	 */
+	public void read(long index, Ocean ocean) {
+		checkIndex(index);
+		this.format.decode(segmentOf(index), offsetOf(index), ocean);
+	}
+
+	/**
+	 * Returns the number of shots fired in the snapshot at the given index,
+	 * without restoring the ocean
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getShotsFired(long index) {
+		checkIndex(index);
+		return this.format.getShotsFired(segmentOf(index), offsetOf(index));
+	}
+
+	/**
+	 * Makes sure the given index refers to a stored snapshot
+	 *
+	 * @param index
+	 */
+	private void checkIndex(long index) {
+		if (index < 0 || index >= this.count) {
+			throw new IndexOutOfBoundsException("No snapshot " + index);
+		}
+	}
+
+	/**
+	 * Returns the segment that holds the snapshot at the given index
+	 *
+	 * @param index
+	 * @return
+	 */
+	private ByteBuffer segmentOf(long index) {
+		return this.segments[(int) (index / this.perSegment)];
+	}
+
+	/**
+	 * Returns the offset of the snapshot at the given index in its segment
+	 *
+	 * @param index
+	 * @return
+	 */
+	private int offsetOf(long index) {
+		return (int) (index % this.perSegment) * this.format.getSize();
+	}
+
+	/**
+	 * Writes any changes out to the file
+	 */
+	public void force() {
+		this.header.force();
+		for (MappedByteBuffer segment : this.segments) {
+			segment.force();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!this.header.isReadOnly()) {
+			force();
+		}
+		this.channel.close();
+	}
+}
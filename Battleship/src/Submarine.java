@@ -11,7 +11,7 @@ public class Submarine extends Ship {
 	 */
 	public Submarine() {
 		// set the length to 1
-		this.length = 1;
+		super(1);
 	}
 
 	@Override
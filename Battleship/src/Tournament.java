@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Plays several Shooter strategies against each other: every entrant plays
+ * the same numbered games, with the same fleet in each game, on all available
+ * cores
+ *
+ * The games are played in batches. After each batch the entrants are ranked by
+ * their mean number of shots, and the tournament stops as soon as every
+ * entrant is ahead of the next one by a clear margin (see
+ * TournamentResult.isSettled()), instead of playing a fixed number of games
+ * that is usually far more than needed. Since the ranking is checked after
+ * every batch, the margin required is wider than that of a single 95% test.
+ *
+ * Game n of a tournament is game n of a Simulator run with the same seed, so
+ * Simulator.replay() plays any of them again for any entrant.
+ *
+ */
+public class Tournament {
+
+	/* INSTANCE VARIABLES */
+
+	// the number of standard errors that each entrant must be ahead of the
+	// next one by (about a 1 in 1,000 chance of a wrong call for each pair)
+	private static final double SETTLED_Z = 3.29;
+
+	// the size of the ocean and the makeup of the fleet
+	private final GameConfig config;
+	// the names of the entrants, and what creates a Shooter for each of them
+	private final List<String> names = new ArrayList<>();
+	private final List<Supplier<? extends Shooter>> shooters = new ArrayList<>();
+	// the pool that plays the games
+	private final ForkJoinPool pool;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for a Tournament with no entrants that uses the given number of
+	 * threads
+	 *
+	 * @param config
+	 * @param threads
+	 */
+	public Tournament(GameConfig config, int threads) {
+		this.config = config;
+		this.pool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Adds an entrant
+	 *
+	 * @param name
+	 * @param shooters creates a Shooter for each chunk of games
+	 * @return this Tournament
+	 */
+	public Tournament add(String name, Supplier<? extends Shooter> shooters) {
+		this.names.add(name);
+		this.shooters.add(shooters);
+		return this;
+	}
+
+	/**
+	 * Plays batches of games until the ranking is settled, or until the given
+	 * number of games has been played
+	 *
+	 * @param seed     the master seed of the games' random streams
+	 * @param batch    the number of games played between two looks at the
+	 *                 ranking
+	 * @param maxGames
+	 * @return
+	 */
+	public TournamentResult run(long seed, long batch, long maxGames) {
+		if (this.names.size() < 2) {
+			throw new IllegalStateException("A tournament needs at least 2 entrants");
+		}
+		long start = System.nanoTime();
+		TournamentResult result = new TournamentResult(this.names, this.config.getRows() * this.config.getColumns());
+		long played = 0;
+		while (played < maxGames) {
+			long to = Math.min(maxGames, played + batch);
+			// aim for several chunks per thread, so idle threads can steal work
+			long chunkSize = Math.max(1, (to - played) / (this.pool.getParallelism() * 8L));
+			result.merge(this.pool.invoke(new Chunk(played, to, chunkSize, seed)));
+			played = to;
+			if (result.isSettled(SETTLED_Z)) {
+				break;
+			}
+		}
+		result.setElapsedNanos(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * Stops the threads of the pool
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * A range of games played by one task of the fork/join pool
+	 */
+	private class Chunk extends RecursiveTask<TournamentResult> {
+
+		private static final long serialVersionUID = 1L;
+
+		// the range of games [from, to) played by this task
+		private final long from;
+		private final long to;
+		// the largest range that is played without splitting it further
+		private final long chunkSize;
+		// the master seed of the games' random streams
+		private final long seed;
+
+		Chunk(long from, long to, long chunkSize, long seed) {
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.seed = seed;
+		}
+
+		@Override
+		protected TournamentResult compute() {
+			// if the range is still too large...
+			if (this.to - this.from > this.chunkSize) {
+				// ...split it in two
+				long middle = (this.from + this.to) >>> 1;
+				Chunk first = new Chunk(this.from, middle, this.chunkSize, this.seed);
+				Chunk second = new Chunk(middle, this.to, this.chunkSize, this.seed);
+				first.fork();
+				TournamentResult result = second.compute();
+				result.merge(first.join());
+				return result;
+			}
+			// otherwise play the games in this range, with every entrant
+			TournamentResult result = new TournamentResult(names, config.getRows() * config.getColumns());
+			Shooter[] entrants = new Shooter[shooters.size()];
+			for (int i = 0; i < entrants.length; i++) {
+				entrants[i] = shooters.get(i).get();
+			}
+			GameRandom random = new GameRandom(this.seed);
+			int[] shots = new int[entrants.length];
+			for (long game = this.from; game < this.to; game++) {
+				for (int i = 0; i < entrants.length; i++) {
+					// starting the game's stream again places the same fleet
+					// for every entrant
+					random.startGame(game);
+					Ocean ocean = new BitboardOcean(config);
+					ocean.placeAllShipsRandomly(random);
+					shots[i] = Simulator.playOneGame(ocean, entrants[i], random);
+					if (shots[i] < 0) {
+						throw new IllegalStateException(names.get(i) + " did not finish game " + game);
+					}
+				}
+				result.record(game, shots);
+			}
+			return result;
+		}
+	}
+
+	public static void main(String[] args) {
+		// the largest number of games to play (default: one million)
+		long maxGames = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+		// the number of threads to use (default: all available cores)
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		// the master seed (default: a new one every time)
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : GameRandom.randomSeed();
+		// the number of games between two looks at the ranking (default: 2,000)
+		long batch = args.length > 3 ? Long.parseLong(args[3]) : 2_000;
+		// make the engine metrics available over JMX (and in a file, if asked)
+		EngineMetrics.publish();
+		Tournament tournament = new Tournament(GameConfig.standard(), threads)
+				.add("random", RandomShooter::new)
+				.add("hunt/target", HuntTargetShooter::new)
+				.add("parity", ParityShooter::new)
+				.add("probability", ProbabilityShooter::new);
+		TournamentResult result = tournament.run(seed, batch, maxGames);
+		tournament.shutdown();
+		System.out.printf("Seed %d, %d thread(s)%n%s", seed, threads, result);
+		System.out.println(result.isSettled(SETTLED_Z) ? "The ranking is settled."
+				: "The ranking is not settled; play more games to be sure of it.");
+	}
+}
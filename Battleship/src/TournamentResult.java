@@ -0,0 +1,246 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The results of a Tournament: how many shots each entrant needed in every
+ * game, and how each entrant compares with every other one
+ *
+ * Every entrant plays the same games (the same fleets), so two entrants are
+ * compared on the difference between their shots in each game rather than on
+ * their separate means. The difference between two good shooters varies far
+ * less than either shooter's number of shots, so it takes far fewer games to
+ * tell them apart.
+ *
+ */
+public class TournamentResult {
+
+	/* INSTANCE VARIABLES */
+
+	// the names of the entrants
+	private final String[] names;
+	// the results of every entrant
+	private final SimulationResult[] results;
+	// differences[a][b] is the total over all games of the shots of entrant a
+	// minus those of entrant b (for a < b), and squares[a][b] the total of the
+	// squares of those differences
+	private final long[][] differences;
+	private final long[][] squares;
+	// the wall-clock time taken to play the games, in nanoseconds
+	private long elapsedNanos;
+
+	/* METHODS */
+
+	/**
+	 * Constructor for an empty TournamentResult
+	 *
+	 * @param names    the names of the entrants
+	 * @param maxShots the largest number of shots recorded exactly
+	 */
+	public TournamentResult(List<String> names, int maxShots) {
+		this.names = names.toArray(new String[0]);
+		this.results = new SimulationResult[this.names.length];
+		for (int i = 0; i < this.results.length; i++) {
+			this.results[i] = new SimulationResult(maxShots);
+		}
+		this.differences = new long[this.names.length][this.names.length];
+		this.squares = new long[this.names.length][this.names.length];
+	}
+
+	/**
+	 * Records a game
+	 *
+	 * @param game  the number of the game
+	 * @param shots the number of shots each entrant needed
+	 */
+	public void record(long game, int[] shots) {
+		for (int a = 0; a < shots.length; a++) {
+			this.results[a].record(game, shots[a]);
+			for (int b = a + 1; b < shots.length; b++) {
+				long difference = shots[a] - shots[b];
+				this.differences[a][b] += difference;
+				this.squares[a][b] += difference * difference;
+			}
+		}
+	}
+
+	/**
+	 * Adds the games recorded in another result (with the same entrants) to this
+	 * one
+	 *
+	 * @param other
+	 */
+	public void merge(TournamentResult other) {
+		for (int a = 0; a < this.results.length; a++) {
+			this.results[a].merge(other.results[a]);
+			for (int b = a + 1; b < this.results.length; b++) {
+				this.differences[a][b] += other.differences[a][b];
+				this.squares[a][b] += other.squares[a][b];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of games played (by each entrant)
+	 *
+	 * @return
+	 */
+	public long getGames() {
+		return this.results[0].getGames();
+	}
+
+	/**
+	 * Returns the results of the given entrant
+	 *
+	 * @param entrant
+	 * @return
+	 */
+	public SimulationResult getResult(int entrant) {
+		return this.results[entrant];
+	}
+
+	/**
+	 * Returns the entrants, from the fewest mean shots per game to the most
+	 *
+	 * @return
+	 */
+	public Integer[] getRanking() {
+		Integer[] ranking = new Integer[this.results.length];
+		for (int i = 0; i < ranking.length; i++) {
+			ranking[i] = i;
+		}
+		Arrays.sort(ranking, Comparator.comparingDouble(i -> this.results[i].getMeanShots()));
+		return ranking;
+	}
+
+	/**
+	 * Returns the mean, over all games, of the shots of one entrant minus those
+	 * of another
+	 *
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public double getMeanDifference(int a, int b) {
+		if (a > b) {
+			return -getMeanDifference(b, a);
+		}
+		long games = getGames();
+		return games == 0 || a == b ? 0 : (double) this.differences[a][b] / games;
+	}
+
+	/**
+	 * Returns the standard error of getMeanDifference() (0 if fewer than 2 games
+	 * were played)
+	 *
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public double getDifferenceError(int a, int b) {
+		if (a > b) {
+			return getDifferenceError(b, a);
+		}
+		long games = getGames();
+		if (games < 2 || a == b) {
+			return 0;
+		}
+		double mean = getMeanDifference(a, b);
+		double variance = (this.squares[a][b] - mean * this.differences[a][b]) / (games - 1);
+		return Math.sqrt(Math.max(0, variance) / games);
+	}
+
+	/**
+	 * Returns true if every entrant of the ranking is better than the next one
+	 * with the given confidence: the mean difference between them is more than
+	 * z standard errors from 0
+	 *
+	 * @param z
+	 * @return
+	 */
+	public boolean isSettled(double z) {
+		Integer[] ranking = getRanking();
+		for (int r = 0; r + 1 < ranking.length; r++) {
+			double difference = getMeanDifference(ranking[r + 1], ranking[r]);
+			double error = getDifferenceError(ranking[r], ranking[r + 1]);
+			// no difference at all (identical entrants) is never settled
+			if (difference == 0 || difference <= z * error) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the range that the given percentile of the entrant's shots lies in
+	 * with the given confidence (between the order statistics z standard
+	 * deviations either side of the percentile's rank, which holds whatever the
+	 * shape of the distribution)
+	 *
+	 * @param entrant
+	 * @param fraction between 0 and 1
+	 * @param z
+	 * @return the lowest and highest number of shots
+	 */
+	public int[] getPercentileInterval(int entrant, double fraction, double z) {
+		SimulationResult result = this.results[entrant];
+		long games = result.getGames();
+		double spread = games == 0 ? 0 : z * Math.sqrt(fraction * (1 - fraction) / games);
+		return new int[] { result.getPercentile(Math.max(0, fraction - spread)),
+				result.getPercentile(Math.min(1, fraction + spread)) };
+	}
+
+	/**
+	 * Sets the wall-clock time taken to play the games
+	 *
+	 * @param elapsedNanos
+	 */
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Returns the wall-clock time taken to play the games, in nanoseconds
+	 *
+	 * @return
+	 */
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * Returns a table of the entrants, best first, with 95% confidence intervals
+	 *
+	 * @return
+	 */
+	@Override
+	public String toString() {
+		// the z of a two-sided 95% confidence interval
+		double z = 1.96;
+		StringBuilder table = new StringBuilder(String.format("%d games per entrant in %.2f s%n", getGames(),
+				this.elapsedNanos / 1e9));
+		table.append(String.format("%-14s %20s %14s %14s %14s%n", "shooter", "mean", "median", "p90", "p99"));
+		Integer[] ranking = getRanking();
+		for (int r = 0; r < ranking.length; r++) {
+			int i = ranking[r];
+			SimulationResult result = this.results[i];
+			double error = result.getGames() == 0 ? 0
+					: result.getStandardDeviation() / Math.sqrt(result.getGames());
+			table.append(String.format("%-14s %10.2f +/- %5.2f", this.names[i], result.getMeanShots(), z * error));
+			for (double fraction : new double[] { 0.5, 0.9, 0.99 }) {
+				int[] interval = getPercentileInterval(i, fraction, z);
+				table.append(String.format(" %4d [%3d-%3d]", result.getPercentile(fraction), interval[0],
+						interval[1]));
+			}
+			table.append(String.format("%n"));
+		}
+		// how far apart each entrant is from the next one
+		for (int r = 0; r + 1 < ranking.length; r++) {
+			int better = ranking[r];
+			int worse = ranking[r + 1];
+			table.append(String.format("%s beats %s by %.2f +/- %.2f shots per game%n", this.names[better],
+					this.names[worse], getMeanDifference(worse, better), z * getDifferenceError(better, worse)));
+		}
+		return table.toString();
+	}
+}
@@ -0,0 +1,23 @@
+/**
+ * A class for a ship of any other length in the game Battleship (used by
+ * configurations with ships that are not in the classic fleet)
+ *
+ */
+public class Warship extends Ship {
+
+	/**
+	 * Constructor for an instance of Warship
+	 *
+	 * @param length
+	 */
+	public Warship(int length) {
+		super(length);
+	}
+
+	@Override
+	public String getShipType() {
+		// to be concatenated after "You sunk "
+		return "a warship of length " + this.length;
+	}
+
+}